@@ -0,0 +1,145 @@
+package com.example.smarthome.ui.home;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smarthome.benchmark.ListBenchmarkActivity;
+import com.example.smarthome.model.DeviceItem;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 滚动 + 10Hz 数据更新下的掉帧统计（FrameMetrics）
+ * 对比 ListAdapter 差异刷新 与 旧的 notifyDataSetChanged 全量刷新
+ * 结果写入 logcat（tag DeviceListJank）和 instrumentation status
+ */
+@RunWith(AndroidJUnit4.class)
+public class DeviceListJankBenchmark {
+    private static final String TAG = "DeviceListJank";
+    private static final int ROWS = 200;
+    private static final int UPDATES_PER_TICK = 20;
+    private static final long TICK_MS = 100;
+    private static final long DURATION_MS = 10_000;
+
+    @Test
+    public void scrollUnderUpdates_diffing() throws Exception {
+        Result r = run(false);
+        report("diff", r);
+        assertTrue(r.frames > 0);
+    }
+
+    @Test
+    public void scrollUnderUpdates_fullRebind() throws Exception {
+        Result r = run(true);
+        report("full", r);
+        assertTrue(r.frames > 0);
+    }
+
+    private Result run(boolean forceFullRebind) throws Exception {
+        Result result = new Result();
+        HandlerThread metricsThread = new HandlerThread("frame-metrics");
+        metricsThread.start();
+        try (ActivityScenario<ListBenchmarkActivity> scenario = ActivityScenario.launch(ListBenchmarkActivity.class)) {
+            CountDownLatch done = new CountDownLatch(1);
+            scenario.onActivity(activity -> {
+                RecyclerView rv = activity.getRecyclerView();
+                DeviceAdapter adapter = new DeviceAdapter(d -> {}, (d, on) -> {});
+                rv.setAdapter(adapter);
+                List<DeviceItem> items = initialItems();
+                adapter.setDevices(items);
+
+                long budgetNs = (long) (1e9 / activity.getWindowManager().getDefaultDisplay().getRefreshRate());
+                Window.OnFrameMetricsAvailableListener listener = (window, metrics, dropCount) -> {
+                    long total = metrics.getMetric(FrameMetrics.TOTAL_DURATION);
+                    result.frames++;
+                    if (total > budgetNs) result.janky++;
+                    result.dropped += dropCount;
+                };
+                activity.getWindow().addOnFrameMetricsAvailableListener(listener, new Handler(metricsThread.getLooper()));
+
+                Handler main = new Handler(Looper.getMainLooper());
+                Random random = new Random(42);
+                long end = System.currentTimeMillis() + DURATION_MS;
+                AtomicInteger direction = new AtomicInteger(1);
+                main.post(new Runnable() {
+                    List<DeviceItem> current = items;
+                    @Override public void run() {
+                        if (System.currentTimeMillis() >= end) {
+                            activity.getWindow().removeOnFrameMetricsAvailableListener(listener);
+                            done.countDown();
+                            return;
+                        }
+                        current = tick(current, random);
+                        adapter.setDevices(current);
+                        if (forceFullRebind) adapter.notifyDataSetChanged();
+                        if (!rv.canScrollVertically(direction.get())) direction.set(-direction.get());
+                        rv.smoothScrollBy(0, direction.get() * 600);
+                        main.postDelayed(this, TICK_MS);
+                    }
+                });
+            });
+            assertTrue(done.await(DURATION_MS + 10_000, TimeUnit.MILLISECONDS));
+        } finally {
+            metricsThread.quitSafely();
+        }
+        return result;
+    }
+
+    private static List<DeviceItem> initialItems() {
+        List<DeviceItem> list = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            list.add(new DeviceItem("dev-" + i, "设备" + i, i % 3 == 0 ? "sensor" : "light",
+                    true, i % 2 == 0, "开启", 0, 20.0 + i % 10));
+        }
+        return list;
+    }
+
+    /**
+     * 每次随机修改若干行的读数（新对象，模拟网络/推送刷新）
+     */
+    private static List<DeviceItem> tick(List<DeviceItem> prev, Random random) {
+        List<DeviceItem> next = new ArrayList<>(prev);
+        for (int i = 0; i < UPDATES_PER_TICK; i++) {
+            int idx = random.nextInt(next.size());
+            DeviceItem o = next.get(idx);
+            next.set(idx, new DeviceItem(o.getDeviceId(), o.getName(), o.getType(), o.isOnline(), o.isActive(),
+                    o.getStatus(), System.currentTimeMillis(), 15 + random.nextInt(200) / 10.0));
+        }
+        return next;
+    }
+
+    private static void report(String name, Result r) {
+        String line = String.format(java.util.Locale.US, "%s frames=%d janky=%d (%.1f%%) dropped=%d",
+                name, r.frames, r.janky, r.frames == 0 ? 0 : 100.0 * r.janky / r.frames, r.dropped);
+        Log.i(TAG, line);
+        Bundle status = new Bundle();
+        status.putString(TAG + "." + name, line);
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+    }
+
+    private static final class Result {
+        volatile int frames;
+        volatile int janky;
+        volatile int dropped;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.smarthome.benchmark;
+
+import android.os.Bundle;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 列表渲染基准测试宿主，只有一个全屏RecyclerView，适配器由测试代码设置
+ */
+public class ListBenchmarkActivity extends AppCompatActivity {
+    private RecyclerView recyclerView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        recyclerView = new RecyclerView(this);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        setContentView(recyclerView);
+    }
+
+    public RecyclerView getRecyclerView() {
+        return recyclerView;
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.smarthome;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import com.example.smarthome.net.HttpStack;
+import com.example.smarthome.supabase.SupabaseClient;
 import com.example.smarthome.utils.FilePicker;
 import com.example.smarthome.utils.PermissionManager;
 
@@ -16,4 +21,15 @@ public class SmarthomeApplication extends Application {
         PermissionManager.init(getApplicationContext());
         FilePicker.init(getApplicationContext());
     }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // 退到后台时输出一次网络连接复用、读请求合并与HTTP缓存情况
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            HttpStack.getInstance().logReport();
+            SupabaseClient client = SupabaseClient.getInstance(this);
+            Log.i("SmarthomeApplication", "dedup " + client.getDedupStats() + " | http cache " + client.getHttpCacheStats());
+        }
+    }
 }
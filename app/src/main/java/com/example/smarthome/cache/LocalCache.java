@@ -0,0 +1,337 @@
+package com.example.smarthome.cache;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.example.smarthome.model.Device;
+import com.example.smarthome.model.SecurityEvent;
+import com.example.smarthome.model.SensorPoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地持久化缓存（SQLite），保存设备列表、各类传感器最新记录与安全事件
+ * 页面先从缓存渲染，再由网络结果后台刷新（stale-while-revalidate）
+ * 所有方法都会访问磁盘，只能在后台线程调用
+ */
+public class LocalCache extends SQLiteOpenHelper {
+    private static final String TAG = "LocalCache";
+    private static final String DB_NAME = "smarthome_cache.db";
+    private static final int DB_VERSION = 1;
+
+    public static final String KEY_DEVICES = "devices";
+    public static final String KEY_SECURITY_EVENTS = "security_events";
+    private static final String KEY_SENSOR_PREFIX = "sensor:";
+    private static final int MAX_STORED_EVENTS = 10_000;
+    private static final int EVENT_TRIM_EVERY = 500;
+
+    private static LocalCache instance;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private LocalCache(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    public static synchronized LocalCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE devices (" +
+                "device_id TEXT PRIMARY KEY, id TEXT, name TEXT, type TEXT, room TEXT, " +
+                "is_online INTEGER, is_on INTEGER, latest_sensor_data TEXT, position INTEGER)");
+        db.execSQL("CREATE TABLE sensor_latest (" +
+                "sensor_type TEXT PRIMARY KEY, device_id TEXT, value REAL, unit TEXT, timestamp TEXT)");
+        db.execSQL("CREATE TABLE security_events (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, type TEXT, message TEXT, at TEXT, " +
+                "device_id TEXT, handled INTEGER)");
+        db.execSQL("CREATE TABLE cache_meta (key TEXT PRIMARY KEY, fetched_at INTEGER)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 缓存数据可随时丢弃，升级时直接重建
+        db.execSQL("DROP TABLE IF EXISTS devices");
+        db.execSQL("DROP TABLE IF EXISTS sensor_latest");
+        db.execSQL("DROP TABLE IF EXISTS security_events");
+        db.execSQL("DROP TABLE IF EXISTS cache_meta");
+        onCreate(db);
+    }
+
+    // ---------------- 设备 ----------------
+
+    /**
+     * 读取缓存的设备列表
+     * @return 设备列表；从未写入过时返回null（记为未命中）
+     */
+    public List<Device> getDevices() {
+        if (fetchedAt(KEY_DEVICES) < 0) {
+            counter(KEY_DEVICES).misses.incrementAndGet();
+            return null;
+        }
+        List<Device> list = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query("devices", null, null, null, null, null, "position ASC")) {
+            while (c.moveToNext()) {
+                Device d = new Device();
+                d.setDeviceId(c.getString(c.getColumnIndexOrThrow("device_id")));
+                d.setId(c.getString(c.getColumnIndexOrThrow("id")));
+                d.setName(c.getString(c.getColumnIndexOrThrow("name")));
+                d.setDeviceType(c.getString(c.getColumnIndexOrThrow("type")));
+                d.setRoom(c.getString(c.getColumnIndexOrThrow("room")));
+                d.setOnline(c.getInt(c.getColumnIndexOrThrow("is_online")) != 0);
+                d.setOn(c.getInt(c.getColumnIndexOrThrow("is_on")) != 0);
+                d.setLatestSensorData(c.getString(c.getColumnIndexOrThrow("latest_sensor_data")));
+                list.add(d);
+            }
+        }
+        counter(KEY_DEVICES).hits.incrementAndGet();
+        return list;
+    }
+
+    /**
+     * 用网络结果整体替换设备缓存
+     */
+    public void putDevices(List<Device> devices) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete("devices", null, null);
+            int position = 0;
+            for (Device d : devices) {
+                String key = d.getDeviceId() != null ? d.getDeviceId() : d.getId();
+                if (key == null) continue;
+                ContentValues v = new ContentValues();
+                v.put("device_id", key);
+                v.put("id", d.getId());
+                v.put("name", d.getName());
+                v.put("type", d.getDeviceType());
+                v.put("room", d.getRoom());
+                v.put("is_online", d.isOnline() ? 1 : 0);
+                v.put("is_on", d.isOn() ? 1 : 0);
+                v.put("latest_sensor_data", d.getLatestSensorData());
+                v.put("position", position++);
+                db.insertWithOnConflict("devices", null, v, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            touch(db, KEY_DEVICES);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // ---------------- 传感器最新值 ----------------
+
+    /**
+     * 读取某类传感器最新记录
+     * @param sensorType temperature/humidity/gas
+     * @return 最新记录；无缓存时返回null
+     */
+    public SensorPoint getLatestSensor(String sensorType) {
+        String key = KEY_SENSOR_PREFIX + sensorType;
+        try (Cursor c = getReadableDatabase().query("sensor_latest", null, "sensor_type=?",
+                new String[]{sensorType}, null, null, null)) {
+            if (c.moveToFirst()) {
+                counter(key).hits.incrementAndGet();
+                return new SensorPoint(
+                        c.getString(c.getColumnIndexOrThrow("device_id")),
+                        sensorType,
+                        c.getDouble(c.getColumnIndexOrThrow("value")),
+                        c.getString(c.getColumnIndexOrThrow("unit")),
+                        c.getString(c.getColumnIndexOrThrow("timestamp")));
+            }
+        }
+        counter(key).misses.incrementAndGet();
+        return null;
+    }
+
+    public void putLatestSensor(String sensorType, SensorPoint point) {
+        if (point == null || Double.isNaN(point.getValue())) return;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues v = new ContentValues();
+            v.put("sensor_type", sensorType);
+            v.put("device_id", point.getDeviceId());
+            v.put("value", point.getValue());
+            v.put("unit", point.getUnit());
+            v.put("timestamp", point.getTimestamp());
+            db.insertWithOnConflict("sensor_latest", null, v, SQLiteDatabase.CONFLICT_REPLACE);
+            touch(db, KEY_SENSOR_PREFIX + sensorType);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // ---------------- 安全事件 ----------------
+
+    /**
+     * 读取最近的安全事件，按发生顺序（旧→新）返回
+     * @param limit 最多返回条数
+     */
+    public List<SecurityEvent> getSecurityEvents(int limit) {
+        List<SecurityEvent> list = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query("security_events", null, null, null, null, null,
+                "id DESC", String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                list.add(0, readEvent(c));
+            }
+        }
+        if (list.isEmpty()) counter(KEY_SECURITY_EVENTS).misses.incrementAndGet();
+        else counter(KEY_SECURITY_EVENTS).hits.incrementAndGet();
+        return list;
+    }
+
+    /**
+     * 追加一条安全事件，并回填其本地ID
+     */
+    public long addSecurityEvent(SecurityEvent e) {
+        SQLiteDatabase db = getWritableDatabase();
+        ContentValues v = new ContentValues();
+        v.put("type", e.getType());
+        v.put("message", e.getMessage());
+        v.put("at", e.getAt());
+        v.put("device_id", e.getDeviceId());
+        v.put("handled", e.isHandled() ? 1 : 0);
+        long id = db.insert("security_events", null, v);
+        if (id > 0) e.setId(id);
+        if (id > 0 && id % EVENT_TRIM_EVERY == 0) {
+            // 磁盘上也只保留最近的若干条
+            db.delete("security_events", "id<=?", new String[]{String.valueOf(id - MAX_STORED_EVENTS)});
+        }
+        touch(db, KEY_SECURITY_EVENTS);
+        return id;
+    }
+
+    /**
+     * 按本地ID分页读取更早的安全事件（键集分页），旧→新返回
+     * @param beforeId 只返回ID小于该值的事件；<=0 表示从最新开始
+     * @param limit 每页条数
+     */
+    public List<SecurityEvent> getSecurityEventsBefore(long beforeId, int limit) {
+        List<SecurityEvent> list = new ArrayList<>();
+        String where = beforeId > 0 ? "id<?" : null;
+        String[] args = beforeId > 0 ? new String[]{String.valueOf(beforeId)} : null;
+        try (Cursor c = getReadableDatabase().query("security_events", null, where, args, null, null,
+                "id DESC", String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                list.add(0, readEvent(c));
+            }
+        }
+        return list;
+    }
+
+    public void markSecurityEventHandled(long id) {
+        if (id <= 0) return;
+        ContentValues v = new ContentValues();
+        v.put("handled", 1);
+        getWritableDatabase().update("security_events", v, "id=?", new String[]{String.valueOf(id)});
+    }
+
+    private SecurityEvent readEvent(Cursor c) {
+        SecurityEvent e = new SecurityEvent(
+                c.getString(c.getColumnIndexOrThrow("type")),
+                c.getString(c.getColumnIndexOrThrow("message")),
+                c.getString(c.getColumnIndexOrThrow("at")),
+                c.getString(c.getColumnIndexOrThrow("device_id")));
+        e.setId(c.getLong(c.getColumnIndexOrThrow("id")));
+        e.setHandled(c.getInt(c.getColumnIndexOrThrow("handled")) != 0);
+        return e;
+    }
+
+    // ---------------- 指标 ----------------
+
+    /**
+     * 某个缓存键距上次写入的时长
+     * @return 毫秒；从未写入返回-1
+     */
+    public long getAgeMs(String key) {
+        long at = fetchedAt(key);
+        return at < 0 ? -1 : Math.max(0, System.currentTimeMillis() - at);
+    }
+
+    public static String sensorKey(String sensorType) {
+        return KEY_SENSOR_PREFIX + sensorType;
+    }
+
+    /**
+     * 命中/未命中与数据年龄快照，key为缓存键（devices、sensor:temperature ...）
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> out = new HashMap<>();
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            out.put(e.getKey(), new Stats(e.getValue().hits.get(), e.getValue().misses.get(), getAgeMs(e.getKey())));
+        }
+        return out;
+    }
+
+    public void logStats() {
+        for (Map.Entry<String, Stats> e : getStats().entrySet()) {
+            Log.d(TAG, e.getKey() + " " + e.getValue());
+        }
+    }
+
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long ageMs;
+
+        Stats(long hits, long misses, long ageMs) {
+            this.hits = hits;
+            this.misses = misses;
+            this.ageMs = ageMs;
+        }
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses + " hitRatio=" + String.format(java.util.Locale.US, "%.2f", hitRatio()) + " ageMs=" + ageMs;
+        }
+    }
+
+    private static final class Counter {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+    }
+
+    private Counter counter(String key) {
+        Counter c = counters.get(key);
+        if (c == null) {
+            counters.putIfAbsent(key, new Counter());
+            c = counters.get(key);
+        }
+        return c;
+    }
+
+    private long fetchedAt(String key) {
+        try (Cursor c = getReadableDatabase().query("cache_meta", new String[]{"fetched_at"}, "key=?",
+                new String[]{key}, null, null, null)) {
+            return c.moveToFirst() ? c.getLong(0) : -1;
+        }
+    }
+
+    private void touch(SQLiteDatabase db, String key) {
+        ContentValues v = new ContentValues();
+        v.put("key", key);
+        v.put("fetched_at", System.currentTimeMillis());
+        db.insertWithOnConflict("cache_meta", null, v, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.smarthome.cache;
+
+import android.content.Context;
+
+import com.example.smarthome.model.SensorPoint;
+import com.example.smarthome.supabase.SupabaseClient;
+import com.example.smarthome.utils.Iso8601;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 传感器历史数据仓库：查询优先走本地 {@link TimeSeriesStore}，
+ * 只向中间件拉取本地尚未覆盖的头部/尾部区间（/sensor/history/raw，游标分页流式读取，多类型的头部、尾部各合并为一次请求）
+ */
+public class SensorHistoryRepository {
+    static final int PAGE_SIZE = 10_000;
+    // 尾部在该时间内同步过则视为最新，不再请求
+    static final long TAIL_FRESH_MS = 60_000;
+
+    private static SensorHistoryRepository instance;
+
+    private final SupabaseClient client;
+    private final TimeSeriesStore store;
+
+    SensorHistoryRepository(SupabaseClient client, TimeSeriesStore store) {
+        this.client = client;
+        this.store = store;
+    }
+
+    public static synchronized SensorHistoryRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new SensorHistoryRepository(SupabaseClient.getInstance(context), TimeSeriesStore.getInstance(context));
+        }
+        return instance;
+    }
+
+    public TimeSeriesStore getStore() { return store; }
+
+    /**
+     * 区间分桶聚合（本地计算）
+     */
+    public Single<TimeSeriesStore.Buckets> buckets(String sensorType, long fromMs, long toMs, long bucketMs) {
+        return sync(sensorType, fromMs, toMs)
+                .andThen(Single.fromCallable(() -> store.buckets(sensorType, fromMs, toMs, bucketMs)));
+    }
+
+    /**
+     * 区间原始点（本地读取）
+     */
+    public Single<TimeSeriesStore.Range> range(String sensorType, long fromMs, long toMs) {
+        return sync(sensorType, fromMs, toMs)
+                .andThen(Single.fromCallable(() -> store.range(sensorType, fromMs, toMs)));
+    }
+
+    /**
+     * 多种传感器同一区间的原始点：缺失部分合并成一次请求补拉，本地读取并行，结果一次性返回
+     * @return 按 sensorTypes 顺序的 类型→原始点
+     */
+    public Single<Map<String, TimeSeriesStore.Range>> ranges(List<String> sensorTypes, long fromMs, long toMs) {
+        return sync(sensorTypes, fromMs, toMs).andThen(Single.defer(() -> {
+            List<Single<TimeSeriesStore.Range>> reads = new ArrayList<>();
+            for (String type : sensorTypes) {
+                reads.add(Single.fromCallable(() -> store.range(type, fromMs, toMs)).subscribeOn(Schedulers.io()));
+            }
+            return Single.zip(reads, results -> {
+                Map<String, TimeSeriesStore.Range> out = new LinkedHashMap<>();
+                for (int i = 0; i < results.length; i++) out.put(sensorTypes.get(i), (TimeSeriesStore.Range) results[i]);
+                return out;
+            });
+        }));
+    }
+
+    /**
+     * 补齐 [fromMs, toMs] 内本地缺失的部分
+     */
+    public Completable sync(String sensorType, long fromMs, long toMs) {
+        return sync(Collections.singletonList(sensorType), fromMs, toMs);
+    }
+
+    /**
+     * 补齐多种传感器在 [fromMs, toMs] 内缺失的部分，最多两次请求：
+     * 各类型的头部合并为一次多类型倒序请求，尾部（或不相接时的整段）合并为一次多类型升序请求
+     */
+    public Completable sync(List<String> sensorTypes, long fromMs, long toMs) {
+        return Completable.defer(() -> {
+            Map<String, Long> backward = new LinkedHashMap<>();
+            Map<String, Long> forward = new LinkedHashMap<>();
+            for (String type : sensorTypes) {
+                long coveredFrom = store.coveredFrom(type);
+                long coveredTo = store.coveredTo(type);
+                if (coveredTo == Long.MIN_VALUE || fromMs > coveredTo || toMs < coveredFrom) {
+                    // 与已有区间不相接：整段拉取（旧数据由保留期自然淘汰）
+                    forward.put(type, fromMs);
+                    continue;
+                }
+                // 头部倒序拉取：每批都紧接在已有数据之前，可直接前插
+                if (fromMs < coveredFrom) backward.put(type, coveredFrom);
+                if (toMs - coveredTo > TAIL_FRESH_MS) forward.put(type, coveredTo);
+            }
+            Completable heads = backward.isEmpty() ? Completable.complete() : fetchBackward(backward, fromMs);
+            Completable tails = forward.isEmpty() ? Completable.complete() : fetchForward(forward, toMs);
+            return heads.andThen(tails);
+        });
+    }
+
+    /**
+     * 多个类型按时间倒序一次拉取，各自从 toByType 的终点（已有数据的起点）往前到 fromMs
+     * 高于某类型终点的点已在本地，跳过；每批按类型拆开，翻转成升序后前插
+     */
+    private Completable fetchBackward(Map<String, Long> toByType, long fromMs) {
+        long toMs = Collections.max(toByType.values());
+        List<String> types = new ArrayList<>(toByType.keySet());
+        return client.streamSensorHistoryRaw(null, types, Iso8601.format(fromMs), Iso8601.format(toMs), "desc", PAGE_SIZE)
+                .buffer(PAGE_SIZE)
+                .concatMapCompletable(batch -> Completable.fromAction(() -> {
+                    Map<String, Column> columns = new HashMap<>();
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        SensorPoint p = batch.get(i);
+                        String type = SupabaseClient.canonicalSensorType(p.getSensorType());
+                        Long to = toByType.get(type);
+                        if (to == null) continue;
+                        Column c = columns.get(type);
+                        if (c == null) {
+                            c = new Column(batch.size());
+                            columns.put(type, c);
+                        }
+                        c.add(p, fromMs, to);
+                    }
+                    for (Map.Entry<String, Column> e : columns.entrySet()) {
+                        Column c = e.getValue();
+                        if (c.n > 0) store.write(e.getKey(), c.times, c.values, c.n, c.times[0], toByType.get(e.getKey()));
+                    }
+                }))
+                .andThen(Completable.fromAction(() -> {
+                    for (Map.Entry<String, Long> e : toByType.entrySet()) {
+                        store.write(e.getKey(), new long[0], new float[0], 0, fromMs, e.getValue());
+                    }
+                }));
+    }
+
+    /**
+     * 多个类型按时间升序一次拉取，各自从 fromByType 的起点到 toMs
+     * 游标分页流式读取，每 PAGE_SIZE 条按类型拆开写入；每批只声明覆盖到本批边界，全部拉完后才覆盖整个区间
+     */
+    private Completable fetchForward(Map<String, Long> fromByType, long toMs) {
+        long fromMs = Collections.min(fromByType.values());
+        List<String> types = new ArrayList<>(fromByType.keySet());
+        return client.streamSensorHistoryRaw(null, types, Iso8601.format(fromMs), Iso8601.format(toMs), "asc", PAGE_SIZE)
+                .buffer(PAGE_SIZE)
+                .concatMapCompletable(batch -> Completable.fromAction(() -> {
+                    Map<String, Column> columns = new HashMap<>();
+                    for (SensorPoint p : batch) {
+                        String type = SupabaseClient.canonicalSensorType(p.getSensorType());
+                        Long from = fromByType.get(type);
+                        if (from == null) continue;
+                        Column c = columns.get(type);
+                        if (c == null) {
+                            c = new Column(batch.size());
+                            columns.put(type, c);
+                        }
+                        c.add(p, from, toMs);
+                    }
+                    for (Map.Entry<String, Column> e : columns.entrySet()) {
+                        Column c = e.getValue();
+                        if (c.n > 0) store.write(e.getKey(), c.times, c.values, c.n, fromByType.get(e.getKey()), c.times[c.n - 1]);
+                    }
+                }))
+                .andThen(Completable.fromAction(() -> {
+                    for (Map.Entry<String, Long> e : fromByType.entrySet()) {
+                        store.write(e.getKey(), new long[0], new float[0], 0, e.getValue(), toMs);
+                    }
+                }));
+    }
+
+    /**
+     * 一批中单个类型的点（升序，丢弃乱序/重复及落在该类型 [fromMs, toMs] 之外的点）
+     */
+    private static final class Column {
+        final long[] times;
+        final float[] values;
+        int n;
+
+        Column(int capacity) {
+            times = new long[capacity];
+            values = new float[capacity];
+        }
+
+        void add(SensorPoint p, long fromMs, long toMs) {
+            long t = Iso8601.parse(p.getTimestamp());
+            if (t < fromMs || t > toMs || (n > 0 && t <= times[n - 1])) return;
+            times[n] = t;
+            values[n] = (float) p.getValue();
+            n++;
+        }
+    }
+}
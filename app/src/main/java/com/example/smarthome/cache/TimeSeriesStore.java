@@ -0,0 +1,376 @@
+package com.example.smarthome.cache;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 传感器历史的本地列式时序存储
+ * 每种传感器一组定长分段文件，段内为内存映射的时间戳列（long）与数值列（float），按时间升序；
+ * 另记录已完整同步的时间区间 [coveredFrom, coveredTo]，区间内的范围/分桶查询无需访问网络。
+ * 所有方法都会访问磁盘，只能在后台线程调用
+ */
+public class TimeSeriesStore {
+    private static final String TAG = "TimeSeriesStore";
+    static final int CHUNK_POINTS = 4096;
+    private static final int HEADER_BYTES = 8;
+    private static final int SEGMENT_BYTES = HEADER_BYTES + CHUNK_POINTS * (8 + 4);
+    static final long RETENTION_MS = 8L * 24 * 3600 * 1000;
+    static final long LIVE_MAX_GAP_MS = 60_000;
+
+    private static TimeSeriesStore instance;
+
+    private final File root;
+    private final Map<String, Series> series = new HashMap<>();
+
+    /**
+     * 区间内的原始点
+     */
+    public static final class Range {
+        public final long[] times;
+        public final float[] values;
+
+        Range(long[] times, float[] values) {
+            this.times = times;
+            this.values = values;
+        }
+
+        public int size() { return times.length; }
+    }
+
+    /**
+     * 分桶聚合结果（桶起点按 bucketMs 对齐，与中间件 /sensor/history/agg 一致）
+     */
+    public static final class Buckets {
+        public final long[] start;
+        public final float[] avg;
+        public final float[] min;
+        public final float[] max;
+        public final int[] count;
+
+        Buckets(int n) {
+            start = new long[n];
+            avg = new float[n];
+            min = new float[n];
+            max = new float[n];
+            count = new int[n];
+        }
+
+        public int size() { return start.length; }
+    }
+
+    TimeSeriesStore(File root) {
+        this.root = root;
+    }
+
+    public static synchronized TimeSeriesStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new TimeSeriesStore(new File(context.getApplicationContext().getCacheDir(), "timeseries"));
+        }
+        return instance;
+    }
+
+    /**
+     * 已完整同步的区间起点；从未同步时为 Long.MAX_VALUE
+     */
+    public long coveredFrom(String type) {
+        Series s = series(type);
+        synchronized (s) { return s.coveredFrom; }
+    }
+
+    /**
+     * 已完整同步的区间终点；从未同步时为 Long.MIN_VALUE
+     */
+    public long coveredTo(String type) {
+        Series s = series(type);
+        synchronized (s) { return s.coveredTo; }
+    }
+
+    /**
+     * 写入从服务端拉取的一段完整数据
+     * [rangeFrom, rangeTo] 与已同步区间相接或重叠时两者合并，不相接时先丢弃旧数据（否则中间会留下空洞）；
+     * 时间戳升序，早于已有数据的点插到前面，晚于的追加到后面，落在已有数据中间的视为重复丢弃
+     */
+    public void write(String type, long[] times, float[] values, int n, long rangeFrom, long rangeTo) throws IOException {
+        Series s = series(type);
+        synchronized (s) {
+            if (rangeFrom > s.coveredTo || rangeTo < s.coveredFrom) s.clear();
+            int head = 0;
+            long first = s.firstTime();
+            while (head < n && times[head] < first) head++;
+            if (head > 0) s.prepend(times, values, head);
+            long last = s.lastTime();
+            for (int i = head; i < n; i++) {
+                if (times[i] > last) {
+                    s.append(times[i], values[i]);
+                    last = times[i];
+                }
+            }
+            s.coveredFrom = Math.min(s.coveredFrom, rangeFrom);
+            s.coveredTo = Math.max(s.coveredTo, rangeTo);
+            s.expire(rangeTo - RETENTION_MS);
+            s.saveMeta();
+        }
+    }
+
+    /**
+     * 追加一条实时数据（如SSE推送），并把已同步区间延伸到该点
+     * 只有紧接在已同步区间末尾（间隔不超过 LIVE_MAX_GAP_MS）时才写入，否则中间可能漏了推送，留给下次补拉
+     * @return 是否写入
+     */
+    public boolean appendLive(String type, long time, float value) throws IOException {
+        Series s = series(type);
+        synchronized (s) {
+            if (s.coveredTo == Long.MIN_VALUE || time - s.coveredTo > LIVE_MAX_GAP_MS || time <= s.lastTime()) return false;
+            s.append(time, value);
+            s.coveredTo = Math.max(s.coveredTo, time);
+            s.saveMeta();
+            return true;
+        }
+    }
+
+    public Range range(String type, long from, long to) {
+        Series s = series(type);
+        synchronized (s) {
+            int n = 0;
+            for (Segment seg : s.segments) {
+                if (seg.count == 0 || seg.last() < from || seg.first() > to) continue;
+                n += seg.upperBound(to) - seg.lowerBound(from);
+            }
+            long[] times = new long[n];
+            float[] values = new float[n];
+            int k = 0;
+            for (Segment seg : s.segments) {
+                if (seg.count == 0 || seg.last() < from || seg.first() > to) continue;
+                for (int i = seg.lowerBound(from), end = seg.upperBound(to); i < end; i++, k++) {
+                    times[k] = seg.ts.get(i);
+                    values[k] = seg.vals.get(i);
+                }
+            }
+            return new Range(times, values);
+        }
+    }
+
+    public Buckets buckets(String type, long from, long to, long bucketMs) {
+        Range r = range(type, from, to);
+        int n = 0;
+        long prev = Long.MIN_VALUE;
+        for (long t : r.times) {
+            long b = Math.floorDiv(t, bucketMs) * bucketMs;
+            if (b != prev) { n++; prev = b; }
+        }
+        Buckets out = new Buckets(n);
+        int k = -1;
+        double sum = 0;
+        prev = Long.MIN_VALUE;
+        for (int i = 0; i < r.times.length; i++) {
+            long b = Math.floorDiv(r.times[i], bucketMs) * bucketMs;
+            float v = r.values[i];
+            if (b != prev) {
+                if (k >= 0) out.avg[k] = (float) (sum / out.count[k]);
+                k++;
+                prev = b;
+                sum = 0;
+                out.start[k] = b;
+                out.min[k] = v;
+                out.max[k] = v;
+            }
+            sum += v;
+            out.count[k]++;
+            if (v < out.min[k]) out.min[k] = v;
+            if (v > out.max[k]) out.max[k] = v;
+        }
+        if (k >= 0) out.avg[k] = (float) (sum / out.count[k]);
+        return out;
+    }
+
+    private Series series(String type) {
+        synchronized (series) {
+            Series s = series.get(type);
+            if (s == null) {
+                s = new Series(new File(root, type.replaceAll("[^A-Za-z0-9_-]", "_")));
+                s.load();
+                series.put(type, s);
+            }
+            return s;
+        }
+    }
+
+    /**
+     * 一种传感器的全部分段，按首个时间戳升序
+     */
+    private static final class Series {
+        final File dir;
+        final List<Segment> segments = new ArrayList<>();
+        long coveredFrom = Long.MAX_VALUE;
+        long coveredTo = Long.MIN_VALUE;
+        private int nextId;
+
+        Series(File dir) {
+            this.dir = dir;
+        }
+
+        void load() {
+            File meta = new File(dir, "meta");
+            File[] files = dir.listFiles((d, name) -> name.endsWith(".seg"));
+            if (!meta.exists() || files == null) return;
+            try (DataInputStream in = new DataInputStream(new FileInputStream(meta))) {
+                coveredFrom = in.readLong();
+                coveredTo = in.readLong();
+                for (File f : files) {
+                    Segment seg = Segment.open(f);
+                    if (seg.count > 0) segments.add(seg);
+                    else f.delete();
+                    nextId = Math.max(nextId, Integer.parseInt(f.getName().substring(0, f.getName().length() - 4)) + 1);
+                }
+                segments.sort((a, b) -> Long.compare(a.first(), b.first()));
+            } catch (Exception e) {
+                // 元数据或分段损坏时整组丢弃，下次查询重新同步
+                Log.w(TAG, "时序分段损坏，清空 " + dir.getName() + ": " + e.getMessage());
+                clear();
+                for (File f : files) f.delete();
+            }
+        }
+
+        void clear() {
+            for (Segment seg : segments) seg.file.delete();
+            segments.clear();
+            coveredFrom = Long.MAX_VALUE;
+            coveredTo = Long.MIN_VALUE;
+        }
+
+        void saveMeta() throws IOException {
+            if (!dir.exists() && !dir.mkdirs()) throw new IOException("无法创建目录 " + dir);
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(new File(dir, "meta")))) {
+                out.writeLong(coveredFrom);
+                out.writeLong(coveredTo);
+            }
+        }
+
+        long firstTime() {
+            return segments.isEmpty() ? Long.MAX_VALUE : segments.get(0).first();
+        }
+
+        long lastTime() {
+            return segments.isEmpty() ? Long.MIN_VALUE : segments.get(segments.size() - 1).last();
+        }
+
+        void append(long time, float value) throws IOException {
+            Segment tail = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (tail == null || tail.count == CHUNK_POINTS) {
+                tail = newSegment();
+                segments.add(tail);
+            }
+            tail.put(time, value);
+        }
+
+        /**
+         * 把早于现有数据的 n 个点写成新的分段，放在最前面
+         */
+        void prepend(long[] times, float[] values, int n) throws IOException {
+            List<Segment> created = new ArrayList<>();
+            Segment seg = null;
+            for (int i = 0; i < n; i++) {
+                if (i > 0 && times[i] <= times[i - 1]) continue;
+                if (seg == null || seg.count == CHUNK_POINTS) {
+                    seg = newSegment();
+                    created.add(seg);
+                }
+                seg.put(times[i], values[i]);
+            }
+            segments.addAll(0, created);
+        }
+
+        /**
+         * 删除整段都早于 cutoff 的分段
+         */
+        void expire(long cutoff) {
+            while (!segments.isEmpty() && segments.get(0).last() < cutoff) {
+                Segment seg = segments.remove(0);
+                seg.file.delete();
+                coveredFrom = Math.max(coveredFrom, seg.last() + 1);
+            }
+        }
+
+        private Segment newSegment() throws IOException {
+            if (!dir.exists() && !dir.mkdirs()) throw new IOException("无法创建目录 " + dir);
+            return Segment.open(new File(dir, (nextId++) + ".seg"));
+        }
+    }
+
+    /**
+     * 一个定长分段：[count:int][保留:int][时间戳列 long×CHUNK][数值列 float×CHUNK]
+     */
+    private static final class Segment {
+        final File file;
+        final MappedByteBuffer buf;
+        final LongBuffer ts;
+        final FloatBuffer vals;
+        int count;
+
+        private Segment(File file, MappedByteBuffer buf) {
+            this.file = file;
+            this.buf = buf;
+            buf.position(HEADER_BYTES);
+            this.ts = buf.slice().asLongBuffer();
+            buf.position(HEADER_BYTES + CHUNK_POINTS * 8);
+            this.vals = buf.slice().asFloatBuffer();
+            buf.position(0);
+            this.count = Math.max(0, Math.min(CHUNK_POINTS, buf.getInt(0)));
+        }
+
+        static Segment open(File file) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                 FileChannel ch = raf.getChannel()) {
+                // 映射在通道关闭后仍然有效
+                return new Segment(file, ch.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES));
+            }
+        }
+
+        long first() { return ts.get(0); }
+
+        long last() { return ts.get(count - 1); }
+
+        void put(long time, float value) {
+            ts.put(count, time);
+            vals.put(count, value);
+            count++;
+            buf.putInt(0, count);
+        }
+
+        /** 第一个 >= t 的下标 */
+        int lowerBound(long t) {
+            int lo = 0, hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ts.get(mid) < t) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        /** 第一个 > t 的下标 */
+        int upperBound(long t) {
+            int lo = 0, hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ts.get(mid) <= t) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.smarthome.control;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.core.SingleEmitter;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 设备控制命令管道（按设备分队列）
+ * 同一设备的命令严格按顺序发送，同一时刻最多一条在途；
+ * 合并窗口内同键命令（如亮度）只保留最后一次，被取代的调用方拿到最终那条的结果；
+ * 同键命令在途时新值排队，等在途命令返回后再发（已发出的请求/QoS1 发布无法撤回，取消只会打乱线上的先后顺序），
+ * 排队期间继续合并，在途命令返回后只发最新值
+ */
+public class CommandDispatcher {
+    private static final String TAG = "CommandDispatcher";
+    private static final long DEFAULT_WINDOW_MS = 150;
+
+    /**
+     * 实际发送一条命令
+     */
+    public interface Sender {
+        Single<String> send(String deviceId, Map<String, Object> payload);
+    }
+
+    private static CommandDispatcher instance;
+
+    private final Sender sender;
+    private final Scheduler scheduler;
+    private final long windowMs;
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    CommandDispatcher(Sender sender, long windowMs, Scheduler scheduler) {
+        this.sender = sender;
+        this.windowMs = windowMs;
+        this.scheduler = scheduler;
+    }
+
+    public static synchronized CommandDispatcher getInstance(Context context) {
+        if (instance == null) {
+            instance = new CommandDispatcher(ControlRouter.getInstance(context), DEFAULT_WINDOW_MS, Schedulers.io());
+        }
+        return instance;
+    }
+
+    /**
+     * 以命令名（payload中的command，小写）为合并键提交
+     */
+    public Single<String> submit(String deviceId, Map<String, Object> payload) {
+        Object command = payload.get("command");
+        return submit(deviceId, command == null ? "" : command.toString().toLowerCase(), payload);
+    }
+
+    /**
+     * 提交一条命令
+     * @param key 合并键，同一设备同键的命令后者覆盖前者
+     * @return 该命令（或取代它的更新命令）的发送结果
+     */
+    public Single<String> submit(String deviceId, String key, Map<String, Object> payload) {
+        return Single.create(emitter -> {
+            submitted.incrementAndGet();
+            Lane lane;
+            synchronized (lanes) {
+                lane = lanes.get(deviceId);
+                if (lane == null) {
+                    lane = new Lane(deviceId);
+                    lanes.put(deviceId, lane);
+                }
+            }
+            lane.enqueue(key, new HashMap<>(payload), emitter);
+        });
+    }
+
+    public Stats getStats() {
+        return new Stats(submitted.get(), sent.get(), coalesced.get(), superseded.get(), failed.get());
+    }
+
+    public static final class Stats {
+        public final long submitted;
+        public final long sent;
+        public final long coalesced;
+        public final long superseded;
+        public final long failed;
+
+        Stats(long submitted, long sent, long coalesced, long superseded, long failed) {
+            this.submitted = submitted;
+            this.sent = sent;
+            this.coalesced = coalesced;
+            this.superseded = superseded;
+            this.failed = failed;
+        }
+
+        @Override
+        public String toString() {
+            return "submitted=" + submitted + " sent=" + sent + " coalesced=" + coalesced
+                    + " superseded=" + superseded + " failed=" + failed;
+        }
+    }
+
+    private static final class Pending {
+        final String key;
+        Map<String, Object> payload;
+        final List<SingleEmitter<String>> waiters = new ArrayList<>();
+
+        Pending(String key, Map<String, Object> payload) {
+            this.key = key;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * 单个设备的命令队列
+     */
+    private final class Lane {
+        private final String deviceId;
+        private final LinkedHashMap<String, Pending> queue = new LinkedHashMap<>();
+        private Pending inFlight;
+        private Disposable flushTimer;
+
+        Lane(String deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        synchronized void enqueue(String key, Map<String, Object> payload, SingleEmitter<String> emitter) {
+            Pending p = queue.remove(key);
+            if (p != null) {
+                // 窗口内同键命令：只保留最新值，并移到队尾以保持与其他命令的先后关系
+                coalesced.incrementAndGet();
+                p.payload = payload;
+            } else if (inFlight != null && inFlight.key.equals(key)) {
+                // 同键在途命令已被取代：不取消，新值排在它之后；原调用方改等新命令的结果
+                superseded.incrementAndGet();
+                p = new Pending(key, payload);
+                p.waiters.addAll(inFlight.waiters);
+                inFlight.waiters.clear();
+            } else {
+                p = new Pending(key, payload);
+            }
+            p.waiters.add(emitter);
+            queue.put(key, p);
+            if (inFlight == null && flushTimer == null) {
+                flushTimer = scheduler.scheduleDirect(this::flush, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void flush() {
+            flushTimer = null;
+            sendNext();
+        }
+
+        private void sendNext() {
+            if (inFlight != null || queue.isEmpty()) return;
+            Iterator<Pending> it = queue.values().iterator();
+            Pending p = it.next();
+            it.remove();
+            inFlight = p;
+            sent.incrementAndGet();
+            sender.send(deviceId, p.payload)
+                    .subscribeOn(scheduler)
+                    .subscribe(resp -> complete(p, resp, null), err -> complete(p, null, err));
+        }
+
+        private synchronized void complete(Pending p, String resp, Throwable err) {
+            inFlight = null;
+            if (err != null) {
+                failed.incrementAndGet();
+                Log.w(TAG, "命令发送失败 " + deviceId + " " + p.key + ": " + err.getMessage());
+            }
+            for (SingleEmitter<String> w : p.waiters) {
+                if (err != null) w.tryOnError(err);
+                else w.onSuccess(resp);
+            }
+            sendNext();
+        }
+    }
+}
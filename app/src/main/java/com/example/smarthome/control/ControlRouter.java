@@ -0,0 +1,156 @@
+package com.example.smarthome.control;
+
+import android.content.Context;
+
+import com.example.smarthome.model.LightStatus;
+import com.example.smarthome.supabase.SupabaseClient;
+import com.example.smarthome.utils.LatencyHistogram;
+import com.example.smarthome.utils.MqttBridge;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 控制通道选择：MQTT已连接时直连broker，否则（或命令没能交给MQTT客户端时）走中间件HTTP；
+ * 已交给MQTT客户端、只是broker确认未知的命令不会再经HTTP重发
+ * 同时按通道统计“命令发出→设备回报 /in/status”的确认延迟：
+ * 状态回报不带 requestId，只统计会触发回报的灯光命令，且只针对回报过状态的设备；
+ * 同一设备的待确认命令按发出顺序逐条配对，超时未配对的记为确认失败并移除
+ */
+public class ControlRouter implements CommandDispatcher.Sender {
+    static final long ACK_TIMEOUT_MS = 10_000;
+    // 每台设备最多保留的待确认命令，超出时最早的记为失败
+    static final int MAX_AWAITING = 16;
+    // 固件（sketch_oct3a.ino）只在这些命令执行后回报 /in/status
+    private static final Set<String> ECHOED_COMMANDS = new HashSet<>(Arrays.asList(
+            "brightness", "brightness_set", "color_temp", "color_temp_set", "color_set", "power"));
+
+    private static ControlRouter instance;
+
+    private final ControlTransport primary;
+    private final ControlTransport fallback;
+    private final Scheduler clock;
+    private final Map<String, LatencyHistogram> ackLatency = new LinkedHashMap<>();
+    // 每台设备按发出顺序排列的待确认命令；设备回报状态时与最早的一条配对
+    private final Map<String, ArrayDeque<Sent>> awaitingAck = new HashMap<>();
+    // 回报过 /in/status 的设备；其他设备（蜂鸣器、加湿器等）没有回显，不计确认延迟
+    private final Set<String> echoingDevices = new HashSet<>();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private static final class Sent {
+        final String transport;
+        final long atMs;
+
+        Sent(String transport, long atMs) {
+            this.transport = transport;
+            this.atMs = atMs;
+        }
+    }
+
+    ControlRouter(ControlTransport primary, ControlTransport fallback, Scheduler clock) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.clock = clock;
+        ackLatency.put(primary.name(), new LatencyHistogram(primary.name() + ".ack"));
+        ackLatency.put(fallback.name(), new LatencyHistogram(fallback.name() + ".ack"));
+    }
+
+    public static synchronized ControlRouter getInstance(Context context) {
+        if (instance == null) {
+            MqttBridge bridge = MqttBridge.getInstance();
+            instance = new ControlRouter(new MqttControlTransport(bridge),
+                    new HttpControlTransport(SupabaseClient.getInstance(context)), Schedulers.computation());
+            bridge.router().subscribe(LightStatus.class, null, s -> instance.onStatus(s.getDeviceId()));
+            bridge.connectAsync();
+        }
+        return instance;
+    }
+
+    @Override
+    public Single<String> send(String deviceId, Map<String, Object> payload) {
+        if (!primary.isAvailable()) return sendVia(fallback, deviceId, payload);
+        // 通道只在命令确定没发出时出错（见 ControlTransport.send），改走备用通道不会重复下发
+        return sendVia(primary, deviceId, payload)
+                .onErrorResumeNext(e -> {
+                    fallbacks.incrementAndGet();
+                    return sendVia(fallback, deviceId, payload);
+                });
+    }
+
+    private Single<String> sendVia(ControlTransport transport, String deviceId, Map<String, Object> payload) {
+        return Single.defer(() -> {
+            long start = clock.now(TimeUnit.MILLISECONDS);
+            return transport.send(deviceId, payload)
+                    .doOnSuccess(r -> expectAck(deviceId, payload, new Sent(transport.name(), start)));
+        });
+    }
+
+    private void expectAck(String deviceId, Map<String, Object> payload, Sent sent) {
+        Object command = payload.get("command");
+        if (command == null || !ECHOED_COMMANDS.contains(command.toString().toLowerCase())) return;
+        synchronized (awaitingAck) {
+            if (!echoingDevices.contains(deviceId)) return;
+            ArrayDeque<Sent> queue = awaitingAck.get(deviceId);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                awaitingAck.put(deviceId, queue);
+            }
+            expire(queue, sent.atMs);
+            if (queue.size() >= MAX_AWAITING) ackLatency.get(queue.poll().transport).recordFailure();
+            queue.add(sent);
+        }
+    }
+
+    /**
+     * 设备回报状态（/in/status）：与该设备最早一条未超时的待确认命令配对；没有待确认命令的回报忽略
+     */
+    void onStatus(String deviceId) {
+        if (deviceId == null) return;
+        long now = clock.now(TimeUnit.MILLISECONDS);
+        Sent s;
+        synchronized (awaitingAck) {
+            echoingDevices.add(deviceId);
+            ArrayDeque<Sent> queue = awaitingAck.get(deviceId);
+            if (queue == null) return;
+            expire(queue, now);
+            s = queue.poll();
+            if (queue.isEmpty()) awaitingAck.remove(deviceId);
+        }
+        if (s != null) ackLatency.get(s.transport).record(now - s.atMs);
+    }
+
+    /**
+     * 移除超时仍未确认的命令并记为失败（调用方持有 awaitingAck 锁）
+     */
+    private void expire(ArrayDeque<Sent> queue, long nowMs) {
+        while (!queue.isEmpty() && nowMs - queue.peek().atMs > ACK_TIMEOUT_MS) {
+            ackLatency.get(queue.poll().transport).recordFailure();
+        }
+    }
+
+    /**
+     * 各通道的确认延迟分布
+     * @return key为 mqtt / http
+     */
+    public Map<String, LatencyHistogram> getAckLatency() {
+        return ackLatency;
+    }
+
+    /**
+     * MQTT直连失败后改走HTTP的次数
+     */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+}
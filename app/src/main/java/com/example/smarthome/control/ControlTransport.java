@@ -0,0 +1,28 @@
+package com.example.smarthome.control;
+
+import java.util.Map;
+
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * 设备控制命令的下发通道（MQTT直连 / 中间件HTTP）
+ */
+public interface ControlTransport {
+
+    /**
+     * 通道名称，用于延迟统计
+     */
+    String name();
+
+    /**
+     * 当前是否可用；不可用时由 {@link ControlRouter} 改走备用通道
+     */
+    boolean isAvailable();
+
+    /**
+     * 下发一条命令，成功表示已交给broker/中间件，不代表设备已执行
+     * 只在确定命令没有发出时以错误结束：{@link ControlRouter} 会把出错的命令改走备用通道重发，
+     * 已发出但结果未知（如等确认超时）的应按成功返回，否则设备会收到两次
+     */
+    Single<String> send(String deviceId, Map<String, Object> payload);
+}
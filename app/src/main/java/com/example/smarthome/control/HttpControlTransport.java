@@ -0,0 +1,168 @@
+package com.example.smarthome.control;
+
+import com.example.smarthome.model.CommandResult;
+import com.example.smarthome.model.DeviceCommand;
+import com.example.smarthome.supabase.SupabaseClient;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.core.SingleEmitter;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 经中间件 POST /devices/{id}/control 下发，由中间件转发到MQTT
+ * 短窗口内（多台设备同时下发，如执行场景）的命令合并为一次 /devices/batch/control 请求，
+ * 再把逐条结果分发给各自的调用方；窗口内只有一条时仍走单条接口
+ */
+public class HttpControlTransport implements ControlTransport {
+    static final long BATCH_WINDOW_MS = 30;
+    static final int MAX_BATCH = 50;
+
+    /**
+     * 批量下发
+     */
+    interface BatchSender {
+        Single<List<CommandResult>> send(List<DeviceCommand> commands);
+    }
+
+    private final CommandDispatcher.Sender single;
+    private final BatchSender batch;
+    private final Scheduler scheduler;
+    private final List<Pending> pending = new ArrayList<>();
+    private Disposable flushTimer;
+    // 中间件不支持批量接口（404）时退回逐条下发
+    private volatile boolean batchUnsupported;
+
+    private static final class Pending {
+        final DeviceCommand command;
+        final SingleEmitter<String> emitter;
+
+        Pending(DeviceCommand command, SingleEmitter<String> emitter) {
+            this.command = command;
+            this.emitter = emitter;
+        }
+    }
+
+    public HttpControlTransport(SupabaseClient client) {
+        this(client::sendMqttCommand, client::sendMqttCommandBatch, Schedulers.io());
+    }
+
+    HttpControlTransport(CommandDispatcher.Sender single, BatchSender batch, Scheduler scheduler) {
+        this.single = single;
+        this.batch = batch;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public String name() { return "http"; }
+
+    @Override
+    public boolean isAvailable() { return true; }
+
+    @Override
+    public Single<String> send(String deviceId, Map<String, Object> payload) {
+        if (batchUnsupported) return single.send(deviceId, payload);
+        return Single.create(emitter -> enqueue(new Pending(new DeviceCommand(deviceId, payload), emitter)));
+    }
+
+    private synchronized void enqueue(Pending p) {
+        pending.add(p);
+        if (pending.size() >= MAX_BATCH) {
+            if (flushTimer != null) flushTimer.dispose();
+            flushTimer = null;
+            flush(takePending());
+        } else if (flushTimer == null) {
+            flushTimer = scheduler.scheduleDirect(() -> flush(takePending()), BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized List<Pending> takePending() {
+        flushTimer = null;
+        List<Pending> out = new ArrayList<>();
+        for (Pending p : pending) {
+            // 已被调用方取消（如被同键新命令取代）的不再发送
+            if (!p.emitter.isDisposed()) out.add(p);
+        }
+        pending.clear();
+        return out;
+    }
+
+    private void flush(List<Pending> batchItems) {
+        if (batchItems.isEmpty()) return;
+        if (batchItems.size() == 1 || batchUnsupported) {
+            for (Pending p : batchItems) sendSingle(p);
+            return;
+        }
+        List<DeviceCommand> commands = new ArrayList<>(batchItems.size());
+        for (Pending p : batchItems) commands.add(p.command);
+        batch.send(commands)
+                .subscribeOn(scheduler)
+                .subscribe(results -> {
+                    List<Pending> owners = match(batchItems, results);
+                    if (owners == null) {
+                        IOException mismatch = new IOException("批量控制结果与命令不匹配");
+                        for (Pending p : batchItems) p.emitter.tryOnError(mismatch);
+                        return;
+                    }
+                    for (int i = 0; i < results.size(); i++) {
+                        CommandResult r = results.get(i);
+                        SingleEmitter<String> e = owners.get(i).emitter;
+                        if (r.isOk()) e.onSuccess(response(r));
+                        else e.tryOnError(new IOException(r.getError() != null ? r.getError() : "批量控制失败"));
+                    }
+                }, err -> {
+                    if (err.getMessage() != null && err.getMessage().startsWith("HTTP 404")) {
+                        batchUnsupported = true;
+                        for (Pending p : batchItems) sendSingle(p);
+                        return;
+                    }
+                    for (Pending p : batchItems) p.emitter.tryOnError(err);
+                });
+    }
+
+    /**
+     * 按 device_id 把结果对应到命令；同一设备有多条命令时按先后顺序对应
+     * @return 与 results 一一对应的命令；数量不等、缺 device_id 或有命令没有结果时返回 null
+     */
+    private static List<Pending> match(List<Pending> batchItems, List<CommandResult> results) {
+        if (results == null || results.size() != batchItems.size()) return null;
+        Map<String, ArrayDeque<Pending>> byDevice = new HashMap<>();
+        for (Pending p : batchItems) {
+            byDevice.computeIfAbsent(p.command.getDeviceId(), k -> new ArrayDeque<>()).add(p);
+        }
+        List<Pending> owners = new ArrayList<>(results.size());
+        for (CommandResult r : results) {
+            ArrayDeque<Pending> queue = r != null ? byDevice.get(r.getDeviceId()) : null;
+            if (queue == null || queue.isEmpty()) return null;
+            owners.add(queue.poll());
+        }
+        return owners;
+    }
+
+    private void sendSingle(Pending p) {
+        p.emitter.setDisposable(single.send(p.command.getDeviceId(), p.command.getPayload())
+                .subscribeOn(scheduler)
+                .subscribe(p.emitter::onSuccess, p.emitter::tryOnError));
+    }
+
+    /**
+     * 与单条接口的响应保持同样的字段
+     */
+    private static String response(CommandResult r) {
+        JsonObject o = new JsonObject();
+        o.addProperty("status", "sent");
+        o.addProperty("deviceId", r.getDeviceId());
+        o.addProperty("requestId", r.getRequestId());
+        return o.toString();
+    }
+}
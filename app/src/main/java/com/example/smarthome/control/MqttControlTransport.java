@@ -0,0 +1,102 @@
+package com.example.smarthome.control;
+
+import com.example.smarthome.supabase.ModelAdapters;
+import com.example.smarthome.utils.Iso8601;
+import com.example.smarthome.utils.MqttBridge;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 直接发布到 smarthome/&lt;id&gt;/out/control，省去经中间件的一跳
+ * 消息格式与中间件转发的一致（command + parameters + requestId），同时保留顶层字段兼容旧固件
+ * 只有消息没交给Paho（{@link MqttBridge.NotSentException}）时才以错误结束、由路由改走HTTP；
+ * 交给Paho后 QoS1 发布无法撤回，PUBACK 超时或失败都按“已发出、确认未知”成功返回，避免设备收到两次
+ */
+public class MqttControlTransport implements ControlTransport {
+    static final long PUBLISH_TIMEOUT_MS = 3000;
+
+    /**
+     * 发布一条控制消息
+     */
+    interface Publisher {
+        Completable publish(String deviceId, String json);
+    }
+
+    private final Publisher publisher;
+    private final BooleanSupplier connected;
+    private final Scheduler scheduler;
+    private final Gson gson = ModelAdapters.gson();
+
+    public MqttControlTransport(MqttBridge bridge) {
+        this(bridge::publishControl, bridge::isConnected, Schedulers.computation());
+    }
+
+    MqttControlTransport(Publisher publisher, BooleanSupplier connected, Scheduler scheduler) {
+        this.publisher = publisher;
+        this.connected = connected;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public String name() { return "mqtt"; }
+
+    @Override
+    public boolean isAvailable() { return connected.getAsBoolean(); }
+
+    @Override
+    public Single<String> send(String deviceId, Map<String, Object> payload) {
+        return Single.defer(() -> {
+            String requestId = UUID.randomUUID().toString();
+            String json = gson.toJson(envelope(payload, requestId));
+            return publisher.publish(deviceId, json)
+                    .timeout(PUBLISH_TIMEOUT_MS, TimeUnit.MILLISECONDS, scheduler)
+                    .toSingle(() -> response(deviceId, requestId, true))
+                    .onErrorResumeNext(e -> e instanceof MqttBridge.NotSentException
+                            ? Single.error(e)
+                            : Single.just(response(deviceId, requestId, false)));
+        });
+    }
+
+    /**
+     * @param acked broker 是否已确认（PUBACK）
+     */
+    private String response(String deviceId, String requestId, boolean acked) {
+        JsonObject resp = new JsonObject();
+        resp.addProperty("status", "sent");
+        resp.addProperty("acked", acked);
+        resp.addProperty("deviceId", deviceId);
+        resp.addProperty("topic", "smarthome/" + deviceId + "/out/control");
+        resp.addProperty("requestId", requestId);
+        resp.addProperty("transport", name());
+        return resp.toString();
+    }
+
+    static Map<String, Object> envelope(Map<String, Object> payload, String requestId) {
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("timestamp", now());
+        msg.put("source", "app");
+        msg.putAll(payload);
+        if (!payload.containsKey("parameters")) {
+            Map<String, Object> params = new LinkedHashMap<>(payload);
+            params.remove("command");
+            msg.put("parameters", params);
+        }
+        msg.put("requestId", requestId);
+        return msg;
+    }
+
+    private static String now() {
+        return Iso8601.format(System.currentTimeMillis());
+    }
+}
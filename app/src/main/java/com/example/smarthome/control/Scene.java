@@ -0,0 +1,158 @@
+package com.example.smarthome.control;
+
+import com.example.smarthome.model.Device;
+import com.example.smarthome.utils.Iso8601;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 声明式场景：一组“匹配哪些设备 → 下发什么”的动作
+ * 设备按类型（小写精确匹配）或名称包含关键字匹配；payload 中的 {@link Supplier} 值在执行时才求值（如定时时间）
+ */
+public final class Scene {
+
+    public enum Kind {
+        /** 控制命令，经 {@link CommandDispatcher} 下发 */
+        COMMAND,
+        /** 设备配置，POST /devices/{id}/config */
+        CONFIG
+    }
+
+    public static final class Action {
+        final String deviceType;
+        final String nameContains;
+        final Kind kind;
+        final Map<String, Object> payload;
+
+        Action(String deviceType, String nameContains, Kind kind, Map<String, Object> payload) {
+            this.deviceType = deviceType;
+            this.nameContains = nameContains;
+            this.kind = kind;
+            this.payload = payload;
+        }
+
+        boolean matches(Device d) {
+            if (deviceType != null) return d.getDeviceType() != null && deviceType.equals(d.getDeviceType().toLowerCase());
+            return d.getName() != null && d.getName().contains(nameContains);
+        }
+
+        Map<String, Object> resolvePayload() {
+            Map<String, Object> out = new HashMap<>();
+            for (Map.Entry<String, Object> e : payload.entrySet()) {
+                Object v = e.getValue();
+                out.put(e.getKey(), v instanceof Supplier ? ((Supplier<?>) v).get() : v);
+            }
+            return out;
+        }
+    }
+
+    /**
+     * 一个具体设备上要执行的动作
+     */
+    static final class Task {
+        final String deviceId;
+        final Kind kind;
+        final Map<String, Object> payload;
+
+        Task(String deviceId, Kind kind, Map<String, Object> payload) {
+            this.deviceId = deviceId;
+            this.kind = kind;
+            this.payload = payload;
+        }
+    }
+
+    public static final Scene HOME = new Scene("home")
+            .command("light", "command", "COLOR_SET", "value", "#FFC107")
+            .command("buzzer", "command", "BUZZ_OFF")
+            .configByName("人体红外", "action", "disable")
+            .configByName("门磁", "action", "disable");
+
+    public static final Scene AWAY = new Scene("away")
+            .command("light", "command", "TIMER_SET", "at", (Supplier<Object>) () -> isoInMinutes(1), "action", "OFF")
+            .command("humidifier", "command", "HUMIDIFY_OFF")
+            .command("buzzer", "command", "BUZZ_OFF")
+            .configByName("人体红外", "action", "enable")
+            .configByName("门磁", "action", "enable");
+
+    public static final Scene SLEEP = new Scene("sleep")
+            .command("light", "command", "BRIGHTNESS_SET", "value", 20)
+            .command("buzzer", "command", "BUZZ_OFF")
+            .configByName("人体红外", "action", "enable")
+            .configByName("门磁", "action", "enable");
+
+    public static final Scene WAKE = new Scene("wake")
+            .command("light", "command", "COLOR_SET", "value", "#FFFFFF");
+
+    private static final Map<String, Scene> BUILT_IN = new HashMap<>();
+
+    static {
+        for (Scene s : new Scene[]{HOME, AWAY, SLEEP, WAKE}) BUILT_IN.put(s.name, s);
+    }
+
+    private final String name;
+    private final List<Action> actions = new ArrayList<>();
+
+    public Scene(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 内置场景
+     * @return 未定义时返回null
+     */
+    public static Scene named(String name) {
+        return BUILT_IN.get(name);
+    }
+
+    public String getName() { return name; }
+
+    public List<Action> getActions() { return Collections.unmodifiableList(actions); }
+
+    /**
+     * 对某类设备下发控制命令
+     * @param keyValues payload 键值对，依次为 key1, value1, key2, value2 ...
+     */
+    public Scene command(String deviceType, Object... keyValues) {
+        actions.add(new Action(deviceType.toLowerCase(), null, Kind.COMMAND, map(keyValues)));
+        return this;
+    }
+
+    /**
+     * 对名称包含关键字的设备下发配置
+     */
+    public Scene configByName(String nameContains, Object... keyValues) {
+        actions.add(new Action(null, nameContains, Kind.CONFIG, map(keyValues)));
+        return this;
+    }
+
+    /**
+     * 按设备列表展开为具体任务（设备顺序 × 动作顺序）
+     */
+    List<Task> expand(List<Device> devices) {
+        List<Task> tasks = new ArrayList<>();
+        for (Device d : devices) {
+            if (d.getDeviceId() == null) continue;
+            for (Action a : actions) {
+                if (a.matches(d)) tasks.add(new Task(d.getDeviceId(), a.kind, a.resolvePayload()));
+            }
+        }
+        return tasks;
+    }
+
+    private static Map<String, Object> map(Object... keyValues) {
+        if (keyValues.length % 2 != 0) throw new IllegalArgumentException("payload需为键值对");
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) m.put((String) keyValues[i], keyValues[i + 1]);
+        return m;
+    }
+
+    private static String isoInMinutes(int minutes) {
+        return Iso8601.formatSeconds(System.currentTimeMillis() + minutes * 60_000L);
+    }
+}
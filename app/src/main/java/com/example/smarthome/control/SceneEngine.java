@@ -0,0 +1,129 @@
+package com.example.smarthome.control;
+
+import android.content.Context;
+
+import com.example.smarthome.cache.LocalCache;
+import com.example.smarthome.model.Device;
+import com.example.smarthome.supabase.SupabaseClient;
+import com.example.smarthome.utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 场景执行引擎
+ * 设备列表优先取本地缓存；场景展开后的动作以有限并发下发，网络错误按指数退避重试，
+ * 4xx 等确定性失败不重试；结束时汇总成功/失败数与整体耗时
+ * 动作都有副作用，这里不另加 Rx 超时：超时后原请求仍在进行，重试会让设备收到两次。
+ * 截止时间由发送方负责（控制/配置请求的 OkHttp callTimeout），超时时请求已被取消
+ */
+public class SceneEngine {
+    static final int MAX_CONCURRENCY = 4;
+    static final int MAX_ATTEMPTS = 3;
+    static final long RETRY_BASE_MS = 200;
+    private static final Pattern CLIENT_ERROR = Pattern.compile("^HTTP 4\\d\\d\\b.*", Pattern.DOTALL);
+
+    /**
+     * 提供设备列表
+     */
+    interface DeviceSource {
+        Single<List<Device>> devices();
+    }
+
+    private static SceneEngine instance;
+
+    private final DeviceSource deviceSource;
+    private final CommandDispatcher.Sender commands;
+    private final CommandDispatcher.Sender configs;
+    private final Scheduler scheduler;
+    private final LatencyHistogram latency = new LatencyHistogram("scene");
+
+    SceneEngine(DeviceSource deviceSource, CommandDispatcher.Sender commands, CommandDispatcher.Sender configs, Scheduler scheduler) {
+        this.deviceSource = deviceSource;
+        this.commands = commands;
+        this.configs = configs;
+        this.scheduler = scheduler;
+    }
+
+    public static synchronized SceneEngine getInstance(Context context) {
+        if (instance == null) {
+            LocalCache cache = LocalCache.getInstance(context);
+            SupabaseClient client = SupabaseClient.getInstance(context);
+            CommandDispatcher dispatcher = CommandDispatcher.getInstance(context);
+            instance = new SceneEngine(() -> cachedDevices(cache, client), dispatcher::submit, client::sendDeviceConfig, Schedulers.io());
+        }
+        return instance;
+    }
+
+    /**
+     * 缓存中有设备列表时直接使用，否则拉取一次并写回缓存
+     */
+    private static Single<List<Device>> cachedDevices(LocalCache cache, SupabaseClient client) {
+        return Single.defer(() -> {
+            List<Device> cached = cache.getDevices();
+            if (cached != null && !cached.isEmpty()) return Single.just(cached);
+            return client.getDevices().doOnSuccess(cache::putDevices);
+        });
+    }
+
+    /**
+     * 执行场景；单个动作失败不会中断其他动作，也不会使返回的 Single 出错（设备列表取不到时除外）
+     */
+    public Single<SceneResult> run(Scene scene) {
+        return Single.defer(() -> {
+            long start = scheduler.now(TimeUnit.MILLISECONDS);
+            return deviceSource.devices()
+                    .subscribeOn(scheduler)
+                    .flatMap(devices -> Flowable.fromIterable(scene.expand(devices))
+                            .flatMapSingle(task -> execute(task)
+                                    .map(r -> "")
+                                    .onErrorReturn(e -> task.deviceId + ": " + e.getMessage()), false, MAX_CONCURRENCY)
+                            .toList())
+                    .map(outcomes -> {
+                        int ok = 0;
+                        List<String> failures = new ArrayList<>();
+                        for (String o : outcomes) {
+                            if (o.isEmpty()) ok++;
+                            else failures.add(o);
+                        }
+                        long elapsed = scheduler.now(TimeUnit.MILLISECONDS) - start;
+                        latency.record(elapsed);
+                        return new SceneResult(scene.getName(), ok, failures.size(), elapsed, failures);
+                    });
+        });
+    }
+
+    public LatencyHistogram getLatency() { return latency; }
+
+    private Single<String> execute(Scene.Task task) {
+        CommandDispatcher.Sender sender = task.kind == Scene.Kind.COMMAND ? commands : configs;
+        return Single.defer(() -> sender.send(task.deviceId, task.payload))
+                .subscribeOn(scheduler)
+                .retryWhen(errors -> {
+                    AtomicInteger attempt = new AtomicInteger(1);
+                    return errors.flatMap(e -> {
+                        if (!isTransient(e) || attempt.getAndIncrement() >= MAX_ATTEMPTS) return Flowable.error(e);
+                        return Flowable.timer(RETRY_BASE_MS << (attempt.get() - 2), TimeUnit.MILLISECONDS, scheduler);
+                    });
+                });
+    }
+
+    /**
+     * 网络层异常视为暂时性失败；中间件返回 4xx 为确定性失败
+     * TimeoutException 来自不会取消原操作的超时，原操作可能仍会生效，不重试
+     */
+    static boolean isTransient(Throwable e) {
+        if (!(e instanceof IOException)) return false;
+        String msg = e.getMessage();
+        return msg == null || !CLIENT_ERROR.matcher(msg).matches();
+    }
+}
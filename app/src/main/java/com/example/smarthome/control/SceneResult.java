@@ -0,0 +1,29 @@
+package com.example.smarthome.control;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次场景执行的汇总
+ */
+public final class SceneResult {
+    public final String scene;
+    public final int succeeded;
+    public final int failed;
+    public final long latencyMs;
+    /** 失败的动作，格式为 "设备ID: 原因" */
+    public final List<String> failures;
+
+    SceneResult(String scene, int succeeded, int failed, long latencyMs, List<String> failures) {
+        this.scene = scene;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.latencyMs = latencyMs;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    @Override
+    public String toString() {
+        return scene + " ok=" + succeeded + " failed=" + failed + " latencyMs=" + latencyMs;
+    }
+}
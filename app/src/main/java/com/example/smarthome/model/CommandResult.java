@@ -0,0 +1,29 @@
+package com.example.smarthome.model;
+
+/**
+ * 批量控制中单条命令的结果（/devices/batch/control 返回的 results 一项）
+ */
+public class CommandResult {
+    private String deviceId;
+    private boolean ok;
+    private String requestId;
+    private String error;
+
+    public CommandResult() {}
+
+    public CommandResult(String deviceId, boolean ok, String requestId, String error) {
+        this.deviceId = deviceId;
+        this.ok = ok;
+        this.requestId = requestId;
+        this.error = error;
+    }
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+    public boolean isOk() { return ok; }
+    public void setOk(boolean ok) { this.ok = ok; }
+    public String getRequestId() { return requestId; }
+    public void setRequestId(String requestId) { this.requestId = requestId; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
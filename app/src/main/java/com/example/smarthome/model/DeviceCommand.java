@@ -0,0 +1,19 @@
+package com.example.smarthome.model;
+
+import java.util.Map;
+
+/**
+ * 批量控制中的一条命令
+ */
+public class DeviceCommand {
+    private final String deviceId;
+    private final Map<String, Object> payload;
+
+    public DeviceCommand(String deviceId, Map<String, Object> payload) {
+        this.deviceId = deviceId;
+        this.payload = payload;
+    }
+
+    public String getDeviceId() { return deviceId; }
+    public Map<String, Object> getPayload() { return payload; }
+}
@@ -0,0 +1,21 @@
+package com.example.smarthome.model;
+
+/**
+ * 门磁（霍尔传感器）状态变化（smarthome/&lt;id&gt;/in/sensor/hall）
+ */
+public class HallEvent {
+    private final String deviceId;
+    private final boolean open;
+    private final String timestamp;
+
+    public HallEvent(String deviceId, boolean open, String timestamp) {
+        this.deviceId = deviceId;
+        this.open = open;
+        this.timestamp = timestamp;
+    }
+
+    public String getDeviceId() { return deviceId; }
+    /** 磁体缺失即门打开 */
+    public boolean isOpen() { return open; }
+    public String getTimestamp() { return timestamp; }
+}
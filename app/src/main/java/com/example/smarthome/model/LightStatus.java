@@ -0,0 +1,29 @@
+package com.example.smarthome.model;
+
+/**
+ * 灯设备状态回报（smarthome/&lt;id&gt;/in/status）
+ */
+public class LightStatus {
+    private final String deviceId;
+    private final int brightness;
+    private final String colorTemp;
+    private final String power;
+    private final String timestamp;
+
+    /**
+     * @param brightness 未上报时为-1
+     */
+    public LightStatus(String deviceId, int brightness, String colorTemp, String power, String timestamp) {
+        this.deviceId = deviceId;
+        this.brightness = brightness;
+        this.colorTemp = colorTemp;
+        this.power = power;
+        this.timestamp = timestamp;
+    }
+
+    public String getDeviceId() { return deviceId; }
+    public int getBrightness() { return brightness; }
+    public String getColorTemp() { return colorTemp; }
+    public String getPower() { return power; }
+    public String getTimestamp() { return timestamp; }
+}
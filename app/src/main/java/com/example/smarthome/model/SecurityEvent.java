@@ -1,6 +1,7 @@
 package com.example.smarthome.model;
 
 public class SecurityEvent {
+    private long id;
     private String type;
     private String message;
     private String at;
@@ -14,6 +15,8 @@ public class SecurityEvent {
     public SecurityEvent(String type, String message, String at, String deviceId) {
         this.type = type; this.message = message; this.at = at; this.handled = false; this.deviceId = deviceId;
     }
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
     public String getType() { return type; }
     public String getMessage() { return message; }
     public String getAt() { return at; }
@@ -21,4 +24,10 @@ public class SecurityEvent {
     public void setHandled(boolean handled) { this.handled = handled; }
     public String getDeviceId() { return deviceId; }
     public void setDeviceId(String id) { this.deviceId = id; }
+    /** 返回修改了处理状态的副本，原对象不变 */
+    public SecurityEvent withHandled(boolean handled) {
+        SecurityEvent e = new SecurityEvent(type, message, at, deviceId);
+        e.id = id; e.handled = handled;
+        return e;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.smarthome.model;
+
+import java.io.Serializable;
+
+/**
+ * 传感器聚合桶（/sensor/history/agg 返回的一项）
+ */
+public class SensorBucket implements Serializable {
+    private String bucket;
+    private double avg;
+    private double min;
+    private double max;
+    private int count;
+
+    public SensorBucket() {}
+
+    public SensorBucket(String bucket, double avg, double min, double max, int count) {
+        this.bucket = bucket;
+        this.avg = avg;
+        this.min = min;
+        this.max = max;
+        this.count = count;
+    }
+
+    public String getBucket() { return bucket; }
+    public void setBucket(String bucket) { this.bucket = bucket; }
+    public double getAvg() { return avg; }
+    public void setAvg(double avg) { this.avg = avg; }
+    public double getMin() { return min; }
+    public void setMin(double min) { this.min = min; }
+    public double getMax() { return max; }
+    public void setMax(double max) { this.max = max; }
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+}
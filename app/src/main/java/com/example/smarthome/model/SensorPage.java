@@ -0,0 +1,19 @@
+package com.example.smarthome.model;
+
+import java.util.List;
+
+/**
+ * 原始历史的一页（/sensor/history/raw），nextCursor 为空表示已到末页
+ */
+public class SensorPage {
+    private final List<SensorPoint> points;
+    private final String nextCursor;
+
+    public SensorPage(List<SensorPoint> points, String nextCursor) {
+        this.points = points;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SensorPoint> getPoints() { return points; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,35 @@
+package com.example.smarthome.model;
+
+import java.io.Serializable;
+
+/**
+ * 单条传感器原始记录（sensor_data 表的一行）
+ */
+public class SensorPoint implements Serializable {
+    private String deviceId;
+    private String sensorType;
+    private double value;
+    private String unit;
+    private String timestamp;
+
+    public SensorPoint() {}
+
+    public SensorPoint(String deviceId, String sensorType, double value, String unit, String timestamp) {
+        this.deviceId = deviceId;
+        this.sensorType = sensorType;
+        this.value = value;
+        this.unit = unit;
+        this.timestamp = timestamp;
+    }
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+    public String getSensorType() { return sensorType; }
+    public void setSensorType(String sensorType) { this.sensorType = sensorType; }
+    public double getValue() { return value; }
+    public void setValue(double value) { this.value = value; }
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+    public String getTimestamp() { return timestamp; }
+    public void setTimestamp(String timestamp) { this.timestamp = timestamp; }
+}
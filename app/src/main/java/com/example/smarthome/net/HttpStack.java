@@ -0,0 +1,156 @@
+package com.example.smarthome.net;
+
+import android.util.Log;
+
+import com.example.smarthome.utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * 应用级共享 HTTP 栈
+ * 所有客户端都从同一个 OkHttpClient 派生（newBuilder），共用连接池、调度器和 TLS 会话缓存：
+ * 同一主机的请求复用已建立的连接（HTTPS 上协商 HTTP/2 时多路复用同一条连接），不再各自握手。
+ * 同时统计新建连接、TLS 握手与连接复用次数，用于评估节省的握手
+ */
+public class HttpStack {
+    private static final String TAG = "HttpStack";
+    static final int MAX_IDLE_CONNECTIONS = 8;
+    static final long KEEP_ALIVE_MINUTES = 5;
+    static final int MAX_REQUESTS_PER_HOST = 8;
+
+    private static HttpStack instance;
+
+    private final OkHttpClient client;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong connectionsAcquired = new AtomicLong();
+    private final AtomicLong tlsHandshakes = new AtomicLong();
+    private final AtomicLong http2Acquired = new AtomicLong();
+    private final LatencyHistogram connectLatency = new LatencyHistogram("connect");
+    private final LatencyHistogram tlsLatency = new LatencyHistogram("tls");
+
+    HttpStack() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        this.client = new OkHttpClient.Builder()
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .eventListenerFactory(call -> new Metrics())
+                .build();
+    }
+
+    public static synchronized HttpStack getInstance() {
+        if (instance == null) {
+            instance = new HttpStack();
+        }
+        return instance;
+    }
+
+    /**
+     * 基础客户端；需要拦截器或不同超时（如SSE取消读超时）时用 newBuilder() 派生，不要新建
+     */
+    public OkHttpClient client() {
+        return client;
+    }
+
+    public void logReport() {
+        Log.i(TAG, getStats().toString());
+    }
+
+    public Stats getStats() {
+        return new Stats(calls.get(), connectionsOpened.get(), connectionsAcquired.get(), tlsHandshakes.get(), http2Acquired.get(),
+                connectLatency.toString(), tlsLatency.toString());
+    }
+
+    public static final class Stats {
+        public final long calls;
+        public final long connectionsOpened;
+        public final long connectionsAcquired;
+        public final long tlsHandshakes;
+        public final long http2Acquired;
+        public final String connect;
+        public final String tls;
+
+        Stats(long calls, long connectionsOpened, long connectionsAcquired, long tlsHandshakes, long http2Acquired, String connect, String tls) {
+            this.calls = calls;
+            this.connectionsOpened = connectionsOpened;
+            this.connectionsAcquired = connectionsAcquired;
+            this.tlsHandshakes = tlsHandshakes;
+            this.http2Acquired = http2Acquired;
+            this.connect = connect;
+            this.tls = tls;
+        }
+
+        /**
+         * 复用已有连接、省掉 TCP（及 TLS）握手的次数
+         */
+        public long handshakesSaved() {
+            return Math.max(0, connectionsAcquired - connectionsOpened);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "calls=%d opened=%d acquired=%d saved=%d tls=%d h2=%d | %s | %s",
+                    calls, connectionsOpened, connectionsAcquired, handshakesSaved(), tlsHandshakes, http2Acquired, connect, tls);
+        }
+    }
+
+    /**
+     * 单个调用的事件监听（每个调用一个实例，记录握手起点）
+     */
+    private final class Metrics extends EventListener {
+        private long connectStartNs;
+        private long secureStartNs;
+
+        @Override public void callStart(Call call) {
+            calls.incrementAndGet();
+        }
+
+        @Override public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStartNs = System.nanoTime();
+        }
+
+        @Override public void secureConnectStart(Call call) {
+            secureStartNs = System.nanoTime();
+        }
+
+        @Override public void secureConnectEnd(Call call, Handshake handshake) {
+            tlsHandshakes.incrementAndGet();
+            tlsLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - secureStartNs));
+        }
+
+        @Override public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            connectionsOpened.incrementAndGet();
+            connectLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStartNs));
+        }
+
+        @Override public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol, IOException ioe) {
+            connectLatency.recordFailure();
+        }
+
+        @Override public void connectionAcquired(Call call, Connection connection) {
+            connectionsAcquired.incrementAndGet();
+            if (connection.protocol() == Protocol.HTTP_2) http2Acquired.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.smarthome.supabase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Response;
+
+/**
+ * 已解码结果的内存缓存，以 URL + ETag 为键
+ * 响应来自 HTTP 缓存（304 确认未变化或缓存直接命中）且 ETag 与上次解码时一致时，
+ * 直接返回上次的对象，不再解析 JSON
+ */
+final class DecodedCache {
+    static final int MAX_ENTRIES = 64;
+
+    interface Decoder<T> {
+        List<T> decode(Response response) throws IOException;
+    }
+
+    private static final class Entry {
+        final String etag;
+        final List<?> value;
+
+        Entry(String etag, List<?> value) {
+            this.etag = etag;
+            this.value = value;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong decoded = new AtomicLong();
+
+    /**
+     * 返回的列表每次都是新的副本，调用方可以修改
+     */
+    @SuppressWarnings("unchecked")
+    <T> List<T> decode(Response response, Decoder<T> decoder) throws IOException {
+        String url = response.request().url().toString();
+        String etag = response.header("ETag");
+        if (etag != null && response.cacheResponse() != null) {
+            Entry e;
+            synchronized (entries) {
+                e = entries.get(url);
+            }
+            if (e != null && e.etag.equals(etag)) {
+                reused.incrementAndGet();
+                return new ArrayList<>((List<T>) e.value);
+            }
+        }
+        List<T> list = decoder.decode(response);
+        decoded.incrementAndGet();
+        if (list != null && etag != null && !response.cacheControl().noStore()) {
+            synchronized (entries) {
+                entries.put(url, new Entry(etag, new ArrayList<>(list)));
+            }
+        }
+        return list;
+    }
+
+    long reused() { return reused.get(); }
+
+    long decoded() { return decoded.get(); }
+}
@@ -0,0 +1,281 @@
+package com.example.smarthome.supabase;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.smarthome.model.SecurityEvent;
+import com.example.smarthome.model.SensorPoint;
+import com.example.smarthome.model.SensorSummary;
+import com.example.smarthome.utils.Iso8601;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.processors.BehaviorProcessor;
+import io.reactivex.rxjava3.processors.FlowableProcessor;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * 应用级SSE事件流（中间件 /events）
+ * 无论有多少订阅者，同一时刻最多只有一条连接；最后一个订阅者取消后连接关闭
+ * 断线后按指数退避+抖动重连，并携带 Last-Event-ID 让中间件补发缺失事件
+ */
+public final class EventStreamManager {
+    private static final String TAG = "EventStreamManager";
+    private static final long BACKOFF_BASE_MS = 1000;
+    private static final long BACKOFF_MAX_MS = 60_000;
+    private static final int EVENT_BUFFER = 256;
+
+    public enum State { IDLE, CONNECTING, CONNECTED, RECONNECTING }
+
+    /**
+     * 一条原始SSE事件
+     */
+    public static final class Event {
+        public final String id;
+        public final String type;
+        public final String data;
+
+        Event(String id, String type, String data) {
+            this.id = id;
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    private static EventStreamManager instance;
+
+    private final OkHttpClient streamClient;
+    private final String url;
+    private final Flowable<Event> shared;
+    private final FlowableProcessor<State> state = BehaviorProcessor.createDefault(State.IDLE).toSerialized();
+    private final AtomicInteger attempt = new AtomicInteger();
+    private final AtomicLong lastEventAt = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile State current = State.IDLE;
+    private volatile String lastEventId;
+    private volatile long serverRetryMs;
+
+    private EventStreamManager(Context context) {
+        SupabaseClient client = SupabaseClient.getInstance(context);
+        this.streamClient = client.newStreamingClient();
+        this.url = SupabaseClient.getMiddlewareBaseUrl() + "/events";
+        this.shared = connectOnce()
+                .retryWhen(errors -> errors.flatMap(e -> {
+                    long delay = nextBackoffMs();
+                    Log.w(TAG, "事件流断开: " + e.getMessage() + "，" + delay + "ms后重连");
+                    setState(State.RECONNECTING);
+                    return Flowable.timer(delay, TimeUnit.MILLISECONDS);
+                }))
+                .doFinally(() -> setState(State.IDLE))
+                .subscribeOn(Schedulers.io())
+                .share();
+    }
+
+    public static synchronized EventStreamManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new EventStreamManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * 全部原始事件；订阅者处理不过来时丢弃最旧的事件
+     */
+    public Flowable<Event> events() {
+        return shared.onBackpressureBuffer(EVENT_BUFFER, dropped::incrementAndGet, BackpressureOverflowStrategy.DROP_OLDEST);
+    }
+
+    public Flowable<Event> events(String type) {
+        return events().filter(e -> type.equals(e.type));
+    }
+
+    /**
+     * 环境概览推送；只关心最新值，处理不过来时只保留最新一条
+     */
+    public Flowable<SensorSummary> sensorSummaries() {
+        return shared.filter(e -> "sensor_summary".equals(e.type))
+                .onBackpressureLatest()
+                .concatMapMaybe(e -> Maybe.fromCallable(() -> parseSummary(e.data)));
+    }
+
+    /**
+     * 单个传感器的实时读数（sensor_update），sensorType 已归一为 temperature/humidity/gas
+     */
+    public Flowable<SensorPoint> sensorUpdates() {
+        return events("sensor_update")
+                .concatMapMaybe(e -> Maybe.fromCallable(() -> parseSensorUpdate(e.data)));
+    }
+
+    /**
+     * 安全事件与报警事件
+     */
+    public Flowable<SecurityEvent> securityEvents() {
+        return events().filter(e -> "security_event".equals(e.type) || "alarm_event".equals(e.type))
+                .concatMapMaybe(e -> Maybe.fromCallable(() -> parseSecurityEvent(e.type, e.data)));
+    }
+
+    public Flowable<State> connectionState() {
+        return state.distinctUntilChanged();
+    }
+
+    public boolean isConnected() { return current == State.CONNECTED; }
+
+    public long getLastEventAt() { return lastEventAt.get(); }
+
+    public long getDroppedCount() { return dropped.get(); }
+
+    private Flowable<Event> connectOnce() {
+        return Flowable.create(emitter -> {
+            setState(attempt.get() == 0 ? State.CONNECTING : State.RECONNECTING);
+            Request.Builder builder = new Request.Builder().url(url).get().header("Accept", "text/event-stream");
+            String resumeId = lastEventId;
+            if (resumeId != null) builder.header("Last-Event-ID", resumeId);
+            Call call = streamClient.newCall(builder.build());
+            emitter.setCancellable(call::cancel);
+            try (Response response = call.execute()) {
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    throw new IOException("HTTP " + response.code() + ": " + response.message());
+                }
+                attempt.set(0);
+                setState(State.CONNECTED);
+                BufferedSource source = body.source();
+                String id = null, type = null;
+                StringBuilder data = new StringBuilder();
+                String line;
+                while (!emitter.isCancelled() && (line = source.readUtf8Line()) != null) {
+                    if (line.isEmpty()) {
+                        // 空行为事件分隔符
+                        if (id != null) lastEventId = id;
+                        if (data.length() > 0) {
+                            lastEventAt.set(System.currentTimeMillis());
+                            emitter.onNext(new Event(id != null ? id : lastEventId, type != null ? type : "message", data.toString()));
+                        }
+                        id = null;
+                        type = null;
+                        data.setLength(0);
+                    } else if (line.startsWith(":")) {
+                        // 注释/心跳
+                    } else if (line.startsWith("data:")) {
+                        if (data.length() > 0) data.append('\n');
+                        data.append(field(line, 5));
+                    } else if (line.startsWith("event:")) {
+                        type = field(line, 6);
+                    } else if (line.startsWith("id:")) {
+                        id = field(line, 3);
+                    } else if (line.startsWith("retry:")) {
+                        try { serverRetryMs = Long.parseLong(field(line, 6)); } catch (NumberFormatException ignored) {}
+                    }
+                }
+            } catch (IOException e) {
+                if (!emitter.isCancelled()) emitter.tryOnError(e);
+                return;
+            }
+            if (!emitter.isCancelled()) emitter.tryOnError(new IOException("事件流已关闭"));
+        }, BackpressureStrategy.BUFFER);
+    }
+
+    private void setState(State s) {
+        current = s;
+        state.onNext(s);
+    }
+
+    private static String field(String line, int start) {
+        return line.length() > start && line.charAt(start) == ' ' ? line.substring(start + 1) : line.substring(start);
+    }
+
+    /**
+     * 指数退避 + 抖动：在 [cap/2, cap] 内随机，cap 取 base*2^attempt（不超过上限，且不小于服务端 retry）
+     */
+    private long nextBackoffMs() {
+        int n = Math.min(attempt.getAndIncrement(), 16);
+        long cap = Math.min(BACKOFF_MAX_MS, Math.max(serverRetryMs, BACKOFF_BASE_MS << n));
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    static SensorSummary parseSummary(String data) {
+        try (JsonReader reader = new JsonReader(new StringReader(data))) {
+            Map<String, List<SensorPoint>> rows = JsonDecoders.readLatestByType(reader);
+            return new SensorSummary(firstValue(rows.get("temperature")), firstValue(rows.get("humidity")), firstValue(rows.get("gas")));
+        } catch (Exception e) {
+            Log.e(TAG, "sensor_summary解析失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static SensorPoint parseSensorUpdate(String data) {
+        try {
+            SensorPoint p = ModelAdapters.gson().fromJson(data, SensorPoint.class);
+            if (p == null || Double.isNaN(p.getValue())) return null;
+            p.setSensorType(SupabaseClient.canonicalSensorType(p.getSensorType()));
+            return p;
+        } catch (Exception e) {
+            Log.e(TAG, "sensor_update解析失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static SecurityEvent parseSecurityEvent(String type, String data) {
+        try {
+            JsonElement root = JsonParser.parseString(data);
+            if (!root.isJsonObject()) return null;
+            JsonObject obj = root.getAsJsonObject();
+            String dev = string(obj, "device_id");
+            if ("alarm_event".equals(type)) {
+                String msg = string(obj, "message");
+                String at = string(obj, "at");
+                return new SecurityEvent("alarm", msg != null ? msg : "报警", at != null ? at : now(), dev);
+            }
+            String kind = string(obj, "type");
+            String status = string(obj, "status");
+            String at = string(obj, "timestamp");
+            if (at == null) at = string(obj, "at");
+            String msg;
+            if ("hall".equals(string(obj, "sensor_type"))) {
+                msg = "门磁: " + ("open".equalsIgnoreCase(status) ? "打开" : "关闭");
+            } else {
+                msg = string(obj, "message");
+                if (msg == null) msg = "安全事件";
+            }
+            return new SecurityEvent(kind != null ? kind : "security", msg, at != null ? at : now(), dev);
+        } catch (Exception e) {
+            Log.e(TAG, type + "解析失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Double firstValue(List<SensorPoint> rows) {
+        if (rows == null || rows.isEmpty() || Double.isNaN(rows.get(0).getValue())) return null;
+        return rows.get(0).getValue();
+    }
+
+    private static String string(JsonObject obj, String key) {
+        JsonElement e = obj.get(key);
+        return e == null || e.isJsonNull() ? null : e.getAsString();
+    }
+
+    private static String now() {
+        return Iso8601.formatSeconds(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.smarthome.supabase;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.core.SingleEmitter;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 中间件/Supabase双数据源的对冲策略
+ * SEQUENTIAL：主源失败后才请求备源（原有行为）
+ * HEDGED：主源超过延迟预算仍未返回时并行请求备源，取先成功者
+ * RACE：同时请求两个源，取先成功者
+ * 先成功的结果胜出，另一方随即被取消；两者都失败时返回最后一个错误
+ */
+public final class HedgePolicy {
+
+    public enum Mode { SEQUENTIAL, HEDGED, RACE }
+
+    private final Mode mode;
+    private final long budgetMs;
+
+    private HedgePolicy(Mode mode, long budgetMs) {
+        this.mode = mode;
+        this.budgetMs = budgetMs;
+    }
+
+    public static HedgePolicy sequential() { return new HedgePolicy(Mode.SEQUENTIAL, 0); }
+
+    public static HedgePolicy hedged(long budgetMs) { return new HedgePolicy(Mode.HEDGED, Math.max(0, budgetMs)); }
+
+    public static HedgePolicy race() { return new HedgePolicy(Mode.RACE, 0); }
+
+    public Mode getMode() { return mode; }
+
+    public long getBudgetMs() { return budgetMs; }
+
+    public <T> Single<T> apply(Single<T> primary, Single<T> secondary) {
+        return apply(primary, secondary, Schedulers.io());
+    }
+
+    /**
+     * @param scheduler 请求执行与预算计时所用的调度器
+     */
+    <T> Single<T> apply(Single<T> primary, Single<T> secondary, Scheduler scheduler) {
+        if (mode == Mode.SEQUENTIAL) {
+            return primary.subscribeOn(scheduler).onErrorResumeNext(e -> secondary.subscribeOn(scheduler));
+        }
+        return Single.create(emitter -> {
+            CompositeDisposable running = new CompositeDisposable();
+            emitter.setCancellable(running::dispose);
+            Race<T> race = new Race<>(emitter, running, secondary.subscribeOn(scheduler));
+            running.add(primary.subscribeOn(scheduler).subscribe(race::onSuccess, race::onPrimaryError));
+            if (mode == Mode.RACE || budgetMs == 0) {
+                race.startSecondary();
+            } else {
+                running.add(scheduler.scheduleDirect(race::startSecondary, budgetMs, TimeUnit.MILLISECONDS));
+            }
+        });
+    }
+
+    private static final class Race<T> {
+        private final SingleEmitter<T> emitter;
+        private final CompositeDisposable running;
+        private final Single<T> secondary;
+        private boolean secondaryStarted;
+        private boolean primaryFailed;
+        private boolean secondaryFailed;
+        private boolean done;
+
+        Race(SingleEmitter<T> emitter, CompositeDisposable running, Single<T> secondary) {
+            this.emitter = emitter;
+            this.running = running;
+            this.secondary = secondary;
+        }
+
+        void startSecondary() {
+            synchronized (this) {
+                if (secondaryStarted || done) return;
+                secondaryStarted = true;
+            }
+            running.add(secondary.subscribe(this::onSuccess, this::onSecondaryError));
+        }
+
+        void onSuccess(T value) {
+            synchronized (this) {
+                if (done) return;
+                done = true;
+            }
+            emitter.onSuccess(value);
+            running.dispose();
+        }
+
+        void onPrimaryError(Throwable e) {
+            boolean fail;
+            synchronized (this) {
+                if (done) return;
+                primaryFailed = true;
+                fail = secondaryFailed;
+                if (fail) done = true;
+            }
+            if (fail) emitter.tryOnError(e);
+            else startSecondary();
+        }
+
+        void onSecondaryError(Throwable e) {
+            synchronized (this) {
+                if (done || !primaryFailed) {
+                    secondaryFailed = true;
+                    return;
+                }
+                done = true;
+            }
+            emitter.tryOnError(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.HEDGED ? "HEDGED(" + budgetMs + "ms)" : mode.name();
+    }
+}
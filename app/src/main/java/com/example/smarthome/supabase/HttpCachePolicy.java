@@ -0,0 +1,54 @@
+package com.example.smarthome.supabase;
+
+import com.example.smarthome.utils.Iso8601;
+
+import java.io.IOException;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 按接口给 GET 响应指定磁盘缓存策略（网络拦截器，改写响应的 Cache-Control）
+ * - 设备列表：每次都用 ETag 向中间件确认（no-cache），未变化时只回 304
+ * - 聚合历史：结束时间早于当前（留出入库延迟）的桶不会再变，长期缓存不再请求；包含当前时间的仍需确认
+ * - 其他（原始历史分页、Supabase 备源、SSE 等）：不落盘
+ */
+final class HttpCachePolicy implements Interceptor {
+    static final String REVALIDATE = "no-cache";
+    static final String IMMUTABLE = "max-age=31536000, immutable";
+    static final String NO_STORE = "no-store";
+    // 最近这段时间内的数据可能还在入库，不视为已封闭
+    static final long CLOSED_GRACE_MS = 5 * 60_000;
+
+    private final HttpUrl middleware;
+
+    HttpCachePolicy(String middlewareBaseUrl) {
+        this.middleware = HttpUrl.get(middlewareBaseUrl);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        if (!"GET".equals(request.method())) return response;
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", policyFor(request.url(), System.currentTimeMillis()))
+                .build();
+    }
+
+    String policyFor(HttpUrl url, long nowMs) {
+        if (!url.host().equals(middleware.host()) || url.port() != middleware.port()) return NO_STORE;
+        switch (url.encodedPath()) {
+            case "/devices":
+                return REVALIDATE;
+            case "/sensor/history/agg":
+                long to = Iso8601.parse(url.queryParameter("to"));
+                return to != Iso8601.INVALID && to < nowMs - CLOSED_GRACE_MS ? IMMUTABLE : REVALIDATE;
+            default:
+                return NO_STORE;
+        }
+    }
+}
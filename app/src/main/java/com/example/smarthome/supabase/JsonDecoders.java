@@ -0,0 +1,290 @@
+package com.example.smarthome.supabase;
+
+import com.example.smarthome.model.CommandResult;
+import com.example.smarthome.model.Device;
+import com.example.smarthome.model.DeviceItem;
+import com.example.smarthome.model.SensorBucket;
+import com.example.smarthome.model.SensorPage;
+import com.example.smarthome.model.SensorPoint;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式JSON解码：直接从响应流读取模型对象，不经过整段String与JsonElement树
+ */
+public final class JsonDecoders {
+
+    public interface ElementReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    private JsonDecoders() {}
+
+    /**
+     * 读取数组，或包装对象中指定字段的数组（如 {"data":[...]}、{"devices":[...]}）
+     * @return 列表；若为对象且不含该字段则返回null
+     */
+    public static <T> List<T> readArrayOrEnvelope(JsonReader reader, String field, ElementReader<T> elementReader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            return readArray(reader, elementReader);
+        }
+        if (token != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        List<T> result = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (result == null && name.equals(field) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                result = readArray(reader, elementReader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+
+    /**
+     * 读取原始历史分页 {"data":[...],"next_cursor":"..."}；顶层为数组时视为没有下一页
+     */
+    public static SensorPage readSensorPage(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            return new SensorPage(readArray(reader, JsonDecoders::readSensorPoint), null);
+        }
+        List<SensorPoint> points = null;
+        String cursor = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("data") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                points = readArray(reader, JsonDecoders::readSensorPoint);
+            } else if (name.equals("next_cursor")) {
+                cursor = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new SensorPage(points != null ? points : new ArrayList<>(), cursor);
+    }
+
+    public static <T> List<T> readArray(JsonReader reader, ElementReader<T> elementReader) throws IOException {
+        List<T> list = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            T item = elementReader.read(reader);
+            if (item != null) list.add(item);
+        }
+        reader.endArray();
+        return list;
+    }
+
+    /**
+     * 读取设备对象，兼容中间件与Supabase REST两种字段命名
+     */
+    public static Device readDevice(JsonReader reader) throws IOException {
+        Device d = new Device();
+        String status = null;
+        boolean isOnline = false;
+        boolean active = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "id": d.setId(nextStringOrNull(reader)); break;
+                case "name": d.setName(nextStringOrNull(reader)); break;
+                case "device_id": d.setDeviceId(nextStringOrNull(reader)); break;
+                case "room": d.setRoom(nextStringOrNull(reader)); break;
+                case "latest_sensor_data": d.setLatestSensorData(nextRawOrNull(reader)); break;
+                case "status": status = nextStringOrNull(reader); break;
+                case "is_online": isOnline = nextBoolean(reader); break;
+                case "device_type": {
+                    String t = nextStringOrNull(reader);
+                    if (t != null) d.setDeviceType(t);
+                    break;
+                }
+                case "type": {
+                    String t = nextStringOrNull(reader);
+                    if (d.getDeviceType() == null) d.setDeviceType(t);
+                    break;
+                }
+                case "is_active":
+                case "is_on":
+                case "active":
+                    active |= nextBoolean(reader);
+                    break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        // 在线：优先使用 status==online；否则回退 is_online
+        d.setOnline(status != null ? "online".equalsIgnoreCase(status) : isOnline);
+        d.setOn(active);
+        return d;
+    }
+
+    /**
+     * 读取设备列表项（与 {@link ModelAdapters} 写出的字段对应）
+     */
+    public static DeviceItem readDeviceItem(JsonReader reader) throws IOException {
+        DeviceItem item = new DeviceItem();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "device_id": item.setDeviceId(nextStringOrNull(reader)); break;
+                case "name": item.setName(nextStringOrNull(reader)); break;
+                case "type": item.setType(nextStringOrNull(reader)); break;
+                case "is_online": item.setOnline(nextBoolean(reader)); break;
+                case "is_active": item.setActive(nextBoolean(reader)); break;
+                case "status": item.setStatus(nextStringOrNull(reader)); break;
+                case "last_update_time": item.setLastUpdateTime((long) nextDouble(reader)); break;
+                case "value": item.setValue(nextRawOrNull(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return item;
+    }
+
+    /**
+     * 读取传感器概览 {"temperature":[...],"humidity":[...],"gas":[...]}：每个数组字段按类型读成记录列表
+     */
+    public static Map<String, List<SensorPoint>> readLatestByType(JsonReader reader) throws IOException {
+        Map<String, List<SensorPoint>> out = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                out.put(name, readArray(reader, JsonDecoders::readSensorPoint));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return out;
+    }
+
+    /**
+     * 读取一条 sensor_data 记录；value 缺失时为 NaN
+     */
+    public static SensorPoint readSensorPoint(JsonReader reader) throws IOException {
+        SensorPoint p = new SensorPoint();
+        p.setValue(Double.NaN);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "device_id": p.setDeviceId(nextStringOrNull(reader)); break;
+                case "sensor_type": p.setSensorType(nextStringOrNull(reader)); break;
+                case "value": p.setValue(nextDouble(reader)); break;
+                case "unit": p.setUnit(nextStringOrNull(reader)); break;
+                case "timestamp": p.setTimestamp(nextStringOrNull(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return p;
+    }
+
+    /**
+     * 读取批量控制结果的一项
+     */
+    public static CommandResult readCommandResult(JsonReader reader) throws IOException {
+        CommandResult r = new CommandResult();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "device_id": r.setDeviceId(nextStringOrNull(reader)); break;
+                case "ok": r.setOk(nextBoolean(reader)); break;
+                case "requestId": r.setRequestId(nextStringOrNull(reader)); break;
+                case "error": r.setError(nextStringOrNull(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return r;
+    }
+
+    /**
+     * 读取一个聚合桶
+     */
+    public static SensorBucket readSensorBucket(JsonReader reader) throws IOException {
+        SensorBucket b = new SensorBucket();
+        b.setAvg(Double.NaN);
+        b.setMin(Double.NaN);
+        b.setMax(Double.NaN);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "bucket": b.setBucket(nextStringOrNull(reader)); break;
+                case "avg": b.setAvg(nextDouble(reader)); break;
+                case "min": b.setMin(nextDouble(reader)); break;
+                case "max": b.setMax(nextDouble(reader)); break;
+                case "count": b.setCount((int) nextDouble(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return b.getBucket() != null && !Double.isNaN(b.getAvg()) ? b : null;
+    }
+
+    static String nextStringOrNull(JsonReader reader) throws IOException {
+        JsonToken t = reader.peek();
+        if (t == JsonToken.NULL) { reader.nextNull(); return null; }
+        if (t == JsonToken.STRING || t == JsonToken.NUMBER) return reader.nextString();
+        if (t == JsonToken.BOOLEAN) return String.valueOf(reader.nextBoolean());
+        reader.skipValue();
+        return null;
+    }
+
+    static String nextRawOrNull(JsonReader reader) throws IOException {
+        JsonToken t = reader.peek();
+        if (t == JsonToken.BEGIN_OBJECT || t == JsonToken.BEGIN_ARRAY) {
+            return JsonParser.parseReader(reader).toString();
+        }
+        return nextStringOrNull(reader);
+    }
+
+    static boolean nextBoolean(JsonReader reader) throws IOException {
+        JsonToken t = reader.peek();
+        switch (t) {
+            case BOOLEAN: return reader.nextBoolean();
+            case STRING: return "true".equalsIgnoreCase(reader.nextString());
+            case NUMBER: return reader.nextDouble() != 0;
+            case NULL: reader.nextNull(); return false;
+            default: reader.skipValue(); return false;
+        }
+    }
+
+    static double nextDouble(JsonReader reader) throws IOException {
+        JsonToken t = reader.peek();
+        if (t == JsonToken.NUMBER) return reader.nextDouble();
+        if (t == JsonToken.STRING) {
+            try {
+                return Double.parseDouble(reader.nextString());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        reader.skipValue();
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.smarthome.supabase;
+
+import com.example.smarthome.model.CommandResult;
+import com.example.smarthome.model.Device;
+import com.example.smarthome.model.DeviceCommand;
+import com.example.smarthome.model.DeviceItem;
+import com.example.smarthome.model.SensorBucket;
+import com.example.smarthome.model.SensorPoint;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 模型的手写流式 TypeAdapter，统一注册在共享的 {@link #gson()} 上，序列化/反序列化都不走反射
+ * 读取复用 {@link JsonDecoders}（兼容中间件与Supabase REST两种字段命名），写出统一使用 snake_case 字段
+ */
+public final class ModelAdapters implements TypeAdapterFactory {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelAdapters())
+            .create();
+
+    private interface ElementWriter<T> {
+        void write(JsonWriter writer, T value) throws IOException;
+    }
+
+    private ModelAdapters() {}
+
+    /**
+     * 应用内共享的 Gson；Gson 线程安全，不要再各自 new
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == Device.class) return (TypeAdapter<T>) adapter(JsonDecoders::readDevice, ModelAdapters::writeDevice);
+        if (raw == DeviceItem.class) return (TypeAdapter<T>) adapter(JsonDecoders::readDeviceItem, ModelAdapters::writeDeviceItem);
+        if (raw == SensorPoint.class) return (TypeAdapter<T>) adapter(JsonDecoders::readSensorPoint, ModelAdapters::writeSensorPoint);
+        if (raw == SensorBucket.class) return (TypeAdapter<T>) adapter(JsonDecoders::readSensorBucket, ModelAdapters::writeSensorBucket);
+        if (raw == CommandResult.class) return (TypeAdapter<T>) adapter(JsonDecoders::readCommandResult, ModelAdapters::writeCommandResult);
+        if (raw == DeviceCommand.class) {
+            // 命令参数是任意 JSON 值，交给 Gson 内置的 Object 适配器
+            TypeAdapter<Object> any = gson.getAdapter(Object.class);
+            return (TypeAdapter<T>) adapter(r -> readDeviceCommand(r, any), (w, c) -> writeDeviceCommand(w, c, any));
+        }
+        return null;
+    }
+
+    private static <T> TypeAdapter<T> adapter(JsonDecoders.ElementReader<T> reader, ElementWriter<T> writer) {
+        return new TypeAdapter<T>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                if (value == null) {
+                    out.nullValue();
+                    return;
+                }
+                writer.write(out, value);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+                return reader.read(in);
+            }
+        };
+    }
+
+    private static void writeDevice(JsonWriter w, Device d) throws IOException {
+        w.beginObject();
+        w.name("id").value(d.getId());
+        w.name("device_id").value(d.getDeviceId());
+        w.name("name").value(d.getName());
+        w.name("type").value(d.getDeviceType());
+        w.name("room").value(d.getRoom());
+        w.name("is_online").value(d.isOnline());
+        w.name("is_active").value(d.isOn());
+        w.name("latest_sensor_data").value(d.getLatestSensorData());
+        w.endObject();
+    }
+
+    private static void writeDeviceItem(JsonWriter w, DeviceItem item) throws IOException {
+        w.beginObject();
+        w.name("device_id").value(item.getDeviceId());
+        w.name("name").value(item.getName());
+        w.name("type").value(item.getType());
+        w.name("is_online").value(item.isOnline());
+        w.name("is_active").value(item.isActive());
+        w.name("status").value(item.getStatus());
+        w.name("last_update_time").value(item.getLastUpdateTime());
+        Object v = item.getValue();
+        w.name("value").value(v != null ? v.toString() : null);
+        w.endObject();
+    }
+
+    private static void writeSensorPoint(JsonWriter w, SensorPoint p) throws IOException {
+        w.beginObject();
+        w.name("device_id").value(p.getDeviceId());
+        w.name("sensor_type").value(p.getSensorType());
+        w.name("value");
+        writeNumber(w, p.getValue());
+        w.name("unit").value(p.getUnit());
+        w.name("timestamp").value(p.getTimestamp());
+        w.endObject();
+    }
+
+    private static void writeSensorBucket(JsonWriter w, SensorBucket b) throws IOException {
+        w.beginObject();
+        w.name("bucket").value(b.getBucket());
+        w.name("avg");
+        writeNumber(w, b.getAvg());
+        w.name("min");
+        writeNumber(w, b.getMin());
+        w.name("max");
+        writeNumber(w, b.getMax());
+        w.name("count").value(b.getCount());
+        w.endObject();
+    }
+
+    private static void writeCommandResult(JsonWriter w, CommandResult r) throws IOException {
+        w.beginObject();
+        w.name("device_id").value(r.getDeviceId());
+        w.name("ok").value(r.isOk());
+        w.name("requestId").value(r.getRequestId());
+        w.name("error").value(r.getError());
+        w.endObject();
+    }
+
+    /**
+     * 与中间件批量控制接口的单项格式一致：{"device_id","command","parameters"}，payload 中 command 以外的键放入 parameters
+     */
+    private static void writeDeviceCommand(JsonWriter w, DeviceCommand c, TypeAdapter<Object> any) throws IOException {
+        Map<String, Object> parameters = new HashMap<>(c.getPayload());
+        Object command = parameters.remove("command");
+        w.beginObject();
+        w.name("device_id").value(c.getDeviceId());
+        w.name("command");
+        any.write(w, command);
+        if (!parameters.isEmpty()) {
+            w.name("parameters");
+            any.write(w, parameters);
+        }
+        w.endObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DeviceCommand readDeviceCommand(JsonReader r, TypeAdapter<Object> any) throws IOException {
+        String deviceId = null;
+        Map<String, Object> payload = new HashMap<>();
+        r.beginObject();
+        while (r.hasNext()) {
+            String name = r.nextName();
+            switch (name) {
+                case "device_id": deviceId = JsonDecoders.nextStringOrNull(r); break;
+                case "command": payload.put("command", any.read(r)); break;
+                case "parameters": {
+                    Object p = any.read(r);
+                    if (p instanceof Map) payload.putAll((Map<String, Object>) p);
+                    break;
+                }
+                default: r.skipValue();
+            }
+        }
+        r.endObject();
+        return new DeviceCommand(deviceId, payload);
+    }
+
+    /**
+     * NaN 表示缺失，写为 null（JsonWriter 默认拒绝 NaN；共享 Gson 不输出 null 字段，即省略该字段）
+     */
+    private static void writeNumber(JsonWriter w, double v) throws IOException {
+        if (Double.isNaN(v)) w.nullValue();
+        else w.value(v);
+    }
+}
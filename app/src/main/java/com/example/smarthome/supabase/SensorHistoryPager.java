@@ -0,0 +1,70 @@
+package com.example.smarthome.supabase;
+
+import com.example.smarthome.model.SensorPage;
+import com.example.smarthome.model.SensorPoint;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import io.reactivex.rxjava3.core.Emitter;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 把游标分页接口转成按需拉取的 Flowable
+ * 下游请求时才取页，发出一页的同时在后台预取下一页；
+ * 任意时刻最多一页在消费、一页在途，内存占用与区间长度无关
+ */
+final class SensorHistoryPager {
+
+    interface PageFetcher {
+        /**
+         * @param cursor 上一页返回的游标；首页为null
+         */
+        SensorPage fetch(String cursor) throws IOException;
+    }
+
+    private SensorHistoryPager() {}
+
+    static Flowable<SensorPoint> stream(PageFetcher fetcher) {
+        return Flowable.generate(() -> new State(fetcher), State::next, State::cancel)
+                .subscribeOn(Schedulers.io())
+                .concatMapIterable(page -> page, 1);
+    }
+
+    private static final class State {
+        final PageFetcher fetcher;
+        Future<SensorPage> ahead;
+
+        State(PageFetcher fetcher) {
+            this.fetcher = fetcher;
+        }
+
+        State next(Emitter<List<SensorPoint>> emitter) throws Throwable {
+            SensorPage page;
+            if (ahead == null) {
+                page = fetcher.fetch(null);
+            } else {
+                try {
+                    page = ahead.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause();
+                }
+                ahead = null;
+            }
+            String cursor = page.getNextCursor();
+            boolean last = cursor == null || page.getPoints().isEmpty();
+            if (!last) ahead = Single.fromCallable(() -> fetcher.fetch(cursor)).subscribeOn(Schedulers.io()).toFuture();
+            if (!page.getPoints().isEmpty()) emitter.onNext(page.getPoints());
+            if (last) emitter.onComplete();
+            return this;
+        }
+
+        void cancel() {
+            if (ahead != null) ahead.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.smarthome.supabase;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * 相同读请求合并（single-flight）
+ * 同一键的请求在途时，后来者直接共享这次请求的结果；成功结果在 TTL 内继续复用，失败不缓存。
+ * 共享的请求即使所有调用方都已取消也会跑完（结果留给 TTL 内的后来者）
+ */
+final class SingleFlight {
+
+    private static final class Entry {
+        Single<Object> inFlight;
+        Object value;
+        long completedAt;
+    }
+
+    private final Scheduler clock;
+    private volatile long ttlMs;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong ttlHits = new AtomicLong();
+
+    SingleFlight(long ttlMs, Scheduler clock) {
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+    }
+
+    void setTtlMs(long ttlMs) {
+        this.ttlMs = Math.max(0, ttlMs);
+    }
+
+    long getTtlMs() { return ttlMs; }
+
+    @SuppressWarnings("unchecked")
+    <T> Single<T> get(String key, Supplier<Single<T>> source) {
+        return Single.defer(() -> {
+            requests.incrementAndGet();
+            synchronized (entries) {
+                Entry e = entries.get(key);
+                long now = clock.now(TimeUnit.MILLISECONDS);
+                if (e != null && e.inFlight != null) {
+                    joined.incrementAndGet();
+                    return (Single<T>) e.inFlight;
+                }
+                if (e != null && e.value != null && now - e.completedAt <= ttlMs) {
+                    ttlHits.incrementAndGet();
+                    return Single.just((T) e.value);
+                }
+                Entry entry = new Entry();
+                entry.inFlight = ((Single<Object>) source.get())
+                        .doOnSuccess(v -> complete(key, entry, v))
+                        .doOnError(err -> complete(key, entry, null))
+                        .cache();
+                entries.put(key, entry);
+                return (Single<T>) entry.inFlight;
+            }
+        });
+    }
+
+    /**
+     * 丢弃某个键的复用结果（数据已被修改时调用）；在途请求不受影响
+     */
+    void invalidate(String key) {
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && e.inFlight == null) entries.remove(key);
+        }
+    }
+
+    private void complete(String key, Entry entry, Object value) {
+        synchronized (entries) {
+            entry.inFlight = null;
+            entry.value = value;
+            entry.completedAt = clock.now(TimeUnit.MILLISECONDS);
+            if (value == null && entries.get(key) == entry) entries.remove(key);
+        }
+    }
+
+    /**
+     * 合并率：共享在途请求或命中 TTL 的调用占全部调用的比例
+     */
+    double hitRatio() {
+        long n = requests.get();
+        return n == 0 ? 0 : (double) (joined.get() + ttlHits.get()) / n;
+    }
+
+    long requests() { return requests.get(); }
+
+    long joined() { return joined.get(); }
+
+    long ttlHits() { return ttlHits.get(); }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "requests=%d joined=%d ttlHits=%d hitRatio=%.2f",
+                requests(), joined(), ttlHits(), hitRatio());
+    }
+}
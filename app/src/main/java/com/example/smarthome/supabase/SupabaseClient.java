@@ -4,25 +4,41 @@ import android.content.Context;
 import android.util.Log;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 import com.example.smarthome.auth.AuthService;
+import com.example.smarthome.model.CommandResult;
+import com.example.smarthome.model.Device;
+import com.example.smarthome.model.DeviceCommand;
+import com.example.smarthome.model.SensorBucket;
+import com.example.smarthome.model.SensorPage;
+import com.example.smarthome.model.SensorPoint;
+import com.example.smarthome.net.HttpStack;
+import com.example.smarthome.utils.LatencyHistogram;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.io.UnsupportedEncodingException;
 
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okhttp3.Cache;
+import okhttp3.Call;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 /**
  * Supabase客户端，用于与Supabase数据库和中间件通信
@@ -34,24 +50,45 @@ public class SupabaseClient {
     private static final String MIDDLEWARE_URL = "http://8.134.63.151";
     private static final String SUPABASE_ANON_KEY = "sb_publishable_MMGYn93wCO4nsFuAWIzWNw_IaFHMO4W";
     
+    private static final long DEFAULT_HEDGE_BUDGET_MS = 1500;
+    // 相同读请求的结果复用时间
+    private static final long DEFAULT_DEDUP_TTL_MS = 2000;
+    private static final String KEY_DEVICES = "devices";
+    private static final long HTTP_CACHE_BYTES = 10L * 1024 * 1024;
+    // 控制/配置请求的整体截止时间：超时由 OkHttp 取消请求本身，不会留下仍在进行的旧请求
+    static final long CONTROL_CALL_TIMEOUT_MS = 5_000;
+
     private final OkHttpClient httpClient;
+    private final OkHttpClient controlClient;
+    private final AuthService auth;
     private final Gson gson;
     private final Context context;
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final LatencyHistogram middlewareLatency = new LatencyHistogram("middleware");
+    private final LatencyHistogram supabaseLatency = new LatencyHistogram("supabase");
+    private volatile HedgePolicy hedgePolicy = HedgePolicy.hedged(DEFAULT_HEDGE_BUDGET_MS);
+    // 多个页面/组件同时刷新时，相同的读请求只发一次
+    private final SingleFlight flights = new SingleFlight(DEFAULT_DEDUP_TTL_MS, Schedulers.computation());
+    // 磁盘HTTP缓存（按 HttpCachePolicy 落盘并用 ETag 确认）及 304 时复用的已解码结果
+    private final Cache httpCache;
+    private final DecodedCache decoded = new DecodedCache();
 
     private SupabaseClient(Context context) {
         this.context = context;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
+        this.gson = ModelAdapters.gson();
+        this.auth = new AuthService(context);
+        this.httpCache = new Cache(new File(context.getCacheDir(), "http"), HTTP_CACHE_BYTES);
+        // 从共享HTTP栈派生：与AuthService、事件流共用连接池和TLS会话
+        this.httpClient = HttpStack.getInstance().client().newBuilder()
+                .cache(httpCache)
+                .addNetworkInterceptor(new HttpCachePolicy(MIDDLEWARE_URL))
                 .addInterceptor(chain -> {
                     Request original = chain.request();
+                    countRequest(original);
                     String url = original.url().toString();
                     Request.Builder builder = original.newBuilder()
                             .addHeader("Content-Type", "application/json");
                     if (url.startsWith(SUPABASE_URL)) {
-                        AuthService auth = new AuthService(context);
                         String token = auth.getAccessToken();
                         String authHeader = token != null ? ("Bearer " + token) : ("Bearer " + SUPABASE_ANON_KEY);
                         builder.addHeader("apikey", SUPABASE_ANON_KEY)
@@ -60,6 +97,9 @@ public class SupabaseClient {
                     return chain.proceed(builder.build());
                 })
                 .build();
+        this.controlClient = httpClient.newBuilder()
+                .callTimeout(CONTROL_CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .build();
     }
 
     public static synchronized SupabaseClient getInstance(Context context) {
@@ -71,6 +111,41 @@ public class SupabaseClient {
 
     public static String getMiddlewareBaseUrl() { return MIDDLEWARE_URL; }
 
+    private void countRequest(Request request) {
+        String key = request.method() + " " + request.url().host() + request.url().encodedPath();
+        AtomicLong c = requestCounts.get(key);
+        if (c == null) {
+            requestCounts.putIfAbsent(key, new AtomicLong());
+            c = requestCounts.get(key);
+        }
+        c.incrementAndGet();
+    }
+
+    /**
+     * 发出的请求数（按 方法+主机+路径 统计），用于对比轮询/推送前后的请求量
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> out = new java.util.TreeMap<>();
+        for (Map.Entry<String, AtomicLong> e : requestCounts.entrySet()) out.put(e.getKey(), e.getValue().get());
+        return out;
+    }
+
+    public long getTotalRequestCount() {
+        long total = 0;
+        for (AtomicLong c : requestCounts.values()) total += c.get();
+        return total;
+    }
+
+    /**
+     * 长连接用的客户端：从本客户端派生（共用连接池、调度器和TLS会话），取消读超时
+     */
+    OkHttpClient newStreamingClient() {
+        return httpClient.newBuilder()
+                .cache(null)
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
     public Single<String> closeAlarm(String deviceId) {
         return Single.create(emitter -> {
             try {
@@ -92,9 +167,9 @@ public class SupabaseClient {
     /**
      * 根据ID获取设备
      * @param deviceId 设备ID
-     * @return 设备JSON字符串
+     * @return 设备；不存在时以 NoSuchElementException 结束
      */
-    public Single<String> getDeviceById(String deviceId) {
+    public Single<Device> getDeviceById(String deviceId) {
         return Single.create(emitter -> {
             try {
                 String url = SUPABASE_URL + "/rest/v1/devices?id=eq." + deviceId + "&select=*";
@@ -105,9 +180,12 @@ public class SupabaseClient {
                 
                 try (Response response = httpClient.newCall(request).execute()) {
                     if (response.isSuccessful()) {
-                        String responseBody = response.body() != null ? response.body().string() : "";
-                        Log.d(TAG, "获取设备成功: " + responseBody);
-                        emitter.onSuccess(responseBody);
+                        List<Device> devices = decodeList(response, null, JsonDecoders::readDevice);
+                        if (devices == null || devices.isEmpty()) {
+                            emitter.onError(new java.util.NoSuchElementException("未找到设备"));
+                            return;
+                        }
+                        emitter.onSuccess(devices.get(0));
                     } else {
                         String error = "HTTP " + response.code() + ": " + response.message();
                         Log.e(TAG, "获取设备失败: " + error);
@@ -161,19 +239,52 @@ public class SupabaseClient {
                 String jsonBody = gson.toJson(payload);
                 RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
                 Request mwReq = new Request.Builder().url(mwUrl).post(body).build();
-                try (Response mwResp = httpClient.newCall(mwReq).execute()) {
+                Call call = controlClient.newCall(mwReq);
+                emitter.setCancellable(call::cancel);
+                try (Response mwResp = call.execute()) {
                     if (mwResp.isSuccessful()) {
                         String resp = mwResp.body() != null ? mwResp.body().string() : "";
                         emitter.onSuccess(resp);
                         return;
                     } else {
                         String text = mwResp.body() != null ? mwResp.body().string() : "";
-                        emitter.onError(new IOException("HTTP " + mwResp.code() + ": " + text));
+                        emitter.tryOnError(new IOException("HTTP " + mwResp.code() + ": " + text));
                         return;
                     }
                 }
             } catch (Exception e) {
-                emitter.onError(e);
+                emitter.tryOnError(e);
+            }
+        });
+    }
+
+    /**
+     * 一次请求下发多条控制命令（POST /devices/batch/control）
+     * 每条的 payload 拆成 command 与其余参数；单条失败不影响其他，结果与输入一一对应
+     * @return 按输入顺序的结果
+     */
+    public Single<List<CommandResult>> sendMqttCommandBatch(List<DeviceCommand> commands) {
+        return Single.create(emitter -> {
+            try {
+                String json = gson.toJson(java.util.Collections.singletonMap("commands", commands));
+                RequestBody body = RequestBody.create(json, MediaType.parse("application/json"));
+                Request req = new Request.Builder().url(MIDDLEWARE_URL + "/devices/batch/control").post(body).build();
+                Call call = controlClient.newCall(req);
+                emitter.setCancellable(call::cancel);
+                try (Response resp = call.execute()) {
+                    if (!resp.isSuccessful()) {
+                        emitter.tryOnError(new IOException("HTTP " + resp.code() + ": " + resp.message()));
+                        return;
+                    }
+                    List<CommandResult> results = decodeList(resp, "results", JsonDecoders::readCommandResult);
+                    if (results == null || results.size() != commands.size()) {
+                        emitter.tryOnError(new IOException("批量控制结果数量不匹配"));
+                        return;
+                    }
+                    emitter.onSuccess(results);
+                }
+            } catch (Exception e) {
+                emitter.tryOnError(e);
             }
         });
     }
@@ -185,7 +296,7 @@ public class SupabaseClient {
      * @return 响应结果
      */
     public Single<String> updateDevice(String deviceId, Map<String, Object> updateData) {
-        return Single.create(emitter -> {
+        return Single.<String>create(emitter -> {
             try {
                 String url = SUPABASE_URL + "/rest/v1/devices?id=eq." + deviceId;
                 
@@ -212,44 +323,20 @@ public class SupabaseClient {
                 Log.e(TAG, "设备更新异常: " + e.getMessage(), e);
                 emitter.onError(e);
             }
-        });
+        }).doOnSuccess(r -> flights.invalidate(KEY_DEVICES));
     }
 
     /**
-     * 获取设备列表
-     * @return 设备列表JSON
+     * 获取设备列表（中间件为主源、Supabase REST为备源，按对冲策略取先成功者），直接从响应流解码
+     * 并发的相同请求合并为一次，结果在短时间内复用
+     * @return 设备列表
      */
-    public Single<String> getDevices() {
-        return Single.create(emitter -> {
-            try {
-                String mwUrl = MIDDLEWARE_URL + "/devices";
-                Request mwReq = new Request.Builder().url(mwUrl).get().build();
-                try (Response mwResp = httpClient.newCall(mwReq).execute()) {
-                    if (mwResp.isSuccessful()) {
-                        String body = mwResp.body() != null ? mwResp.body().string() : "";
-                        JsonElement root = com.google.gson.JsonParser.parseString(body);
-                        if (root.isJsonObject() && root.getAsJsonObject().has("devices")) {
-                            JsonElement arr = root.getAsJsonObject().get("devices");
-                            emitter.onSuccess(arr.toString());
-                            return;
-                        }
-                    }
-                }
-                String url = SUPABASE_URL + "/rest/v1/devices?select=*";
-                Request request = new Request.Builder().url(url).get().build();
-                try (Response response = httpClient.newCall(request).execute()) {
-                    if (response.isSuccessful()) {
-                        String responseBody = response.body() != null ? response.body().string() : "";
-                        emitter.onSuccess(responseBody);
-                    } else {
-                        String error = "HTTP " + response.code() + ": " + response.message();
-                        emitter.onError(new IOException(error));
-                    }
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "获取设备列表异常: " + e.getMessage(), e);
-                emitter.onError(e);
-            }
+    public Single<List<Device>> getDevices() {
+        return flights.get(KEY_DEVICES, () -> {
+            Single<List<Device>> middleware = timed(fetchList(MIDDLEWARE_URL + "/devices", "devices", JsonDecoders::readDevice), middlewareLatency);
+            Single<List<Device>> supabase = timed(fetchList(SUPABASE_URL + "/rest/v1/devices?select=*", null, JsonDecoders::readDevice), supabaseLatency);
+            return hedgePolicy.apply(middleware, supabase)
+                    .doOnError(e -> Log.e(TAG, "获取设备列表异常: " + e.getMessage(), e));
         });
     }
 
@@ -260,17 +347,19 @@ public class SupabaseClient {
                 String jsonBody = gson.toJson(payload);
                 RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
                 Request req = new Request.Builder().url(mwUrl).post(body).build();
-                try (Response resp = httpClient.newCall(req).execute()) {
+                Call call = controlClient.newCall(req);
+                emitter.setCancellable(call::cancel);
+                try (Response resp = call.execute()) {
                     if (resp.isSuccessful()) {
                         String r = resp.body() != null ? resp.body().string() : "";
                         emitter.onSuccess(r);
                     } else {
                         String text = resp.body() != null ? resp.body().string() : "";
-                        emitter.onError(new IOException("HTTP " + resp.code() + ": " + text));
+                        emitter.tryOnError(new IOException("HTTP " + resp.code() + ": " + text));
                     }
                 }
             } catch (Exception e) {
-                emitter.onError(e);
+                emitter.tryOnError(e);
             }
         });
     }
@@ -281,7 +370,7 @@ public class SupabaseClient {
      * @return 响应结果
      */
     public Single<String> deleteDevice(String deviceId) {
-        return Single.create(emitter -> {
+        return Single.<String>create(emitter -> {
             try {
                 String url = SUPABASE_URL + "/rest/v1/devices?id=eq." + deviceId;
                 Request request = new Request.Builder()
@@ -304,36 +393,28 @@ public class SupabaseClient {
                 Log.e(TAG, "删除设备异常: " + e.getMessage(), e);
                 emitter.onError(e);
             }
-        });
+        }).doOnSuccess(r -> flights.invalidate(KEY_DEVICES));
     }
 
     /**
      * 获取传感器历史数据
      * @param deviceId 设备ID
      * @param limit 返回数据条数限制
-     * @return 历史数据JSON
+     * @return 历史数据
      */
-    public Single<String> getSensorHistory(String deviceId, int limit) {
+    public Single<List<SensorPoint>> getSensorHistory(String deviceId, int limit) {
         return getSensorHistoryRaw(deviceId, "temperature", null, null, "desc", limit);
     }
 
-    public Single<String> getSensorHistoryRaw(String deviceId, String sensorType, String from, String to, String order, int limit) {
+    public Single<List<SensorPoint>> getSensorHistoryRaw(String deviceId, String sensorType, String from, String to, String order, int limit) {
         return Single.create(emitter -> {
             try {
-                StringBuilder sb = new StringBuilder();
-                sb.append(MIDDLEWARE_URL).append("/sensor/history/raw?");
-                if (deviceId != null && !deviceId.isEmpty()) sb.append("device_id=").append(encode(deviceId)).append('&');
-                if (sensorType != null && !sensorType.isEmpty()) sb.append("sensor_type=").append(encode(sensorType)).append('&');
-                if (from != null && !from.isEmpty()) sb.append("from=").append(encode(from)).append('&');
-                if (to != null && !to.isEmpty()) sb.append("to=").append(encode(to)).append('&');
-                if (order != null && !order.isEmpty()) sb.append("order=").append(encode(order)).append('&');
-                sb.append("limit=").append(limit);
-                String url = sb.toString();
+                String url = buildRawHistoryUrl(deviceId, sensorType, from, to, order, limit, null);
                 Request request = new Request.Builder().url(url).get().build();
                 try (Response response = httpClient.newCall(request).execute()) {
                     if (response.isSuccessful()) {
-                        String responseBody = response.body() != null ? response.body().string() : "";
-                        emitter.onSuccess(responseBody);
+                        List<SensorPoint> points = decodeList(response, "data", JsonDecoders::readSensorPoint);
+                        emitter.onSuccess(points != null ? points : new java.util.ArrayList<>());
                     } else {
                         String error = "HTTP " + response.code() + ": " + response.message();
                         emitter.onError(new IOException(error));
@@ -345,7 +426,54 @@ public class SupabaseClient {
         });
     }
 
-    public Single<String> getSensorHistoryAgg(String deviceId, String sensorType, String from, String to, String bucket) {
+    /**
+     * 流式读取原始历史：按 (timestamp, id) 游标分页，下游请求时才拉取下一页
+     * 任意长的区间都不会截断，内存中最多一页在消费、一页在途预取
+     * @param order asc/desc
+     * @param pageSize 每页条数（中间件上限10000）
+     */
+    public Flowable<SensorPoint> streamSensorHistoryRaw(String deviceId, String sensorType, String from, String to, String order, int pageSize) {
+        return SensorHistoryPager.stream(cursor -> fetchRawPage(buildRawHistoryUrl(deviceId, sensorType, from, to, order, pageSize, cursor)));
+    }
+
+    /**
+     * 一次请求读取多种传感器的原始历史（按时间交错返回，每条带 sensor_type，可能是别名）
+     */
+    public Flowable<SensorPoint> streamSensorHistoryRaw(String deviceId, List<String> sensorTypes, String from, String to, String order, int pageSize) {
+        return streamSensorHistoryRaw(deviceId, String.join(",", sensorTypes), from, to, order, pageSize);
+    }
+
+    private SensorPage fetchRawPage(String url) throws IOException {
+        Request request = new Request.Builder().url(url).get().build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP " + response.code() + ": " + response.message());
+            }
+            ResponseBody body = response.body();
+            if (body == null) return new SensorPage(new java.util.ArrayList<>(), null);
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                return JsonDecoders.readSensorPage(reader);
+            }
+        }
+    }
+
+    static String buildRawHistoryUrl(String deviceId, String sensorType, String from, String to, String order, int limit, String after) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(MIDDLEWARE_URL).append("/sensor/history/raw?");
+        if (deviceId != null && !deviceId.isEmpty()) sb.append("device_id=").append(encode(deviceId)).append('&');
+        if (sensorType != null && !sensorType.isEmpty()) sb.append("sensor_type=").append(encode(sensorType)).append('&');
+        if (from != null && !from.isEmpty()) sb.append("from=").append(encode(from)).append('&');
+        if (to != null && !to.isEmpty()) sb.append("to=").append(encode(to)).append('&');
+        if (order != null && !order.isEmpty()) sb.append("order=").append(encode(order)).append('&');
+        if (after != null && !after.isEmpty()) sb.append("after=").append(encode(after)).append('&');
+        sb.append("limit=").append(limit);
+        return sb.toString();
+    }
+
+    /**
+     * 聚合历史；结束时间已过去的区间由磁盘HTTP缓存长期保存，不再请求
+     */
+    public Single<List<SensorBucket>> getSensorHistoryAgg(String deviceId, String sensorType, String from, String to, String bucket) {
         return Single.create(emitter -> {
             try {
                 StringBuilder sb = new StringBuilder();
@@ -359,8 +487,8 @@ public class SupabaseClient {
                 Request request = new Request.Builder().url(url).get().build();
                 try (Response response = httpClient.newCall(request).execute()) {
                     if (response.isSuccessful()) {
-                        String responseBody = response.body() != null ? response.body().string() : "";
-                        emitter.onSuccess(responseBody);
+                        List<SensorBucket> buckets = decoded.decode(response, r -> decodeList(r, "data", JsonDecoders::readSensorBucket));
+                        emitter.onSuccess(buckets != null ? buckets : new java.util.ArrayList<>());
                     } else {
                         String error = "HTTP " + response.code() + ": " + response.message();
                         emitter.onError(new IOException(error));
@@ -372,6 +500,18 @@ public class SupabaseClient {
         });
     }
 
+    /**
+     * 从响应体的字符流直接解码列表，避免整段读入String
+     * @param field 包装字段名（如 data/devices）；为null时期望顶层即为数组
+     */
+    private static <T> List<T> decodeList(Response response, String field, JsonDecoders.ElementReader<T> elementReader) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) return null;
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            return JsonDecoders.readArrayOrEnvelope(reader, field, elementReader);
+        }
+    }
+
     private static String encode(String s) {
         try {
             return URLEncoder.encode(s, "UTF-8");
@@ -383,58 +523,117 @@ public class SupabaseClient {
     /**
      * 获取某类传感器的最新值
      * @param sensorType 传感器类型（temperature/humidity/gas）
-     * @return 单条最新记录JSON
+     * @return 最新记录（0或1条），同类型的并发请求合并
+     */
+    public Single<List<SensorPoint>> getLatestSensorValue(String sensorType) {
+        return flights.get("latest:" + sensorType, () -> {
+            Single<List<SensorPoint>> middleware = timed(fetchList(MIDDLEWARE_URL + "/sensor/latest?sensor_type=" + sensorType, "data", JsonDecoders::readSensorPoint), middlewareLatency);
+            Single<List<SensorPoint>> supabase = timed(fetchList(buildLatestSensorUrl(sensorType), null, JsonDecoders::readSensorPoint), supabaseLatency);
+            return hedgePolicy.apply(middleware, supabase)
+                    .doOnError(e -> Log.e(TAG, "传感器最新值请求异常(" + sensorType + "): " + e.getMessage(), e));
+        });
+    }
+
+    /**
+     * 设置中间件/Supabase双源的对冲策略
      */
-    public Single<String> getLatestSensorValue(String sensorType) {
+    public void setHedgePolicy(HedgePolicy policy) {
+        this.hedgePolicy = policy != null ? policy : HedgePolicy.sequential();
+    }
+
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    /**
+     * 设置相同读请求结果的复用时间；0 表示只合并在途请求
+     */
+    public void setDedupTtlMs(long ttlMs) {
+        flights.setTtlMs(ttlMs);
+    }
+
+    /**
+     * 读请求合并统计（调用数、共享在途数、TTL命中数与合并率）
+     */
+    public String getDedupStats() {
+        return flights.toString();
+    }
+
+    public double getDedupHitRatio() {
+        return flights.hitRatio();
+    }
+
+    /**
+     * HTTP缓存统计：请求数、走网络数、缓存直接命中数，以及 304 后免解析复用的次数
+     */
+    public String getHttpCacheStats() {
+        return String.format(java.util.Locale.US, "requests=%d network=%d hits=%d decodeSkipped=%d decoded=%d",
+                httpCache.requestCount(), httpCache.networkCount(), httpCache.hitCount(), decoded.reused(), decoded.decoded());
+    }
+
+    /**
+     * 各数据源成功请求的延迟分布，用于调整对冲预算
+     * @return key为 middleware / supabase
+     */
+    public Map<String, LatencyHistogram> getLatencyHistograms() {
+        Map<String, LatencyHistogram> map = new java.util.LinkedHashMap<>();
+        map.put(middlewareLatency.getName(), middlewareLatency);
+        map.put(supabaseLatency.getName(), supabaseLatency);
+        return map;
+    }
+
+    /**
+     * 可取消的GET请求：流式解码列表；响应非2xx或缺少包装字段均视为失败，以便对冲切换到另一数据源
+     */
+    private <T> Single<List<T>> fetchList(String url, String field, JsonDecoders.ElementReader<T> elementReader) {
         return Single.create(emitter -> {
-            try {
-                String mwUrl = MIDDLEWARE_URL + "/sensor/latest?sensor_type=" + sensorType;
-                Request mwReq = new Request.Builder().url(mwUrl).get().build();
-                try (Response mwResp = httpClient.newCall(mwReq).execute()) {
-                    if (mwResp.isSuccessful()) {
-                        String body = mwResp.body() != null ? mwResp.body().string() : "";
-                        JsonElement root = com.google.gson.JsonParser.parseString(body);
-                        if (root.isJsonObject() && root.getAsJsonObject().has("data")) {
-                            JsonElement arr = root.getAsJsonObject().get("data");
-                            emitter.onSuccess(arr.toString());
-                            return;
-                        }
-                    }
+            Call call = httpClient.newCall(new Request.Builder().url(url).get().build());
+            emitter.setCancellable(call::cancel);
+            try (Response response = call.execute()) {
+                if (!response.isSuccessful()) {
+                    emitter.tryOnError(new IOException("HTTP " + response.code() + ": " + response.message()));
+                    return;
                 }
-
-                String url = buildLatestSensorUrl(sensorType);
-                Log.d(TAG, "获取最新传感器值(" + sensorType + ") URL=" + url);
-                Request request = new Request.Builder().url(url).get().build();
-                try (Response response = httpClient.newCall(request).execute()) {
-                    if (response.isSuccessful()) {
-                        String responseBody = response.body() != null ? response.body().string() : "";
-                        Log.d(TAG, "传感器最新值请求成功 code=" + response.code() + " length=" + responseBody.length());
-                        emitter.onSuccess(responseBody);
-                    } else {
-                        String error = "HTTP " + response.code() + ": " + response.message();
-                        Log.e(TAG, "传感器最新值请求失败: " + error + " URL=" + url);
-                        emitter.onError(new IOException(error));
-                    }
+                List<T> list = decoded.decode(response, r -> decodeList(r, field, elementReader));
+                if (list == null) {
+                    emitter.tryOnError(new IOException("响应格式异常: " + url));
+                    return;
                 }
+                emitter.onSuccess(list);
             } catch (Exception e) {
-                Log.e(TAG, "传感器最新值请求异常: " + e.getMessage(), e);
-                emitter.onError(e);
+                emitter.tryOnError(e);
             }
         });
     }
 
+    private static <T> Single<T> timed(Single<T> source, LatencyHistogram histogram) {
+        return Single.defer(() -> {
+            long start = System.nanoTime();
+            return source
+                    .doOnSuccess(v -> histogram.record((System.nanoTime() - start) / 1_000_000L))
+                    .doOnError(e -> histogram.recordFailure());
+        });
+    }
+
     /**
-     * 从中间件获取传感器概览（temperature/humidity/gas）
+     * 从中间件获取传感器概览（temperature/humidity/gas），并发请求合并
+     * @return 类型→最新记录列表（通常0或1条）
      */
-    public Single<String> getSensorSummary() {
-        return Single.create(emitter -> {
+    public Single<Map<String, List<SensorPoint>>> getSensorSummary() {
+        return flights.get("summary", () -> Single.<Map<String, List<SensorPoint>>>create(emitter -> {
             try {
                 String mwUrl = MIDDLEWARE_URL + "/sensor/summary";
                 Request mwReq = new Request.Builder().url(mwUrl).get().build();
                 try (Response mwResp = httpClient.newCall(mwReq).execute()) {
                     if (mwResp.isSuccessful()) {
-                        String body = mwResp.body() != null ? mwResp.body().string() : "";
-                        emitter.onSuccess(body);
+                        ResponseBody body = mwResp.body();
+                        if (body == null) {
+                            emitter.onError(new IOException("响应格式异常: " + mwUrl));
+                            return;
+                        }
+                        try (JsonReader reader = new JsonReader(body.charStream())) {
+                            emitter.onSuccess(java.util.Collections.unmodifiableMap(JsonDecoders.readLatestByType(reader)));
+                        }
                         return;
                     } else {
                         String error = "HTTP " + mwResp.code() + ": " + mwResp.message();
@@ -445,7 +644,7 @@ public class SupabaseClient {
             } catch (Exception e) {
                 emitter.onError(e);
             }
-        });
+        }));
     }
 
     static String buildLatestSensorUrl(String sensorType) {
@@ -464,6 +663,23 @@ public class SupabaseClient {
         return SUPABASE_URL + "/rest/v1/sensor_data?sensor_type=in.(" + inClause + ")&order=timestamp.desc&limit=1";
     }
 
+    /**
+     * 把中文/别名传感器类型归一为 temperature/humidity/gas；无法识别时原样返回
+     */
+    public static String canonicalSensorType(String sensorType) {
+        if (sensorType == null) return null;
+        // MQTT每条传感器消息都会调用，别名表预先构建，避免逐次分配
+        for (String[] aliases : CANONICAL_ALIASES) {
+            for (String alias : aliases) {
+                if (alias.equalsIgnoreCase(sensorType)) return aliases[0];
+            }
+        }
+        return sensorType;
+    }
+
+    private static final String[][] CANONICAL_ALIASES = {
+            getAliases("temperature"), getAliases("humidity"), getAliases("gas")};
+
     static String[] getAliases(String sensorType) {
         String key = sensorType == null ? "" : sensorType.toLowerCase();
         switch (key) {
@@ -477,13 +693,4 @@ public class SupabaseClient {
                 return new String[]{sensorType};
         }
     }
-
-    /**
-     * 清理资源
-     */
-    public void cleanup() {
-        if (httpClient != null) {
-            httpClient.dispatcher().cancelAll();
-        }
-    }
 }
@@ -21,6 +21,7 @@ import androidx.lifecycle.ViewModelProvider;
 import com.example.smarthome.R;
 import com.example.smarthome.databinding.FragmentDeviceControlBinding;
 import com.example.smarthome.model.Device;
+import com.example.smarthome.utils.Iso8601;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -366,7 +367,7 @@ public class DeviceControlFragment extends Fragment {
                     try {
                         int minutes = Integer.parseInt(minutesInput.getText().toString());
                         long ms = System.currentTimeMillis() + minutes * 60L * 1000L;
-                        String at = new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", java.util.Locale.getDefault()).format(new java.util.Date(ms));
+                        String at = Iso8601.formatSeconds(ms);
                         String action = selectedAction[0] == 0 ? "ON" : "OFF";
                         viewModel.setTimer(device, at, action);
                     } catch (Exception e) {
@@ -8,10 +8,9 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.smarthome.control.CommandDispatcher;
 import com.example.smarthome.model.Device;
 import com.example.smarthome.supabase.SupabaseClient;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 import java.util.Date;
 import java.util.HashMap;
@@ -29,6 +28,7 @@ public class DeviceControlViewModel extends AndroidViewModel {
     private static final String TAG = "DeviceControlViewModel";
     private final CompositeDisposable disposables = new CompositeDisposable();
     private final SupabaseClient supabaseClient;
+    private final CommandDispatcher commands;
     private final MutableLiveData<Device> device = new MutableLiveData<>();
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     private final MutableLiveData<String> statusMessage = new MutableLiveData<>();
@@ -36,20 +36,22 @@ public class DeviceControlViewModel extends AndroidViewModel {
     private final MutableLiveData<String> colorTempLive = new MutableLiveData<>("natural");
     private final MutableLiveData<String> powerLive = new MutableLiveData<>("ON");
     private com.example.smarthome.utils.LightStateRepository lightRepo;
-    private final Gson gson = new Gson();
 
     public DeviceControlViewModel(@NonNull Application application) {
         super(application);
         this.supabaseClient = SupabaseClient.getInstance(application);
+        this.commands = CommandDispatcher.getInstance(application);
         this.lightRepo = new com.example.smarthome.utils.LightStateRepository(application);
-        com.example.smarthome.utils.MqttBridge.getInstance().addLightStatusListener((id,b,c,p)->{
+        disposables.add(com.example.smarthome.utils.MqttBridge.getInstance().router().subscribe(com.example.smarthome.model.LightStatus.class, null, s->{
             Device d = device.getValue();
+            String id = s.getDeviceId();
             if (d!=null && id!=null && id.equals(d.getDeviceId())){
+                int b = s.getBrightness(); String c = s.getColorTemp(); String p = s.getPower();
                 if (b>=0){ brightnessLive.postValue(b); lightRepo.setBrightness(id,b);} 
                 if (c!=null){ colorTempLive.postValue(c); lightRepo.setColorTemp(id,c);} 
                 if (p!=null){ powerLive.postValue(p); lightRepo.setPower(id,p);} 
             }
-        });
+        }));
     }
 
     /**
@@ -90,40 +92,20 @@ public class DeviceControlViewModel extends AndroidViewModel {
                         .subscribeOn(Schedulers.io())
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribe(
-                                response -> {
-                                    try {
-                                        com.google.gson.JsonElement root = com.google.gson.JsonParser.parseString(response);
-                                        if (root.isJsonArray()) {
-                                            com.google.gson.JsonArray arr = root.getAsJsonArray();
-                                            if (arr.size() > 0) {
-                                                com.google.gson.JsonObject obj = arr.get(0).getAsJsonObject();
-                                                Device d = gson.fromJson(obj, Device.class);
-                                                String status = obj.has("status") && !obj.get("status").isJsonNull() ? obj.get("status").getAsString() : null;
-                                                if (status != null) d.setOnline("online".equalsIgnoreCase(status));
-                                                if (obj.has("is_active") && !obj.get("is_active").isJsonNull()) d.setOn(obj.get("is_active").getAsBoolean());
-                                                device.setValue(d);
-                                                // 应用记忆
-                                                brightnessLive.setValue(lightRepo.getBrightness(d.getDeviceId()));
-                                                colorTempLive.setValue(lightRepo.getColorTemp(d.getDeviceId()));
-                                                powerLive.setValue(lightRepo.getPower(d.getDeviceId()));
-                                            } else {
-                                                errorMessage.setValue("未找到设备");
-                                            }
-                                        } else {
-                                            Device d = gson.fromJson(root, Device.class);
-                                            device.setValue(d);
-                                            brightnessLive.setValue(lightRepo.getBrightness(d.getDeviceId()));
-                                            colorTempLive.setValue(lightRepo.getColorTemp(d.getDeviceId()));
-                                            powerLive.setValue(lightRepo.getPower(d.getDeviceId()));
-                                        }
-                                        statusMessage.setValue("设备数据加载成功");
-                                } catch (Exception e) {
-                                    Log.e(TAG, "解析设备数据失败: " + e.getMessage());
-                                    errorMessage.setValue("设备数据解析失败");
-                                }
+                                d -> {
+                                    device.setValue(d);
+                                    // 应用记忆
+                                    brightnessLive.setValue(lightRepo.getBrightness(d.getDeviceId()));
+                                    colorTempLive.setValue(lightRepo.getColorTemp(d.getDeviceId()));
+                                    powerLive.setValue(lightRepo.getPower(d.getDeviceId()));
+                                    statusMessage.setValue("设备数据加载成功");
                                 },
                                 throwable -> {
                                     Log.e(TAG, "加载设备失败: " + throwable.getMessage());
+                                    if (throwable instanceof java.util.NoSuchElementException) {
+                                        errorMessage.setValue("未找到设备");
+                                        return;
+                                    }
                                     errorMessage.setValue("加载设备失败: " + throwable.getMessage());
                                 }
                         )
@@ -165,7 +147,7 @@ public class DeviceControlViewModel extends AndroidViewModel {
         payload.put("command", "power");
         payload.put("value", command);
         disposables.add(
-                supabaseClient.sendMqttCommand(device.getDeviceId(), payload)
+                commands.submit(device.getDeviceId(), payload)
                         .subscribeOn(io.reactivex.rxjava3.schedulers.Schedulers.io())
                         .observeOn(io.reactivex.rxjava3.android.schedulers.AndroidSchedulers.mainThread())
                         .subscribe(
@@ -374,7 +356,7 @@ public class DeviceControlViewModel extends AndroidViewModel {
         payload.put("command", command);
         payload.put("value", command);
         disposables.add(
-                supabaseClient.sendMqttCommand(device.getDeviceId(), payload)
+                commands.submit(device.getDeviceId(), payload)
                         .subscribeOn(io.reactivex.rxjava3.schedulers.Schedulers.io())
                         .observeOn(io.reactivex.rxjava3.android.schedulers.AndroidSchedulers.mainThread())
                         .subscribe(
@@ -386,7 +368,7 @@ public class DeviceControlViewModel extends AndroidViewModel {
 
     private void sendPayload(Device device, Map<String, Object> payload, String successMsg) {
         disposables.add(
-                supabaseClient.sendMqttCommand(device.getDeviceId(), payload)
+                commands.submit(device.getDeviceId(), payload)
                         .subscribeOn(io.reactivex.rxjava3.schedulers.Schedulers.io())
                         .observeOn(io.reactivex.rxjava3.android.schedulers.AndroidSchedulers.mainThread())
                         .subscribe(
@@ -410,8 +392,8 @@ public class DeviceControlViewModel extends AndroidViewModel {
                         .subscribeOn(Schedulers.io())
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribe(
-                                response -> {
-                                    Log.d(TAG, "获取传感器历史数据成功，共 " + response.length() + " 条记录");
+                                points -> {
+                                    Log.d(TAG, "获取传感器历史数据成功，共 " + points.size() + " 条记录");
                                     // 这里可以处理历史数据，如显示图表等
                                     statusMessage.setValue("历史数据已加载");
                                 },
@@ -14,29 +14,35 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.appcompat.app.AlertDialog;
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 import com.example.smarthome.R;
+import com.example.smarthome.control.CommandDispatcher;
+import com.example.smarthome.control.Scene;
+import com.example.smarthome.control.SceneEngine;
 import com.example.smarthome.supabase.SupabaseClient;
 import com.google.android.material.button.MaterialButton;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
-import com.google.gson.reflect.TypeToken;
 import com.example.smarthome.model.Device;
-import java.util.List;
+import com.example.smarthome.model.SensorPoint;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import android.content.res.ColorStateList;
 import android.graphics.Color;
 
 public class FeaturesFragment extends Fragment {
     private SupabaseClient client;
-    private Gson gson = new Gson();
+    private CommandDispatcher commands;
+    private SceneEngine scenes;
+    private final CompositeDisposable disposables = new CompositeDisposable();
     private TextView status;
     private String lightDeviceId;
     private com.example.smarthome.utils.LightStateRepository lightRepo;
-    private final com.example.smarthome.utils.MqttBridge.LightStatusListener listener = (id,b,c,p)->{
-        if (lightDeviceId==null || !id.equals(lightDeviceId)) return;
+    private final com.example.smarthome.utils.MqttTopicRouter.Listener<com.example.smarthome.model.LightStatus> listener = s->{
+        String id = s.getDeviceId(); int b = s.getBrightness(); String c = s.getColorTemp(); String p = s.getPower();
+        if (lightDeviceId==null || !lightDeviceId.equals(id)) return;
         View v = getView(); if (v==null) return;
         TextView current = v.findViewById(R.id.text_brightness_current);
         TextView brightnessValue = v.findViewById(R.id.brightness_value);
@@ -54,6 +60,8 @@ public class FeaturesFragment extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View v = inflater.inflate(R.layout.fragment_features, container, false);
         client = SupabaseClient.getInstance(requireContext());
+        commands = CommandDispatcher.getInstance(requireContext());
+        scenes = SceneEngine.getInstance(requireContext());
         lightRepo = new com.example.smarthome.utils.LightStateRepository(requireContext());
         status = v.findViewById(R.id.text_status);
         v.findViewById(R.id.button_scene_home).setOnClickListener(view -> runScene("home"));
@@ -135,12 +143,8 @@ public class FeaturesFragment extends Fragment {
         client.getDevices()
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(body -> {
+                .subscribe(devices -> {
                     try {
-                        JsonElement root = com.google.gson.JsonParser.parseString(body);
-                        java.util.List<Device> devices;
-                        if (root.isJsonArray()) devices = gson.fromJson(root, new TypeToken<java.util.List<Device>>(){}.getType());
-                        else devices = new java.util.ArrayList<>();
                         String found = null;
                         for (Device d : devices) {
                             String t = d.getDeviceType() == null ? "" : d.getDeviceType().toLowerCase();
@@ -158,7 +162,7 @@ public class FeaturesFragment extends Fragment {
         Map<String,Object> payload = new HashMap<>();
         payload.put("command", "brightness");
         payload.put("value", vInt);
-        client.sendMqttCommand(lightDeviceId, payload)
+        commands.submit(lightDeviceId, "brightness", payload)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(resp -> {
@@ -173,7 +177,7 @@ public class FeaturesFragment extends Fragment {
         Map<String,Object> payload = new HashMap<>();
         payload.put("command", "color_temp");
         payload.put("value", p);
-        client.sendMqttCommand(lightDeviceId, payload)
+        commands.submit(lightDeviceId, "color_temp", payload)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(resp -> {
@@ -188,70 +192,24 @@ public class FeaturesFragment extends Fragment {
         Map<String,Object> payload = new HashMap<>();
         payload.put("command", "power");
         payload.put("value", p);
-        client.sendMqttCommand(lightDeviceId, payload)
+        commands.submit(lightDeviceId, "power", payload)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(resp -> { lightRepo.setPower(lightDeviceId, p); }, err -> Toast.makeText(requireContext(), "电源设置失败", Toast.LENGTH_SHORT).show());
     }
 
-    private void runScene(String scene) {
-        status.setText("执行场景: " + scene);
-        client.getDevices()
-                .subscribeOn(Schedulers.io())
+    private void runScene(String name) {
+        Scene scene = Scene.named(name);
+        if (scene == null) return;
+        status.setText("执行场景: " + name);
+        disposables.add(scenes.run(scene)
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(body -> {
-                    try {
-                        JsonElement root = com.google.gson.JsonParser.parseString(body);
-                        List<Device> devices;
-                        if (root.isJsonArray()) devices = gson.fromJson(root, new TypeToken<List<Device>>(){}.getType());
-                        else {
-                            devices = new ArrayList<>();
-                        }
-                        applyScene(scene, devices);
-                    } catch (Exception e) {
-                        Toast.makeText(requireContext(), "设备加载失败", Toast.LENGTH_SHORT).show();
-                    }
-                }, err -> Toast.makeText(requireContext(), "设备加载失败", Toast.LENGTH_SHORT).show());
-    }
-
-    private void applyScene(String scene, List<Device> devices) {
-        int ok = 0, fail = 0;
-        for (Device d : devices) {
-            String t = d.getDeviceType() == null ? "" : d.getDeviceType().toLowerCase();
-            String name = d.getName() == null ? "" : d.getName();
-            Map<String,Object> payload = null;
-            switch (scene) {
-                case "home":
-                    if (t.equals("light")) { payload = new HashMap<>(); payload.put("command","COLOR_SET"); payload.put("value","#FFC107"); client.sendMqttCommand(d.getDeviceId(), payload).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (t.equals("buzzer")) { payload = new HashMap<>(); payload.put("command","BUZZ_OFF"); client.sendMqttCommand(d.getDeviceId(), payload).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (name.contains("人体红外")) { Map<String,Object> cfg = new HashMap<>(); cfg.put("action","disable"); client.sendDeviceConfig(d.getDeviceId(), cfg).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (name.contains("门磁")) { Map<String,Object> cfg = new HashMap<>(); cfg.put("action","disable"); client.sendDeviceConfig(d.getDeviceId(), cfg).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    break;
-                case "away":
-                    if (t.equals("light")) { payload = new HashMap<>(); payload.put("command","TIMER_SET"); payload.put("at", isoInMinutes(1)); payload.put("action","OFF"); client.sendMqttCommand(d.getDeviceId(), payload).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (t.equals("humidifier")) { payload = new HashMap<>(); payload.put("command","HUMIDIFY_OFF"); client.sendMqttCommand(d.getDeviceId(), payload).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (t.equals("buzzer")) { payload = new HashMap<>(); payload.put("command","BUZZ_OFF"); client.sendMqttCommand(d.getDeviceId(), payload).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (name.contains("人体红外")) { Map<String,Object> cfg = new HashMap<>(); cfg.put("action","enable"); client.sendDeviceConfig(d.getDeviceId(), cfg).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (name.contains("门磁")) { Map<String,Object> cfg = new HashMap<>(); cfg.put("action","enable"); client.sendDeviceConfig(d.getDeviceId(), cfg).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    break;
-                case "sleep":
-                    if (t.equals("light")) { payload = new HashMap<>(); payload.put("command","BRIGHTNESS_SET"); payload.put("value",20); client.sendMqttCommand(d.getDeviceId(), payload).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (t.equals("buzzer")) { payload = new HashMap<>(); payload.put("command","BUZZ_OFF"); client.sendMqttCommand(d.getDeviceId(), payload).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (name.contains("人体红外")) { Map<String,Object> cfg = new HashMap<>(); cfg.put("action","enable"); client.sendDeviceConfig(d.getDeviceId(), cfg).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    if (name.contains("门磁")) { Map<String,Object> cfg = new HashMap<>(); cfg.put("action","enable"); client.sendDeviceConfig(d.getDeviceId(), cfg).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    break;
-                case "wake":
-                    if (t.equals("light")) { payload = new HashMap<>(); payload.put("command","COLOR_SET"); payload.put("value","#FFFFFF"); client.sendMqttCommand(d.getDeviceId(), payload).subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe(r->{},e->{}); }
-                    break;
-            }
-            // 状态提示更新由各调用设置
-        }
+                .subscribe(result -> {
+                    status.setText("场景 " + name + " 完成: 成功" + result.succeeded + " 失败" + result.failed + " 用时" + result.latencyMs + "ms");
+                    if (result.failed > 0) Toast.makeText(requireContext(), "部分设备执行失败", Toast.LENGTH_SHORT).show();
+                }, err -> Toast.makeText(requireContext(), "设备加载失败", Toast.LENGTH_SHORT).show()));
     }
 
-    private String isoInMinutes(int minutes) {
-        long ms = System.currentTimeMillis() + minutes * 60L * 1000L;
-        return new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", java.util.Locale.getDefault()).format(new java.util.Date(ms));
-    }
     private int nowHour() { java.util.Calendar c = java.util.Calendar.getInstance(); return c.get(java.util.Calendar.HOUR_OF_DAY); }
     private int nowMinute() { java.util.Calendar c = java.util.Calendar.getInstance(); return c.get(java.util.Calendar.MINUTE); }
 
@@ -265,32 +223,15 @@ public class FeaturesFragment extends Fragment {
         client.getSensorSummary()
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(body -> {
-                    try {
-                        JsonElement root = com.google.gson.JsonParser.parseString(body);
-                        String hum = extractFirstValue(root, "humidity");
-                        if (hum != null) {
-                            current.setText("当前湿度: " + hum + "%");
-                        } else {
-                            current.setText("当前湿度: --");
-                        }
-                    } catch (Exception e) {
-                        current.setText("当前湿度: --");
-                    }
+                .subscribe(summary -> {
+                    String hum = firstValue(summary.get("humidity"));
+                    current.setText(hum != null ? "当前湿度: " + hum + "%" : "当前湿度: --");
                 }, err -> current.setText("当前湿度: --"));
     }
 
-    private String extractFirstValue(JsonElement root, String key) {
-        if (root != null && root.isJsonObject() && root.getAsJsonObject().has(key)) {
-            JsonElement arr = root.getAsJsonObject().get(key);
-            if (arr.isJsonArray() && arr.getAsJsonArray().size() > 0) {
-                JsonElement obj = arr.getAsJsonArray().get(0);
-                if (obj.isJsonObject() && obj.getAsJsonObject().has("value")) {
-                    return obj.getAsJsonObject().get("value").getAsString();
-                }
-            }
-        }
-        return null;
+    private static String firstValue(List<SensorPoint> rows) {
+        if (rows == null || rows.isEmpty() || Double.isNaN(rows.get(0).getValue())) return null;
+        return java.math.BigDecimal.valueOf(rows.get(0).getValue()).stripTrailingZeros().toPlainString();
     }
 
     
@@ -338,5 +279,6 @@ public class FeaturesFragment extends Fragment {
 
     @Override public void onDestroyView(){
         super.onDestroyView();
+        disposables.clear();
     }
 }
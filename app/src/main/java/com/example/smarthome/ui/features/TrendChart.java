@@ -0,0 +1,181 @@
+package com.example.smarthome.ui.features;
+
+import android.view.MotionEvent;
+
+import com.example.smarthome.cache.TimeSeriesStore;
+import com.example.smarthome.utils.Iso8601;
+import com.example.smarthome.utils.Lttb;
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.components.XAxis;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.formatter.ValueFormatter;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 单个传感器的趋势图
+ * 持有窗口内的全部原始点，按图表像素宽度用 LTTB 降采样后显示（保留尖峰，不做服务端均值分桶）；
+ * 缩放/平移结束后按新的可见区间重新降采样，放大即可看到更细的数据。
+ * 数据集与坐标格式化器只创建一次；x 为相对区间起点的秒数（float 存毫秒级时间戳会丢精度），
+ * 实时数据直接追加一个点并滑动窗口，累积过多时再重新降采样，不整体重建
+ * 只能在主线程调用
+ */
+class TrendChart implements OnChartGestureListener {
+    // 图表尚未布局（宽度为0）时按此像素宽度取点
+    private static final int DEFAULT_WIDTH_PX = 720;
+
+    final String sensorType;
+    private final LineChart chart;
+    private final LineDataSet set;
+    private final LineData data;
+    private static final TimeZone LABEL_ZONE = TimeZone.getTimeZone("Asia/Shanghai");
+
+    private long baseMs;
+    private long rangeMs;
+    // 窗口内原始点：有效区间 [start, size)，实时数据追加在尾部
+    private long[] times = new long[0];
+    private float[] values = new float[0];
+    private int start;
+    private int size;
+    private int resolvedPoints;
+
+    TrendChart(LineChart chart, String sensorType, int color) {
+        this.chart = chart;
+        this.sensorType = sensorType;
+        set = new LineDataSet(new ArrayList<>(), "趋势");
+        set.setDrawCircles(false);
+        set.setColor(color);
+        set.setLineWidth(2f);
+        data = new LineData(set);
+        XAxis xAxis = chart.getXAxis();
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setValueFormatter(new ValueFormatter() {
+            @Override public String getFormattedValue(float value) {
+                return Iso8601.formatMonthDayTime(baseMs + (long) (value * 1000), LABEL_ZONE);
+            }
+        });
+        chart.getDescription().setEnabled(false);
+        chart.getLegend().setEnabled(false);
+        chart.setOnChartGestureListener(this);
+    }
+
+    /**
+     * 显示一个时间窗口的原始数据（切换区间时调用），缩放复位
+     */
+    void show(long fromMs, long toMs, TimeSeriesStore.Range range) {
+        this.baseMs = fromMs;
+        this.rangeMs = toMs - fromMs;
+        this.times = range.times;
+        this.values = range.values;
+        this.start = 0;
+        this.size = range.size();
+        if (chart.getData() != data) chart.setData(data);
+        chart.fitScreen();
+        resolve();
+    }
+
+    /**
+     * 按当前可见区间重新降采样：可见部分按像素宽度取点，
+     * 两侧不可见部分各按一屏宽度粗取，平移时不会出现空白
+     */
+    void resolve() {
+        int width = chart.getWidth() > 0 ? chart.getWidth() : DEFAULT_WIDTH_PX;
+        int lo = start, hi = size;
+        if (!chart.isFullyZoomedOut() && set.getEntryCount() > 0) {
+            lo = lowerBound(baseMs + (long) (chart.getLowestVisibleX() * 1000));
+            hi = lowerBound(baseMs + (long) (chart.getHighestVisibleX() * 1000) + 1);
+        }
+        List<Entry> entries = new ArrayList<>(width * 3);
+        addSelected(entries, Lttb.select(times, values, start, lo, width));
+        addSelected(entries, Lttb.select(times, values, lo, hi, width));
+        addSelected(entries, Lttb.select(times, values, hi, size, width));
+        set.setValues(entries);
+        resolvedPoints = entries.size();
+        refresh();
+    }
+
+    /**
+     * 追加一条实时读数
+     */
+    void append(long timeMs, float value) {
+        if (rangeMs <= 0 || timeMs < baseMs || (size > start && timeMs <= times[size - 1])) return;
+        if (size == times.length) grow();
+        times[size] = timeMs;
+        values[size] = value;
+        size++;
+        long windowStart = timeMs - rangeMs;
+        while (start < size - 1 && times[start] < windowStart) start++;
+        set.addEntry(new Entry(x(timeMs), value));
+        float startX = x(windowStart);
+        while (set.getEntryCount() > 1 && set.getEntryForIndex(0).getX() < startX) set.removeFirst();
+        // 逐点追加的部分没有降采样，累积到上次的两倍时重新取点
+        if (set.getEntryCount() > Math.max(resolvedPoints * 2, 64)) resolve();
+        else refresh();
+    }
+
+    void clear() {
+        times = new long[0];
+        values = new float[0];
+        start = size = 0;
+        set.clear();
+        refresh();
+    }
+
+    @Override public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture gesture) {
+        if (gesture != ChartTouchListener.ChartGesture.SINGLE_TAP && gesture != ChartTouchListener.ChartGesture.LONG_PRESS) resolve();
+    }
+    @Override public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture gesture) {}
+    @Override public void onChartLongPressed(MotionEvent me) {}
+    @Override public void onChartDoubleTapped(MotionEvent me) {}
+    @Override public void onChartSingleTapped(MotionEvent me) {}
+    @Override public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX, float velocityY) {}
+    @Override public void onChartScale(MotionEvent me, float scaleX, float scaleY) {}
+    @Override public void onChartTranslate(MotionEvent me, float dX, float dY) {}
+
+    private void addSelected(List<Entry> out, int[] idx) {
+        for (int i : idx) out.add(new Entry(x(times[i]), values[i]));
+    }
+
+    /** 第一个时间 >= t 的下标 */
+    private int lowerBound(long t) {
+        int lo = start, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < t) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * 扩容并把已滑出窗口的点挤掉
+     */
+    private void grow() {
+        int live = size - start;
+        int cap = Math.max(64, live * 2);
+        long[] t = new long[cap];
+        float[] v = new float[cap];
+        System.arraycopy(times, start, t, 0, live);
+        System.arraycopy(values, start, v, 0, live);
+        times = t;
+        values = v;
+        start = 0;
+        size = live;
+    }
+
+    private float x(long timeMs) {
+        return (timeMs - baseMs) / 1000f;
+    }
+
+    private void refresh() {
+        set.notifyDataSetChanged();
+        data.notifyDataChanged();
+        chart.notifyDataSetChanged();
+        chart.invalidate();
+    }
+}
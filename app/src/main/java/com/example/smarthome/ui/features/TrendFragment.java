@@ -1,6 +1,7 @@
 package com.example.smarthome.ui.features;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,33 +13,36 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import com.example.smarthome.R;
-import com.example.smarthome.supabase.SupabaseClient;
+import com.example.smarthome.cache.SensorHistoryRepository;
+import com.example.smarthome.cache.TimeSeriesStore;
+import com.example.smarthome.model.SensorPoint;
+import com.example.smarthome.supabase.EventStreamManager;
+import com.example.smarthome.utils.Iso8601;
 import com.github.mikephil.charting.charts.LineChart;
-import com.github.mikephil.charting.components.XAxis;
-import com.github.mikephil.charting.data.Entry;
-import com.github.mikephil.charting.data.LineData;
-import com.github.mikephil.charting.data.LineDataSet;
-import com.github.mikephil.charting.formatter.ValueFormatter;
-import com.google.gson.JsonElement;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class TrendFragment extends Fragment {
-    private SupabaseClient client;
+    private static final String TAG = "TrendFragment";
+    private static final long HOUR_MS = 3_600_000L;
+    private SensorHistoryRepository history;
     private MaterialButton btnToday, btn3d, btn7d;
     private TextView tvTrendTitle;
     private LineChart chartTemp, chartHum, chartGas;
+    private final List<TrendChart> charts = new ArrayList<>();
+    private final CompositeDisposable disposables = new CompositeDisposable();
+    private int generation;
+    private int rangeHours;
+    private boolean stopped;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View v = inflater.inflate(R.layout.fragment_trend, container, false);
-        client = SupabaseClient.getInstance(requireContext());
+        history = SensorHistoryRepository.getInstance(requireContext());
         btnToday = (MaterialButton) v.findViewById(R.id.btn_filter_today);
         btn3d = (MaterialButton) v.findViewById(R.id.btn_filter_3d);
         btn7d = (MaterialButton) v.findViewById(R.id.btn_filter_7d);
@@ -46,6 +50,10 @@ public class TrendFragment extends Fragment {
         chartTemp = v.findViewById(R.id.chart_temp);
         chartHum = v.findViewById(R.id.chart_hum);
         chartGas = v.findViewById(R.id.chart_gas);
+        charts.clear();
+        charts.add(new TrendChart(chartTemp, "temperature", 0xFF165DFF)); // 温度图表使用#165DFF
+        charts.add(new TrendChart(chartHum, "humidity", 0xFF4BC0C0));     // 湿度图表使用#4BC0C0
+        charts.add(new TrendChart(chartGas, "gas", 0xFFFF7D00));          // 燃气浓度图表使用#FF7D00
         setupFilters();
         View back = v.findViewById(R.id.btn_back);
         if (back != null) back.setOnClickListener(view -> {
@@ -58,22 +66,22 @@ public class TrendFragment extends Fragment {
         btnToday.setOnClickListener(v -> {
             updateActiveButton(btnToday);
             updateTitle("今日数据变化");
-            applyRange(1, "5m");
+            applyRange(1);
         });
         btn3d.setOnClickListener(v -> {
             updateActiveButton(btn3d);
             updateTitle("近3天数据变化");
-            applyRange(72, "30m");
+            applyRange(72);
         });
         btn7d.setOnClickListener(v -> {
             updateActiveButton(btn7d);
             updateTitle("近7天数据变化");
-            applyRange(168, "6h");
+            applyRange(168);
         });
         // 默认选中"今日"按钮
         updateActiveButton(btnToday);
         updateTitle("今日数据变化");
-        applyRange(1, "5m");
+        applyRange(1);
     }
     
     private void updateActiveButton(MaterialButton activeButton) {
@@ -99,99 +107,68 @@ public class TrendFragment extends Fragment {
         }
     }
 
-    private void loadAgg(String sensorType, int hours, String bucket, LineChart chart) {
+    /**
+     * 本地时序存储已覆盖的区间直接本地读取，三种传感器缺失的部分合并为一次请求补拉；
+     * 全部就绪后在同一帧内刷新三张图，原始点交给图表按像素宽度降采样
+     */
+    private void applyRange(int hours) {
+        rangeHours = hours;
+        int gen = ++generation;
         long now = System.currentTimeMillis();
-        long fromMs = now - hours*3600L*1000L;
-        String to = iso(now);
-        String from = iso(fromMs);
-        client.getSensorHistoryAgg(null, sensorType, from, to, bucket)
+        long fromMs = now - hours*HOUR_MS;
+        List<String> types = new ArrayList<>();
+        for (TrendChart trend : charts) types.add(trend.sensorType);
+        disposables.add(history.ranges(types, fromMs, now)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(json -> {
+                .subscribe(ranges -> {
+                    if (gen != generation) return; // 已切换到其他区间
+                    for (TrendChart trend : charts) trend.show(fromMs, now, ranges.get(trend.sensorType));
+                }, err -> {
+                    Log.w(TAG, "加载趋势数据失败: " + err.getMessage());
+                    if (gen == generation) for (TrendChart trend : charts) trend.clear();
+                }));
+    }
+
+    /**
+     * 订阅实时读数：写入本地时序存储，并增量追加到对应图表
+     */
+    private void startLive() {
+        TimeSeriesStore store = history.getStore();
+        disposables.add(EventStreamManager.getInstance(requireContext()).sensorUpdates()
+                .doOnNext(p -> {
                     try {
-                        renderChart(chart, json);
+                        store.appendLive(p.getSensorType(), time(p), (float) p.getValue());
                     } catch (Exception e) {
-                        chart.clear();
+                        Log.w(TAG, "实时数据写入失败: " + e.getMessage());
+                    }
+                })
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(p -> {
+                    for (TrendChart trend : charts) {
+                        if (trend.sensorType.equals(p.getSensorType())) trend.append(time(p), (float) p.getValue());
                     }
-                }, err -> chart.clear());
+                }, err -> Log.w(TAG, "实时数据订阅失败: " + err.getMessage())));
     }
 
-    private void applyRange(int hours, String bucket) {
-        loadAgg("temperature", hours, bucket, chartTemp);
-        loadAgg("humidity", hours, bucket, chartHum);
-        loadAgg("gas", hours, bucket, chartGas);
+    private static long time(SensorPoint p) {
+        long t = Iso8601.parse(p.getTimestamp());
+        return t == Iso8601.INVALID ? System.currentTimeMillis() : t;
     }
 
-    private void renderChart(LineChart chart, String json) {
-        JsonElement root = com.google.gson.JsonParser.parseString(json);
-        List<Entry> entries = new ArrayList<>();
-        List<Long> xTimes = new ArrayList<>();
-        if (root.isJsonObject() && root.getAsJsonObject().has("data")) {
-            for (JsonElement el : root.getAsJsonObject().get("data").getAsJsonArray()) {
-                if (el.isJsonObject()) {
-                    JsonElement b = el.getAsJsonObject().get("bucket");
-                    JsonElement avg = el.getAsJsonObject().get("avg");
-                    if (b!=null && avg!=null) {
-                        long ts = parseIso(b.getAsString());
-                        float y = (float) avg.getAsDouble();
-                        entries.add(new Entry(entries.size(), y));
-                        xTimes.add(ts);
-                    }
-                }
-            }
-        }
-        LineDataSet set = new LineDataSet(entries, "趋势");
-        set.setDrawCircles(false);
-        // 根据不同图表设置不同线颜色
-        if (chart == chartTemp) {
-            set.setColor(0xFF165DFF); // 温度图表使用#165DFF
-        } else if (chart == chartHum) {
-            set.setColor(0xFF4BC0C0); // 湿度图表使用#4BC0C0
-        } else if (chart == chartGas) {
-            set.setColor(0xFFFF7D00); // 燃气浓度图表使用#FF7D00
-        } else {
-            set.setColor(0xFF4CAF50); // 默认颜色
-        }
-        set.setLineWidth(2f);
-        LineData data = new LineData(set);
-        chart.setData(data);
-        XAxis xAxis = chart.getXAxis();
-        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-        xAxis.setGranularity(1f);
-        xAxis.setValueFormatter(new ValueFormatter() {
-            @Override public String getFormattedValue(float value) {
-                int idx = Math.round(value);
-                if (idx>=0 && idx<xTimes.size()) {
-                    SimpleDateFormat fmt = new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault());
-                    fmt.setTimeZone(java.util.TimeZone.getTimeZone("Asia/Shanghai"));
-                    return fmt.format(new Date(xTimes.get(idx)));
-                }
-                return "";
-            }
-        });
-        chart.getDescription().setEnabled(false);
-        chart.getLegend().setEnabled(false);
-        chart.invalidate();
+    @Override
+    public void onStart() {
+        super.onStart();
+        startLive();
+        // 从后台回来时补上停止期间的数据（只补尾部）
+        if (stopped) applyRange(rangeHours);
+        stopped = false;
     }
 
-    private String iso(long ms) {
-        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
-        fmt.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-        return fmt.format(new Date(ms));
-    }
-    private long parseIso(String s) {
-        try {
-            SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
-            fmt.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-            return fmt.parse(s).getTime();
-        } catch (Exception e1) {
-            try {
-                SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
-                fmt.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-                return fmt.parse(s).getTime();
-            } catch (Exception e2) {
-                return System.currentTimeMillis();
-            }
-        }
+    @Override
+    public void onStop() {
+        super.onStop();
+        stopped = true;
+        disposables.clear();
     }
-}
\ No newline at end of file
+}
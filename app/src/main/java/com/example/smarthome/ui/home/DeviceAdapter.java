@@ -5,7 +5,10 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.databinding.DataBindingUtil;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.smarthome.R;
@@ -13,14 +16,21 @@ import com.example.smarthome.databinding.ItemDeviceBinding;
 import com.example.smarthome.model.DeviceItem;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * 设备列表适配器，用于在RecyclerView中显示设备信息
+ * 基于ListAdapter在后台线程计算差异，只刷新变化的行；仅数值/状态变化时做局部绑定
  */
-public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceViewHolder> {
+public class DeviceAdapter extends ListAdapter<DeviceItem, DeviceAdapter.DeviceViewHolder> {
 
-    private List<DeviceItem> deviceList = new ArrayList<>();
+    static final int PAYLOAD_VALUE = 1;
+    static final int PAYLOAD_STATE = 1 << 1;
+
+    private final Map<String, Long> stableIds = new HashMap<>();
     private OnDeviceClickListener deviceClickListener;
     private OnDeviceToggleListener deviceToggleListener;
 
@@ -33,8 +43,10 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
     }
 
     public DeviceAdapter(OnDeviceClickListener deviceClickListener, OnDeviceToggleListener deviceToggleListener) {
+        super(DIFF);
         this.deviceClickListener = deviceClickListener;
         this.deviceToggleListener = deviceToggleListener;
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -48,22 +60,46 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
 
     @Override
     public void onBindViewHolder(@NonNull DeviceViewHolder holder, int position) {
-        DeviceItem device = deviceList.get(position);
-        holder.bind(device);
+        holder.bind(getItem(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull DeviceViewHolder holder, int position, @NonNull List<Object> payloads) {
+        int mask = 0;
+        for (Object p : payloads) {
+            if (!(p instanceof Integer)) {
+                holder.bind(getItem(position));
+                return;
+            }
+            mask |= (Integer) p;
+        }
+        if (mask == 0) {
+            holder.bind(getItem(position));
+            return;
+        }
+        holder.bindPartial(getItem(position), mask);
     }
 
+    /**
+     * 以deviceId为键分配稳定ID，列表重排或刷新时行视图可复用
+     */
     @Override
-    public int getItemCount() {
-        return deviceList.size();
+    public long getItemId(int position) {
+        String key = getItem(position).getDeviceId();
+        Long id = stableIds.get(key);
+        if (id == null) {
+            id = (long) stableIds.size() + 1;
+            stableIds.put(key, id);
+        }
+        return id;
     }
 
     /**
-     * 设置设备列表数据
+     * 设置设备列表数据（差异在后台计算）
      * @param devices 设备列表
      */
     public void setDevices(List<DeviceItem> devices) {
-        this.deviceList = new ArrayList<>(devices);
-        notifyDataSetChanged();
+        submitList(devices == null ? null : new ArrayList<>(devices));
     }
 
     /**
@@ -71,8 +107,9 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
      * @param device 设备对象
      */
     public void addDevice(DeviceItem device) {
-        deviceList.add(device);
-        notifyItemInserted(deviceList.size() - 1);
+        List<DeviceItem> list = new ArrayList<>(getCurrentList());
+        list.add(device);
+        submitList(list);
     }
 
     /**
@@ -80,10 +117,11 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
      * @param updatedDevice 更新后的设备对象
      */
     public void updateDevice(DeviceItem updatedDevice) {
-        for (int i = 0; i < deviceList.size(); i++) {
-            if (deviceList.get(i).getDeviceId().equals(updatedDevice.getDeviceId())) {
-                deviceList.set(i, updatedDevice);
-                notifyItemChanged(i);
+        List<DeviceItem> list = new ArrayList<>(getCurrentList());
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getDeviceId().equals(updatedDevice.getDeviceId())) {
+                list.set(i, updatedDevice);
+                submitList(list);
                 break;
             }
         }
@@ -94,12 +132,9 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
      * @param deviceId 设备ID
      */
     public void removeDevice(String deviceId) {
-        for (int i = 0; i < deviceList.size(); i++) {
-            if (deviceList.get(i).getDeviceId().equals(deviceId)) {
-                deviceList.remove(i);
-                notifyItemRemoved(i);
-                break;
-            }
+        List<DeviceItem> list = new ArrayList<>(getCurrentList());
+        if (list.removeIf(d -> d.getDeviceId().equals(deviceId))) {
+            submitList(list);
         }
     }
 
@@ -108,9 +143,43 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
      * @return 当前设备列表
      */
     public List<DeviceItem> getDevices() {
-        return new ArrayList<>(deviceList);
+        return new ArrayList<>(getCurrentList());
     }
 
+    private static final DiffUtil.ItemCallback<DeviceItem> DIFF = new DiffUtil.ItemCallback<DeviceItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull DeviceItem a, @NonNull DeviceItem b) {
+            return Objects.equals(a.getDeviceId(), b.getDeviceId());
+        }
+
+        // lastUpdateTime 每次刷新都会变化，不参与比较
+        @Override
+        public boolean areContentsTheSame(@NonNull DeviceItem a, @NonNull DeviceItem b) {
+            return Objects.equals(a.getName(), b.getName())
+                    && Objects.equals(a.getType(), b.getType())
+                    && a.isOnline() == b.isOnline()
+                    && a.isActive() == b.isActive()
+                    && Objects.equals(a.getStatus(), b.getStatus())
+                    && Objects.equals(a.getValue(), b.getValue());
+        }
+
+        /**
+         * 名称/类型变化返回null走完整绑定；否则返回变化字段的位掩码
+         */
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull DeviceItem a, @NonNull DeviceItem b) {
+            if (!Objects.equals(a.getName(), b.getName()) || !Objects.equals(a.getType(), b.getType())) {
+                return null;
+            }
+            int mask = 0;
+            if (!Objects.equals(a.getValue(), b.getValue())) mask |= PAYLOAD_VALUE;
+            if (a.isOnline() != b.isOnline() || a.isActive() != b.isActive()
+                    || !Objects.equals(a.getStatus(), b.getStatus())) mask |= PAYLOAD_STATE;
+            return mask;
+        }
+    };
+
     /**
      * 设备视图持有者
      */
@@ -121,6 +190,19 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
         public DeviceViewHolder(@NonNull ItemDeviceBinding binding) {
             super(binding.getRoot());
             this.binding = binding;
+            // 监听器按当前位置取数据，局部绑定时无需重建
+            binding.setOnClickListener(v -> {
+                DeviceItem device = current();
+                if (device != null && deviceClickListener != null) {
+                    deviceClickListener.onDeviceClick(device);
+                }
+            });
+        }
+
+        @Nullable
+        private DeviceItem current() {
+            int pos = getBindingAdapterPosition();
+            return pos == RecyclerView.NO_POSITION ? null : getItem(pos);
         }
 
         /**
@@ -128,22 +210,41 @@ public class DeviceAdapter extends RecyclerView.Adapter<DeviceAdapter.DeviceView
          * @param device 设备对象
          */
         public void bind(final DeviceItem device) {
+            binding.switchDevice.setOnCheckedChangeListener(null);
             binding.setDevice(device);
-            binding.setOnClickListener(v -> {
-                if (deviceClickListener != null) {
-                    deviceClickListener.onDeviceClick(device);
-                }
-            });
+            binding.textViewDeviceData.setText(device.getFormattedValue());
+
+            // 刷新绑定
+            binding.executePendingBindings();
 
+            // 绑定完成后再设置开关监听，避免回填状态时误触发
+            listenToggle();
+        }
+
+        /**
+         * 局部绑定：只更新数值文本和/或开关、在线状态，不重新执行整行数据绑定
+         */
+        void bindPartial(final DeviceItem device, int mask) {
+            if ((mask & PAYLOAD_VALUE) != 0) {
+                binding.textViewDeviceData.setText(device.getFormattedValue());
+            }
+            if ((mask & PAYLOAD_STATE) != 0) {
+                binding.switchDevice.setOnCheckedChangeListener(null);
+                binding.switchDevice.setChecked(device.isActive());
+                binding.viewStatusIndicator.setVisibility(device.isOnline() ? View.VISIBLE : View.GONE);
+                binding.textViewDeviceType.setText(device.getFriendlyType() + ", " + (device.isOnline() ? "在线" : "离线"));
+                listenToggle();
+            }
+        }
+
+        private void listenToggle() {
             // 设置开关状态变化监听
             binding.switchDevice.setOnCheckedChangeListener((buttonView, isChecked) -> {
-                if (deviceToggleListener != null) {
+                DeviceItem device = current();
+                if (device != null && deviceToggleListener != null) {
                     deviceToggleListener.onDeviceToggle(device, isChecked);
                 }
             });
-
-            // 刷新绑定
-            binding.executePendingBindings();
         }
     }
-}
\ No newline at end of file
+}
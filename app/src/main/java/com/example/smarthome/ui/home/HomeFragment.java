@@ -37,6 +37,7 @@ public class HomeFragment extends Fragment {
     private HomeViewModel homeViewModel;
     private DeviceAdapter deviceAdapter;
     private SecurityEventAdapter securityAdapter;
+    private com.example.smarthome.model.SecurityEvent lastAlertedEvent;
     private List<DeviceItem> deviceList = new ArrayList<>();
     private boolean isRefreshing = false;
 
@@ -71,7 +72,9 @@ public class HomeFragment extends Fragment {
             if (events != null && binding != null) {
                 if (securityAdapter != null) securityAdapter.setItems(events);
                 int idx = events.size() - 1;
-                if (idx >= 0 && !events.get(idx).isHandled()) {
+                // 翻页加载更早事件也会重新发布列表，同一条事件只弹一次
+                if (idx >= 0 && !events.get(idx).isHandled() && events.get(idx) != lastAlertedEvent) {
+                    lastAlertedEvent = events.get(idx);
                     new AlertDialog.Builder(requireContext())
                             .setTitle("安全事件")
                             .setMessage(events.get(idx).getMessage())
@@ -99,6 +102,12 @@ public class HomeFragment extends Fragment {
         securityAdapter = new SecurityEventAdapter();
         binding.recyclerSecurity.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.recyclerSecurity.setAdapter(securityAdapter);
+        // 滑到顶部时从本地分页加载更早的安全事件
+        binding.recyclerSecurity.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy < 0 && !rv.canScrollVertically(-1)) homeViewModel.loadOlderSecurityEvents();
+            }
+        });
 
         // 设置下拉刷新
         binding.swipeRefreshLayout.setOnRefreshListener(this::refreshDevices);
@@ -112,15 +121,19 @@ public class HomeFragment extends Fragment {
         homeViewModel.loadDevices();
         homeViewModel.loadSensorSummary();
         homeViewModel.startSse();
-        // 简单响应式：定时刷新环境数据
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override public void run() {
-                if (binding != null) {
-                    homeViewModel.loadSensorSummary();
-                    new Handler(Looper.getMainLooper()).postDelayed(this, 5000);
-                }
-            }
-        }, 5000);
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        // 推送健康时不轮询；推送断开时自适应轮询
+        if (homeViewModel != null) homeViewModel.resumeSummaryRefresh();
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        if (homeViewModel != null) homeViewModel.pauseSummaryRefresh();
     }
 
     private void refreshDevices() {
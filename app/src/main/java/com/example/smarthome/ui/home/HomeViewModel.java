@@ -7,26 +7,32 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.smarthome.cache.LocalCache;
+import com.example.smarthome.model.Device;
 import com.example.smarthome.model.DeviceItem;
+import com.example.smarthome.model.SecurityEvent;
+import com.example.smarthome.model.SensorPoint;
 import com.example.smarthome.model.SensorSummary;
+import com.example.smarthome.supabase.EventStreamManager;
 import com.example.smarthome.supabase.SupabaseClient;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.example.smarthome.utils.RefreshScheduler;
+import com.example.smarthome.utils.RingBuffer;
 import com.example.smarthome.supabase.SupabaseClient;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.disposables.SerialDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 首页ViewModel
@@ -35,16 +41,37 @@ import java.util.concurrent.TimeUnit;
 public class HomeViewModel extends AndroidViewModel {
 
     private static final String TAG = "HomeViewModel";
+    private static final int EVENT_BUFFER_CAPACITY = 50;
+    private static final int EVENT_PAGE_SIZE = 50;
+    // 被挤出的事件接入已加载部分时，已加载部分最多保留这么多条（超出后丢弃最早的，需要时再从磁盘翻页）
+    private static final int MAX_PAGED_EVENTS = 4 * EVENT_PAGE_SIZE;
+    private static final long SUMMARY_TIMEOUT_MS = 4000;
+    private static final long SENSOR_TIMEOUT_MS = 4000;
+    private static final long SUMMARY_POLL_MIN_MS = 5000;
+    private static final long SUMMARY_POLL_MAX_MS = 60_000;
     private final MutableLiveData<List<DeviceItem>> deviceListLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> loadingLiveData = new MutableLiveData<>();
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
     private final MutableLiveData<SensorSummary> sensorSummaryLiveData = new MutableLiveData<>();
-    private final MutableLiveData<java.util.List<com.example.smarthome.model.SecurityEvent>> securityEventsLiveData = new MutableLiveData<>(new java.util.ArrayList<>());
+    private final MutableLiveData<List<SecurityEvent>> securityEventsLiveData = new MutableLiveData<>(Collections.emptyList());
+    // 内存中只保留最近的事件，更早的在磁盘上按需分页
+    private final Object eventLock = new Object();
+    private final RingBuffer<SecurityEvent> recentEvents = new RingBuffer<>(EVENT_BUFFER_CAPACITY);
+    private List<SecurityEvent> olderEvents = Collections.emptyList();
+    private volatile List<SecurityEvent> publishedEvents = Collections.emptyList();
+    private boolean loadingOlderEvents;
+    private boolean noOlderEvents;
     private final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
     private final CompositeDisposable disposables = new CompositeDisposable();
+    private final SerialDisposable summaryRequest = new SerialDisposable();
+    private Disposable sseDisposable;
+    private final RefreshScheduler summaryRefresh = new RefreshScheduler("summary", SUMMARY_POLL_MIN_MS, SUMMARY_POLL_MAX_MS, this::loadSensorSummary);
+    private volatile SensorSummary lastPolledSummary;
+    private SensorSummary currentSummary;
 
     public HomeViewModel(@NonNull Application application) {
         super(application);
+        loadCachedSecurityEvents();
     }
 
     /**
@@ -71,7 +98,10 @@ public class HomeViewModel extends AndroidViewModel {
     public MutableLiveData<SensorSummary> getSensorSummary() {
         return sensorSummaryLiveData;
     }
-    public MutableLiveData<java.util.List<com.example.smarthome.model.SecurityEvent>> getSecurityEvents() {
+    /**
+     * 安全事件（旧→新）的不可变快照
+     */
+    public MutableLiveData<List<SecurityEvent>> getSecurityEvents() {
         return securityEventsLiveData;
     }
 
@@ -82,216 +112,357 @@ public class HomeViewModel extends AndroidViewModel {
         loadingLiveData.setValue(true);
         errorLiveData.setValue(null);
         SupabaseClient client = SupabaseClient.getInstance(getApplication());
+        LocalCache cache = LocalCache.getInstance(getApplication());
         io.reactivex.rxjava3.schedulers.Schedulers.io().scheduleDirect(() -> {
+            // 先用本地缓存渲染，再后台刷新
+            List<Device> cached = null;
             try {
-                String json = client.getDevices().blockingGet();
-                List<DeviceItem> devices = new ArrayList<>();
-                Gson gson = new Gson();
-                JsonElement root = com.google.gson.JsonParser.parseString(json);
-                if (root.isJsonArray()) {
-                    JsonArray arr = root.getAsJsonArray();
-                    for (JsonElement el : arr) {
-                        JsonObject obj = el.getAsJsonObject();
-                        DeviceItem item = new DeviceItem();
-                        String deviceId = getStringSafe(obj, "device_id");
-                        if (deviceId == null) deviceId = getStringSafe(obj, "id");
-                        item.setDeviceId(deviceId);
-                        item.setName(getStringSafe(obj, "name"));
-                        String type = getStringSafe(obj, "device_type");
-                        if (type == null) type = getStringSafe(obj, "type");
-                        item.setType(type);
-                        // 在线：优先使用 status==online；否则回退 is_online
-                        boolean online = false;
-                        String status = getStringSafe(obj, "status");
-                        if (status != null) online = "online".equalsIgnoreCase(status);
-                        else online = getBooleanSafe(obj, "is_online");
-                        item.setOnline(online);
-
-                        // 运行：优先 is_active；否则 is_on；否则 active
-                        boolean active = getBooleanSafe(obj, "is_active");
-                        if (!active) active = getBooleanSafe(obj, "is_on");
-                        if (!active) active = getBooleanSafe(obj, "active");
-                        item.setActive(active);
-                        item.setStatus(item.isActive() ? "开启" : "关闭");
-                        item.setLastUpdateTime(System.currentTimeMillis());
-                        item.setValue(obj.has("latest_sensor_data") && !obj.get("latest_sensor_data").isJsonNull() ? obj.get("latest_sensor_data").getAsString() : null);
-                        devices.add(item);
-                    }
+                cached = cache.getDevices();
+                if (cached != null) {
+                    Log.d(TAG, "设备缓存命中 count=" + cached.size() + " ageMs=" + cache.getAgeMs(LocalCache.KEY_DEVICES));
+                    deviceListLiveData.postValue(toDeviceItems(cached));
+                    loadingLiveData.postValue(false);
                 }
-                deviceListLiveData.postValue(devices);
+            } catch (Exception ce) {
+                Log.e(TAG, "读取设备缓存失败: " + ce.getMessage());
+            }
+            try {
+                List<Device> remote = client.getDevices().blockingGet();
+                deviceListLiveData.postValue(toDeviceItems(remote));
                 loadingLiveData.postValue(false);
+                cache.putDevices(remote);
             } catch (Exception e) {
                 Log.e(TAG, "加载设备失败: " + e.getMessage());
-                errorLiveData.postValue("加载设备失败: " + e.getMessage());
+                if (cached == null) errorLiveData.postValue("加载设备失败: " + e.getMessage());
                 loadingLiveData.postValue(false);
             }
         });
     }
 
+    private List<DeviceItem> toDeviceItems(List<Device> remote) {
+        List<DeviceItem> devices = new ArrayList<>(remote.size());
+        for (Device d : remote) {
+            DeviceItem item = new DeviceItem();
+            item.setDeviceId(d.getDeviceId() != null ? d.getDeviceId() : d.getId());
+            item.setName(d.getName());
+            item.setType(d.getDeviceType());
+            item.setOnline(d.isOnline());
+            item.setActive(d.isOn());
+            item.setStatus(item.isActive() ? "开启" : "关闭");
+            item.setLastUpdateTime(System.currentTimeMillis());
+            item.setValue(d.getLatestSensorData());
+            devices.add(item);
+        }
+        return devices;
+    }
+
     /**
      * 加载传感器概览（温度/湿度/煤气）
+     * 优先中间件概览接口；失败时三项并发查询，单项超时/失败不影响其余项
+     * 新一次刷新开始时丢弃尚未完成的上一次刷新
      */
     public void loadSensorSummary() {
         SupabaseClient client = SupabaseClient.getInstance(getApplication());
-        executorService.execute(() -> {
-            try {
-                Double temp = null, hum = null, gas = null;
-
-                // 优先使用中间件的概览接口（一次性返回三项），失败时回退到逐项查询
-                boolean summaryOk = false;
-                try {
-                    String summaryJson = client.getSensorSummary().blockingGet();
-                    com.google.gson.JsonObject root = com.google.gson.JsonParser.parseString(summaryJson).getAsJsonObject();
-                    if (root.has("temperature")) temp = parseLatestValue(root.get("temperature").toString());
-                    if (root.has("humidity")) hum = parseLatestValue(root.get("humidity").toString());
-                    if (root.has("gas")) gas = parseLatestValue(root.get("gas").toString());
-                    summaryOk = true;
-                } catch (Exception se) {
-                    Log.e(TAG, "中间件概览获取失败: " + se.getMessage());
-                }
+        LocalCache cache = LocalCache.getInstance(getApplication());
+        boolean fromCache = sensorSummaryLiveData.getValue() == null;
+        summaryRequest.set(
+                Completable.fromAction(() -> { if (fromCache) postCachedSummary(cache); })
+                        .onErrorComplete()
+                        .andThen(fetchSummary(client).onErrorResumeNext(se -> {
+                            Log.e(TAG, "中间件概览获取失败: " + se.getMessage());
+                            return fetchEachSensor(client);
+                        }))
+                        .subscribeOn(Schedulers.io())
+                        .observeOn(Schedulers.io())
+                        .subscribe(r -> {
+                            if (r.error != null) errorLiveData.postValue("环境概览加载异常: " + r.error);
+                            SensorSummary next = new SensorSummary(valueOf(r.temp), valueOf(r.hum), valueOf(r.gas));
+                            summaryRefresh.onResult(!sameSummary(lastPolledSummary, next));
+                            lastPolledSummary = next;
+                            publishSummary(next);
+                            try {
+                                cache.putLatestSensor("temperature", r.temp);
+                                cache.putLatestSensor("humidity", r.hum);
+                                cache.putLatestSensor("gas", r.gas);
+                            } catch (Exception ce) {
+                                Log.e(TAG, "写入传感器缓存失败: " + ce.getMessage());
+                            }
+                        }, e -> {
+                            summaryRefresh.onResult(false);
+                            Log.e(TAG, "环境概览加载失败: " + e.getMessage());
+                            errorLiveData.postValue("加载环境概览失败: " + e.getMessage());
+                        }));
+    }
 
-                if (!summaryOk) {
+    /**
+     * 页面可见时恢复概览刷新：事件流健康时依赖推送，否则自适应轮询
+     */
+    public void resumeSummaryRefresh() {
+        summaryRefresh.resume();
+    }
+
+    /**
+     * 页面不可见/应用进入后台时暂停概览刷新
+     */
+    public void pauseSummaryRefresh() {
+        summaryRefresh.pause();
+        Log.d(TAG, summaryRefresh + " requests=" + SupabaseClient.getInstance(getApplication()).getTotalRequestCount());
+    }
+
+    public RefreshScheduler getSummaryRefreshScheduler() {
+        return summaryRefresh;
+    }
+
+    private static boolean sameSummary(SensorSummary a, SensorSummary b) {
+        if (a == null || b == null) return a == b;
+        return java.util.Objects.equals(a.getTemperature(), b.getTemperature())
+                && java.util.Objects.equals(a.getHumidity(), b.getHumidity())
+                && java.util.Objects.equals(a.getGas(), b.getGas());
+    }
+
+    private synchronized void publishSummary(SensorSummary summary) {
+        currentSummary = summary;
+        sensorSummaryLiveData.postValue(summary);
+    }
+
+    private void postCachedSummary(LocalCache cache) {
+        SensorSummary cached = new SensorSummary(valueOf(cache.getLatestSensor("temperature")),
+                valueOf(cache.getLatestSensor("humidity")), valueOf(cache.getLatestSensor("gas")));
+        if (cached.getTemperature() != null || cached.getHumidity() != null || cached.getGas() != null) {
+            publishSummary(cached);
+        }
+    }
+
+    /**
+     * 中间件概览接口（一次性返回三项）
+     */
+    private Single<SummaryResult> fetchSummary(SupabaseClient client) {
+        return client.getSensorSummary()
+                .subscribeOn(Schedulers.io())
+                .timeout(SUMMARY_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .map(summary -> new SummaryResult(first(summary.get("temperature")),
+                        first(summary.get("humidity")), first(summary.get("gas")), null));
+    }
+
+    /**
+     * 三项并发查询，允许部分结果
+     */
+    private Single<SummaryResult> fetchEachSensor(SupabaseClient client) {
+        return Single.zip(latest(client, "temperature", "温度"), latest(client, "humidity", "湿度"), latest(client, "gas", "煤气"),
+                (t, h, g) -> {
                     StringBuilder sb = new StringBuilder();
-                    try {
-                        String j = client.getLatestSensorValue("temperature").blockingGet();
-                        temp = parseLatestValue(j);
-                        Log.d(TAG, "温度最新值=" + temp);
-                    } catch (Exception te) {
-                        Log.e(TAG, "温度获取失败: " + te.getMessage());
-                        sb.append("温度失败: ").append(te.getMessage()).append("; ");
+                    for (SensorReading r : new SensorReading[]{t, h, g}) {
+                        if (r.error != null) sb.append(r.error).append("; ");
                     }
-                    try {
-                        String j = client.getLatestSensorValue("humidity").blockingGet();
-                        hum = parseLatestValue(j);
-                        Log.d(TAG, "湿度最新值=" + hum);
-                    } catch (Exception he) {
-                        Log.e(TAG, "湿度获取失败: " + he.getMessage());
-                        sb.append("湿度失败: ").append(he.getMessage()).append("; ");
-                    }
-                    try {
-                        String j = client.getLatestSensorValue("gas").blockingGet();
-                        gas = parseLatestValue(j);
-                        Log.d(TAG, "煤气最新值=" + gas);
-                    } catch (Exception ge) {
-                        Log.e(TAG, "煤气获取失败: " + ge.getMessage());
-                        sb.append("煤气失败: ").append(ge.getMessage()).append("; ");
-                    }
-                    if (sb.length() > 0) errorLiveData.postValue("环境概览加载异常: " + sb.toString());
-                }
+                    return new SummaryResult(t.point, h.point, g.point, sb.length() > 0 ? sb.toString() : null);
+                });
+    }
 
-                sensorSummaryLiveData.postValue(new SensorSummary(temp, hum, gas));
-            } catch (Exception e) {
-                Log.e(TAG, "环境概览加载失败: " + e.getMessage());
-                errorLiveData.postValue("加载环境概览失败: " + e.getMessage());
+    private Single<SensorReading> latest(SupabaseClient client, String sensorType, String label) {
+        return client.getLatestSensorValue(sensorType)
+                .subscribeOn(Schedulers.io())
+                .timeout(SENSOR_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .map(points -> {
+                    SensorPoint p = first(points);
+                    Log.d(TAG, label + "最新值=" + valueOf(p));
+                    return new SensorReading(p, null);
+                })
+                .onErrorReturn(e -> {
+                    String msg = e instanceof TimeoutException ? "超时" : e.getMessage();
+                    Log.e(TAG, label + "获取失败: " + msg);
+                    return new SensorReading(null, label + "失败: " + msg);
+                });
+    }
+
+    private static final class SensorReading {
+        final SensorPoint point;
+        final String error;
+
+        SensorReading(SensorPoint point, String error) {
+            this.point = point;
+            this.error = error;
+        }
+    }
+
+    private static final class SummaryResult {
+        final SensorPoint temp, hum, gas;
+        final String error;
+
+        SummaryResult(SensorPoint temp, SensorPoint hum, SensorPoint gas, String error) {
+            this.temp = temp;
+            this.hum = hum;
+            this.gas = gas;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 订阅应用级事件流（重复调用只保留一个订阅）
+     */
+    public void startSse() {
+        if (sseDisposable != null && !sseDisposable.isDisposed()) return;
+        EventStreamManager stream = EventStreamManager.getInstance(getApplication());
+        CompositeDisposable d = new CompositeDisposable();
+        d.add(stream.sensorSummaries().subscribe(this::publishSummary,
+                e -> Log.e(TAG, "概览事件订阅失败: " + e.getMessage())));
+        d.add(stream.sensorUpdates().subscribe(this::onSensorUpdate,
+                e -> Log.e(TAG, "传感器事件订阅失败: " + e.getMessage())));
+        d.add(stream.securityEvents().subscribe(this::onSecurityEvent,
+                e -> Log.e(TAG, "安全事件订阅失败: " + e.getMessage())));
+        d.add(stream.connectionState().subscribe(
+                state -> summaryRefresh.setPushHealthy(state == EventStreamManager.State.CONNECTED),
+                e -> Log.e(TAG, "事件流状态订阅失败: " + e.getMessage())));
+        sseDisposable = d;
+        disposables.add(d);
+    }
+
+    /**
+     * 单项实时读数合并进当前概览
+     */
+    private synchronized void onSensorUpdate(SensorPoint p) {
+        SensorSummary cur = currentSummary;
+        SensorSummary next = cur == null ? new SensorSummary()
+                : new SensorSummary(cur.getTemperature(), cur.getHumidity(), cur.getGas());
+        if ("temperature".equals(p.getSensorType())) next.setTemperature(p.getValue());
+        else if ("humidity".equals(p.getSensorType())) next.setHumidity(p.getValue());
+        else if ("gas".equals(p.getSensorType())) next.setGas(p.getValue());
+        else return;
+        publishSummary(next);
+    }
+
+    /**
+     * 新事件先落盘（拿到本地ID），再进入内存环形缓冲；被挤出的旧事件留在磁盘上，按需分页读回
+     */
+    private void onSecurityEvent(SecurityEvent ev) {
+        persistSecurityEvent(ev);
+        synchronized (eventLock) {
+            SecurityEvent evicted = recentEvents.add(ev);
+            // 已翻页加载过（或正在加载）更早的事件时，被挤出的事件接到已加载部分末尾，保持列表连续；
+            // 加载中若丢弃，回来的那页只含更早的ID，中间这段会从列表里消失
+            if (evicted != null && (!olderEvents.isEmpty() || loadingOlderEvents)) olderEvents = slide(olderEvents, evicted);
+            else if (evicted != null) noOlderEvents = false;
+            publishSecurityEvents();
+        }
+    }
+
+    public void markSecurityEventHandled(int index) {
+        SecurityEvent target;
+        synchronized (eventLock) {
+            List<SecurityEvent> list = publishedEvents;
+            if (index < 0 || index >= list.size()) return;
+            target = list.get(index);
+            SecurityEvent handled = target.withHandled(true);
+            if (!recentEvents.replace(e -> e == target, e -> handled)) {
+                List<SecurityEvent> older = new ArrayList<>(olderEvents);
+                int i = older.indexOf(target);
+                if (i >= 0) older.set(i, handled);
+                olderEvents = Collections.unmodifiableList(older);
             }
+            publishSecurityEvents();
+        }
+        long id = target.getId();
+        Schedulers.io().scheduleDirect(() -> {
+            try { LocalCache.getInstance(getApplication()).markSecurityEventHandled(id); }
+            catch (Exception ce) { Log.e(TAG, "更新安全事件缓存失败: " + ce.getMessage()); }
         });
     }
 
-    public void startSse() {
-        io.reactivex.rxjava3.schedulers.Schedulers.io().scheduleDirect(() -> {
+    /**
+     * 从磁盘加载比当前列表更早的一页安全事件（按本地ID键集分页）
+     */
+    public void loadOlderSecurityEvents() {
+        long beforeId;
+        synchronized (eventLock) {
+            if (loadingOlderEvents || noOlderEvents) return;
+            SecurityEvent oldest = olderEvents.isEmpty() ? recentEvents.oldest() : olderEvents.get(0);
+            if (oldest == null || oldest.getId() <= 0) return;
+            beforeId = oldest.getId();
+            loadingOlderEvents = true;
+        }
+        Schedulers.io().scheduleDirect(() -> {
+            List<SecurityEvent> page = Collections.emptyList();
             try {
-                String url = com.example.smarthome.supabase.SupabaseClient.getMiddlewareBaseUrl() + "/events";
-                okhttp3.OkHttpClient client = new okhttp3.OkHttpClient.Builder()
-                        .readTimeout(0, java.util.concurrent.TimeUnit.MILLISECONDS)
-                        .build();
-                okhttp3.Request req = new okhttp3.Request.Builder().url(url).get().build();
-                okhttp3.Response resp = client.newCall(req).execute();
-                if (resp.isSuccessful() && resp.body() != null) {
-                    okio.BufferedSource source = resp.body().source();
-                    String event = null;
-                    while (!source.exhausted()) {
-                        String line = source.readUtf8LineStrict();
-                        if (line.startsWith("event:")) { event = line.substring(6).trim(); }
-                        else if (line.startsWith("data:")) {
-                            String data = line.substring(5).trim();
-                            handleSseEvent(event, data);
-                            event = null;
-                        }
-                    }
+                page = LocalCache.getInstance(getApplication()).getSecurityEventsBefore(beforeId, EVENT_PAGE_SIZE);
+            } catch (Exception ce) {
+                Log.e(TAG, "读取更早安全事件失败: " + ce.getMessage());
+            }
+            synchronized (eventLock) {
+                loadingOlderEvents = false;
+                if (page.size() < EVENT_PAGE_SIZE) noOlderEvents = true;
+                if (!page.isEmpty()) {
+                    olderEvents = concat(page, olderEvents);
+                    publishSecurityEvents();
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "SSE连接失败: " + e.getMessage());
             }
         });
     }
 
-    private void handleSseEvent(String event, String data) {
-        try {
-            com.google.gson.JsonElement root = com.google.gson.JsonParser.parseString(data);
-            if ("sensor_summary".equals(event) && root.isJsonObject()) {
-                Double t = extractFirstValue(root.getAsJsonObject(), "temperature");
-                Double h = extractFirstValue(root.getAsJsonObject(), "humidity");
-                Double g = extractFirstValue(root.getAsJsonObject(), "gas");
-                sensorSummaryLiveData.postValue(new SensorSummary(t, h, g));
-            } else if ("security_event".equals(event) && root.isJsonObject()) {
-                com.google.gson.JsonObject obj = root.getAsJsonObject();
-                String type = obj.has("type") ? obj.get("type").getAsString() : "security";
-                String status = obj.has("status") ? obj.get("status").getAsString() : null;
-                String sensorType = obj.has("sensor_type") ? obj.get("sensor_type").getAsString() : null;
-                String dev = obj.has("device_id") ? obj.get("device_id").getAsString() : null;
-                String at = obj.has("timestamp") ? obj.get("timestamp").getAsString() : new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", java.util.Locale.getDefault()).format(new java.util.Date());
-                String msg;
-                if ("hall".equals(sensorType)) {
-                    msg = "门磁: " + ("open".equalsIgnoreCase(status)?"打开":"关闭");
-                } else {
-                    msg = obj.has("message") ? obj.get("message").getAsString() : "安全事件";
-                }
-                java.util.List<com.example.smarthome.model.SecurityEvent> list = securityEventsLiveData.getValue();
-                if (list == null) list = new java.util.ArrayList<>();
-                list.add(new com.example.smarthome.model.SecurityEvent(type, msg, at, dev));
-                securityEventsLiveData.postValue(list);
-            } else if ("alarm_event".equals(event) && root.isJsonObject()) {
-                String msg = root.getAsJsonObject().has("message") ? root.getAsJsonObject().get("message").getAsString() : "报警";
-                String at = root.getAsJsonObject().has("at") ? root.getAsJsonObject().get("at").getAsString() : new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", java.util.Locale.getDefault()).format(new java.util.Date());
-                String dev = root.getAsJsonObject().has("device_id") ? root.getAsJsonObject().get("device_id").getAsString() : null;
-                java.util.List<com.example.smarthome.model.SecurityEvent> list = securityEventsLiveData.getValue();
-                if (list == null) list = new java.util.ArrayList<>();
-                list.add(new com.example.smarthome.model.SecurityEvent("alarm", msg, at, dev));
-                securityEventsLiveData.postValue(list);
-            }
-        } catch (Exception e) { Log.e(TAG, "SSE事件处理失败: " + e.getMessage()); }
+    private void persistSecurityEvent(SecurityEvent e) {
+        try { LocalCache.getInstance(getApplication()).addSecurityEvent(e); }
+        catch (Exception ce) { Log.e(TAG, "写入安全事件缓存失败: " + ce.getMessage()); }
     }
 
-    public void markSecurityEventHandled(int index) {
-        java.util.List<com.example.smarthome.model.SecurityEvent> list = securityEventsLiveData.getValue();
-        if (list == null || index < 0 || index >= list.size()) return;
-        com.example.smarthome.model.SecurityEvent e = list.get(index);
-        e.setHandled(true);
-        securityEventsLiveData.postValue(list);
-    }
-
-    private Double extractFirstValue(com.google.gson.JsonObject obj, String key) {
-        try {
-            if (obj.has(key)) {
-                com.google.gson.JsonElement arr = obj.get(key);
-                if (arr.isJsonArray() && arr.getAsJsonArray().size() > 0) {
-                    com.google.gson.JsonObject rec = arr.getAsJsonArray().get(0).getAsJsonObject();
-                    if (rec.has("value")) return rec.get("value").getAsDouble();
-                }
-            }
-        } catch (Exception ignored) {}
-        return null;
-    }
-
-    private Double parseLatestValue(String json) {
-        try {
-            JsonElement root = com.google.gson.JsonParser.parseString(json);
-            if (root.isJsonArray()) {
-                JsonArray arr = root.getAsJsonArray();
-                if (arr.size() > 0) {
-                    JsonObject obj = arr.get(0).getAsJsonObject();
-                    if (obj.has("value") && !obj.get("value").isJsonNull()) {
-                        return obj.get("value").getAsDouble();
-                    }
-                    Log.e(TAG, "最新记录缺少value字段: " + obj.toString());
-                } else {
-                    Log.e(TAG, "未找到最新传感器记录");
+    private void loadCachedSecurityEvents() {
+        Schedulers.io().scheduleDirect(() -> {
+            try {
+                List<SecurityEvent> cached = LocalCache.getInstance(getApplication()).getSecurityEvents(EVENT_BUFFER_CAPACITY);
+                synchronized (eventLock) {
+                    if (cached.isEmpty() || recentEvents.size() > 0) return;
+                    for (SecurityEvent e : cached) recentEvents.add(e);
+                    publishSecurityEvents();
                 }
+            } catch (Exception ce) {
+                Log.e(TAG, "读取安全事件缓存失败: " + ce.getMessage());
             }
-        } catch (Exception e) {
-            Log.e(TAG, "解析最新传感器值失败: " + e.getMessage());
+        });
+    }
+
+    /**
+     * 发布不可变快照（调用方持有eventLock）
+     */
+    private void publishSecurityEvents() {
+        List<SecurityEvent> recent = recentEvents.snapshot();
+        List<SecurityEvent> all = olderEvents.isEmpty() ? recent : concat(olderEvents, recent);
+        publishedEvents = all;
+        securityEventsLiveData.postValue(all);
+    }
+
+    /**
+     * 把被挤出的事件接到已加载部分末尾；已达上限时同时丢掉最早的一条，窗口大小不随新事件增长
+     * 丢掉的仍在磁盘上，清除 noOlderEvents 以便再翻页读回；加载中不丢，否则回来的那页与剩余部分之间会缺一段
+     * （调用方持有eventLock）
+     */
+    private List<SecurityEvent> slide(List<SecurityEvent> older, SecurityEvent evicted) {
+        int drop = older.size() >= MAX_PAGED_EVENTS && !loadingOlderEvents ? 1 : 0;
+        if (drop > 0) noOlderEvents = false;
+        List<SecurityEvent> out = new ArrayList<>(older.size() - drop + 1);
+        out.addAll(older.subList(drop, older.size()));
+        out.add(evicted);
+        return Collections.unmodifiableList(out);
+    }
+
+    private static List<SecurityEvent> concat(List<SecurityEvent> a, List<SecurityEvent> b) {
+        List<SecurityEvent> out = new ArrayList<>(a.size() + b.size());
+        out.addAll(a);
+        out.addAll(b);
+        return Collections.unmodifiableList(out);
+    }
+
+    private SensorPoint first(List<SensorPoint> points) {
+        if (points == null || points.isEmpty()) {
+            Log.e(TAG, "未找到最新传感器记录");
+            return null;
+        }
+        SensorPoint p = points.get(0);
+        if (Double.isNaN(p.getValue())) {
+            Log.e(TAG, "最新记录缺少value字段");
+            return null;
         }
-        return null;
+        return p;
+    }
+
+    private static Double valueOf(SensorPoint p) {
+        return p == null || Double.isNaN(p.getValue()) ? null : p.getValue();
     }
 
     /**
@@ -407,14 +578,6 @@ public class HomeViewModel extends AndroidViewModel {
         return devices;
     }
 
-    private String getStringSafe(JsonObject obj, String key) {
-        return obj.has(key) && !obj.get(key).isJsonNull() ? obj.get(key).getAsString() : null;
-    }
-
-    private boolean getBooleanSafe(JsonObject obj, String key) {
-        return obj.has(key) && !obj.get(key).isJsonNull() && obj.get(key).getAsBoolean();
-    }
-
     /**
      * 添加新设备
      */
@@ -520,6 +683,8 @@ public class HomeViewModel extends AndroidViewModel {
     protected void onCleared() {
         super.onCleared();
         stopPeriodicRefresh();
+        summaryRefresh.pause();
+        summaryRequest.dispose();
         disposables.clear();
     }
     public void closeAlarm(String deviceId) {
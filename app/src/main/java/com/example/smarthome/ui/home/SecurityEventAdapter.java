@@ -5,27 +5,56 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.smarthome.R;
 import com.example.smarthome.model.SecurityEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
-public class SecurityEventAdapter extends RecyclerView.Adapter<SecurityEventAdapter.VH> {
-    private final List<SecurityEvent> items = new ArrayList<>();
+public class SecurityEventAdapter extends ListAdapter<SecurityEvent, SecurityEventAdapter.VH> {
+    static final Object PAYLOAD_HANDLED = "handled";
+
+    public SecurityEventAdapter() { super(DIFF); setHasStableIds(true); }
     @NonNull @Override public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_security_event, parent, false);
         return new VH(v);
     }
     @Override public void onBindViewHolder(@NonNull VH h, int pos) {
-        SecurityEvent e = items.get(pos);
-        String title = e.isHandled() ? ("[已处理] " + e.getMessage()) : e.getMessage();
-        h.title.setText(title);
+        SecurityEvent e = getItem(pos);
+        h.title.setText(title(e));
         h.subtitle.setText(e.getAt());
     }
-    @Override public int getItemCount() { return items.size(); }
-    public void setItems(List<SecurityEvent> list) { items.clear(); if (list!=null) items.addAll(list); notifyDataSetChanged(); }
+    @Override public void onBindViewHolder(@NonNull VH h, int pos, @NonNull List<Object> payloads) {
+        // 仅处理状态变化时只改标题
+        if (payloads.size() == 1 && payloads.get(0) == PAYLOAD_HANDLED) h.title.setText(title(getItem(pos)));
+        else onBindViewHolder(h, pos);
+    }
+    /** 本地ID（已入库）为稳定ID；未入库的事件退化为内容哈希 */
+    @Override public long getItemId(int pos) {
+        SecurityEvent e = getItem(pos);
+        return e.getId() > 0 ? e.getId() : -(Objects.hash(e.getType(), e.getMessage(), e.getAt(), e.getDeviceId()) & 0x7fffffffL) - 1;
+    }
+    public void setItems(List<SecurityEvent> list) { submitList(list == null ? null : new ArrayList<>(list)); }
+    private static String title(SecurityEvent e) { return e.isHandled() ? ("[已处理] " + e.getMessage()) : e.getMessage(); }
+
+    private static final DiffUtil.ItemCallback<SecurityEvent> DIFF = new DiffUtil.ItemCallback<SecurityEvent>() {
+        @Override public boolean areItemsTheSame(@NonNull SecurityEvent a, @NonNull SecurityEvent b) {
+            if (a.getId() > 0 || b.getId() > 0) return a.getId() == b.getId();
+            return Objects.equals(a.getType(), b.getType()) && Objects.equals(a.getAt(), b.getAt())
+                    && Objects.equals(a.getMessage(), b.getMessage()) && Objects.equals(a.getDeviceId(), b.getDeviceId());
+        }
+        @Override public boolean areContentsTheSame(@NonNull SecurityEvent a, @NonNull SecurityEvent b) {
+            return a.isHandled() == b.isHandled() && Objects.equals(a.getMessage(), b.getMessage()) && Objects.equals(a.getAt(), b.getAt());
+        }
+        @Nullable @Override public Object getChangePayload(@NonNull SecurityEvent a, @NonNull SecurityEvent b) {
+            return Objects.equals(a.getMessage(), b.getMessage()) && Objects.equals(a.getAt(), b.getAt()) ? PAYLOAD_HANDLED : null;
+        }
+    };
     static class VH extends RecyclerView.ViewHolder {
         TextView title, subtitle;
         VH(View v){ super(v); title=v.findViewById(R.id.text_event_title); subtitle=v.findViewById(R.id.text_event_subtitle);} }
-}
\ No newline at end of file
+}
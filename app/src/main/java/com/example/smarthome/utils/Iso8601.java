@@ -0,0 +1,229 @@
+package com.example.smarthome.utils;
+
+import java.util.TimeZone;
+
+/**
+ * ISO-8601 时间戳解析/格式化（无状态、线程安全）
+ * 解析直接扫描 CharSequence 的字符，不分配对象、不用异常做分支；格式化只分配结果字符串。
+ * 支持 yyyy-MM-dd'T'HH:mm[:ss[.SSSSSSSSS]] 加时区（Z、±HH、±HHMM、±HH:MM），日期与时间之间也可用空格（PostgreSQL 文本格式）；
+ * 不带时区的时间视为无效
+ */
+public final class Iso8601 {
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MS_PER_DAY = 86_400_000L;
+    // 0000-03-01 到 1970-01-01 的天数
+    private static final int DAYS_0000_TO_1970 = 719_468;
+    private static final int DAYS_PER_ERA = 146_097;
+
+    private Iso8601() {}
+
+    /**
+     * @return 毫秒时间戳；null 或格式不合法时返回 {@link #INVALID}，小数秒超过毫秒的部分截断
+     */
+    public static long parse(CharSequence s) {
+        if (s == null) return INVALID;
+        int n = s.length();
+        if (n < 17 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(13) != ':') return INVALID;
+        char sep = s.charAt(10);
+        if (sep != 'T' && sep != 't' && sep != ' ') return INVALID;
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59) return INVALID;
+        int i = 16;
+        int second = 0;
+        int millis = 0;
+        if (i < n && s.charAt(i) == ':') {
+            if (i + 3 > n) return INVALID;
+            second = digits(s, i + 1, 2);
+            if (second < 0 || second > 59) return INVALID;
+            i += 3;
+            if (i < n && (s.charAt(i) == '.' || s.charAt(i) == ',')) {
+                int start = ++i;
+                while (i < n && i - start < 9 && isDigit(s.charAt(i))) {
+                    if (i - start < 3) millis = millis * 10 + (s.charAt(i) - '0');
+                    i++;
+                }
+                int len = i - start;
+                if (len == 0) return INVALID;
+                for (int k = len; k < 3; k++) millis *= 10;
+            }
+        }
+        if (i >= n) return INVALID;
+        int offsetSeconds;
+        char z = s.charAt(i);
+        if (z == 'Z' || z == 'z') {
+            offsetSeconds = 0;
+            i++;
+        } else if (z == '+' || z == '-') {
+            int oh = digits(s, i + 1, 2);
+            if (oh < 0 || oh > 18) return INVALID;
+            i += 3;
+            int om = 0;
+            if (i < n) {
+                if (s.charAt(i) == ':') i++;
+                om = digits(s, i, 2);
+                if (om < 0 || om > 59) return INVALID;
+                i += 2;
+            }
+            offsetSeconds = (oh * 3600 + om * 60) * (z == '-' ? -1 : 1);
+        } else {
+            return INVALID;
+        }
+        if (i != n) return INVALID;
+        long secs = epochDay(year, month, day) * 86_400L + hour * 3600 + minute * 60 + second - offsetSeconds;
+        return secs * 1000 + millis;
+    }
+
+    /**
+     * UTC，毫秒精度：yyyy-MM-dd'T'HH:mm:ss.SSS'Z'
+     */
+    public static String format(long epochMs) {
+        char[] buf = new char[24];
+        write(buf, epochMs, true);
+        buf[23] = 'Z';
+        return new String(buf);
+    }
+
+    /**
+     * UTC，秒精度：yyyy-MM-dd'T'HH:mm:ss'Z'（设备端定时等只认到秒的场合）
+     */
+    public static String formatSeconds(long epochMs) {
+        char[] buf = new char[20];
+        write(buf, epochMs, false);
+        buf[19] = 'Z';
+        return new String(buf);
+    }
+
+    /**
+     * 追加到已有的 StringBuilder（可复用，不产生中间对象），格式同 {@link #format(long)}
+     */
+    public static void formatTo(long epochMs, StringBuilder out) {
+        long day = Math.floorDiv(epochMs, MS_PER_DAY);
+        int msOfDay = (int) (epochMs - day * MS_PER_DAY);
+        int ymd = civil(day);
+        int y = ymd >> 9;
+        pad2(out, y / 100);
+        pad2(out, y % 100).append('-');
+        pad2(out, ymd >> 5 & 0xf).append('-');
+        pad2(out, ymd & 0x1f).append('T');
+        pad2(out, msOfDay / 3_600_000).append(':');
+        pad2(out, msOfDay / 60_000 % 60).append(':');
+        pad2(out, msOfDay / 1000 % 60).append('.');
+        int ms = msOfDay % 1000;
+        out.append((char) ('0' + ms / 100));
+        pad2(out, ms % 100).append('Z');
+    }
+
+    /**
+     * 图表坐标轴标签：指定时区的 MM-dd HH:mm
+     */
+    public static String formatMonthDayTime(long epochMs, TimeZone zone) {
+        long local = epochMs + zone.getOffset(epochMs);
+        long day = Math.floorDiv(local, MS_PER_DAY);
+        int msOfDay = (int) (local - day * MS_PER_DAY);
+        int ymd = civil(day);
+        char[] buf = new char[11];
+        put2(buf, 0, ymd >> 5 & 0xf);
+        buf[2] = '-';
+        put2(buf, 3, ymd & 0x1f);
+        buf[5] = ' ';
+        put2(buf, 6, msOfDay / 3_600_000);
+        buf[8] = ':';
+        put2(buf, 9, msOfDay / 60_000 % 60);
+        return new String(buf);
+    }
+
+    /**
+     * 公历日期到 1970-01-01 起的天数（按 3 月为年首计算，闰日落在年末）
+     */
+    static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        int yoe = (int) (y - era * 400);
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * DAYS_PER_ERA + doe - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * {@link #epochDay} 的逆运算
+     * @return (年 << 9) | (月 << 5) | 日
+     */
+    static int civil(long epochDay) {
+        long z = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(z, DAYS_PER_ERA);
+        int doe = (int) (z - era * DAYS_PER_ERA);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int d = doy - (153 * mp + 2) / 5 + 1;
+        int m = mp < 10 ? mp + 3 : mp - 9;
+        int y = (int) (yoe + era * 400) + (m <= 2 ? 1 : 0);
+        return y << 9 | m << 5 | d;
+    }
+
+    /**
+     * 写入 yyyy-MM-dd'T'HH:mm:ss[.SSS]（不含时区）
+     */
+    private static void write(char[] buf, long epochMs, boolean millis) {
+        long day = Math.floorDiv(epochMs, MS_PER_DAY);
+        int msOfDay = (int) (epochMs - day * MS_PER_DAY);
+        int ymd = civil(day);
+        int y = ymd >> 9;
+        put2(buf, 0, y / 100);
+        put2(buf, 2, y % 100);
+        buf[4] = '-';
+        put2(buf, 5, ymd >> 5 & 0xf);
+        buf[7] = '-';
+        put2(buf, 8, ymd & 0x1f);
+        buf[10] = 'T';
+        put2(buf, 11, msOfDay / 3_600_000);
+        buf[13] = ':';
+        put2(buf, 14, msOfDay / 60_000 % 60);
+        buf[16] = ':';
+        put2(buf, 17, msOfDay / 1000 % 60);
+        if (millis) {
+            int ms = msOfDay % 1000;
+            buf[19] = '.';
+            buf[20] = (char) ('0' + ms / 100);
+            put2(buf, 21, ms % 100);
+        }
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * @return count 位十进制数；越界或含非数字时返回 -1
+     */
+    private static int digits(CharSequence s, int from, int count) {
+        if (from + count > s.length()) return -1;
+        int v = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static void put2(char[] buf, int at, int v) {
+        buf[at] = (char) ('0' + v / 10);
+        buf[at + 1] = (char) ('0' + v % 10);
+    }
+
+    private static StringBuilder pad2(StringBuilder out, int v) {
+        return out.append((char) ('0' + v / 10)).append((char) ('0' + v % 10));
+    }
+}
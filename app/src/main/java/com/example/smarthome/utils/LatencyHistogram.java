@@ -0,0 +1,86 @@
+package com.example.smarthome.utils;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的延迟直方图（毫秒，固定对数分桶），用于统计各数据源/通道的耗时分布
+ */
+public class LatencyHistogram {
+    private static final long[] BOUNDS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MS.length + 1);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumMs = new AtomicLong();
+    private final AtomicLong maxMs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    public void record(long ms) {
+        if (ms < 0) ms = 0;
+        int i = 0;
+        while (i < BOUNDS_MS.length && ms > BOUNDS_MS[i]) i++;
+        counts.incrementAndGet(i);
+        total.incrementAndGet();
+        sumMs.addAndGet(ms);
+        long prev;
+        do {
+            prev = maxMs.get();
+        } while (ms > prev && !maxMs.compareAndSet(prev, ms));
+    }
+
+    public void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    public long count() { return total.get(); }
+
+    public long failures() { return failures.get(); }
+
+    public long maxMs() { return maxMs.get(); }
+
+    public double meanMs() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sumMs.get() / n;
+    }
+
+    /**
+     * 分位数估计，返回所在分桶的上界（溢出桶返回最大观测值）
+     * @param q 0~1
+     */
+    public long percentileMs(double q) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(q * n);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], maxMs.get()) : maxMs.get();
+            }
+        }
+        return maxMs.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        total.set(0);
+        sumMs.set(0);
+        maxMs.set(0);
+        failures.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s n=%d fail=%d mean=%.0fms p50=%dms p90=%dms p99=%dms max=%dms",
+                name, count(), failures(), meanMs(), percentileMs(0.5), percentileMs(0.9), percentileMs(0.99), maxMs());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.smarthome.utils;
+
+/**
+ * Largest-Triangle-Three-Buckets 降采样
+ * 首尾两点固定保留，中间按时间等分成若干桶，每桶选与前一选中点、后一桶均值构成三角形面积最大的点；
+ * 为了不吞掉单点尖峰（如燃气浓度突增），每桶额外保留离选中点最远的极值点，所以每桶最多输出两个点
+ */
+public final class Lttb {
+    private Lttb() {}
+
+    /**
+     * 从 [from, to) 中挑选最多 threshold 个点
+     * @param times 时间戳，升序
+     * @return 选中点的下标，升序；点数不超过 threshold 时原样返回全部下标
+     */
+    public static int[] select(long[] times, float[] values, int from, int to, int threshold) {
+        int n = to - from;
+        if (n <= 0) return new int[0];
+        if (threshold < 3 || n <= threshold) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = from + i;
+            return all;
+        }
+        // 每桶最多两个点，桶数取一半
+        int bucketCount = Math.max(1, (threshold - 2) / 2);
+        double bucketSize = (double) (n - 2) / bucketCount;
+        long t0 = times[from];
+        int[] out = new int[bucketCount * 2 + 2];
+        int k = 0;
+        out[k++] = from;
+        int a = from;
+        for (int b = 0; b < bucketCount; b++) {
+            int start = from + 1 + (int) (b * bucketSize);
+            int end = from + 1 + (int) ((b + 1) * bucketSize);
+            // 下一桶均值（最后一桶用末点）
+            int nextStart = end;
+            int nextEnd = b == bucketCount - 1 ? to : Math.min(to, from + 1 + (int) ((b + 2) * bucketSize));
+            double avgT = 0, avgV = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgT += times[i] - t0;
+                avgV += values[i];
+            }
+            int cnt = nextEnd - nextStart;
+            avgT /= cnt;
+            avgV /= cnt;
+
+            double at = times[a] - t0, av = values[a];
+            double maxArea = -1;
+            int picked = start, lo = start, hi = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((at - avgT) * (values[i] - av) - (at - (times[i] - t0)) * (avgV - av));
+                if (area > maxArea) {
+                    maxArea = area;
+                    picked = i;
+                }
+                if (values[i] < values[lo]) lo = i;
+                if (values[i] > values[hi]) hi = i;
+            }
+            int extreme = Math.abs(values[hi] - values[picked]) >= Math.abs(values[lo] - values[picked]) ? hi : lo;
+            if (extreme != picked && extreme < picked) out[k++] = extreme;
+            out[k++] = picked;
+            if (extreme != picked && extreme > picked) out[k++] = extreme;
+            a = picked;
+        }
+        out[k++] = to - 1;
+        if (k == out.length) return out;
+        int[] trimmed = new int[k];
+        System.arraycopy(out, 0, trimmed, 0, k);
+        return trimmed;
+    }
+}
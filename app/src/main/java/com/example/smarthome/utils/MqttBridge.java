@@ -1,10 +1,13 @@
 package com.example.smarthome.utils;
 
 import android.util.Log;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
-import org.eclipse.paho.client.mqttv3.MqttCallback;
-import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 
@@ -12,12 +15,28 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
 import java.security.SecureRandom;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.CompletableEmitter;
+
+/**
+ * 应用侧MQTT连接（基于 MqttAsyncClient，全部异步）
+ * 连接/发布以 Completable 暴露，调用线程不会阻塞在broker I/O上；
+ * 未连接时发布的消息进入有界离线缓冲（满时丢弃最旧），连上后按序补发
+ */
 public class MqttBridge {
     private static final String TAG = "MqttBridge";
     private static final String BROKER = "ssl://a4e4f08b.ala.cn-hangzhou.emqxsl.cn:8883";
@@ -48,9 +67,43 @@ public class MqttBridge {
             + "MrY=\n"
             + "-----END CERTIFICATE-----\n";
 
+    private static final int OFFLINE_BUFFER = 100;
+    private static final int MAX_INFLIGHT = 64;
+    private static final int DECODE_QUEUE = 512;
+
     private static MqttBridge instance;
-    private MqttClient client;
-    private SSLSocketFactory sslFactory;
+    private volatile MqttAsyncClient client;
+    // 两种信任方式的 SSLSocketFactory 都只构建一次
+    private volatile SSLSocketFactory pinnedFactory;
+    private volatile SSLSocketFactory systemFactory;
+    // 内置CA连不上而系统信任库可以时记住，之后不再先试内置CA
+    private volatile boolean preferSystemTrust;
+    private Completable connecting;
+    private final ArrayDeque<PendingPublish> offline = new ArrayDeque<>();
+    private final MqttTopicRouter router = MqttTopicRouter.createDefault();
+    // 单线程保证同一设备消息的先后顺序；积压超过上限时丢弃最旧的消息
+    private final ThreadPoolExecutor decodeExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(DECODE_QUEUE), r -> new Thread(r, "mqtt-decode"), new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    private static final class PendingPublish {
+        final String topic;
+        final MqttMessage message;
+        final CompletableEmitter emitter;
+
+        PendingPublish(String topic, MqttMessage message, CompletableEmitter emitter) {
+            this.topic = topic;
+            this.message = message;
+            this.emitter = emitter;
+        }
+    }
+
+    private MqttBridge() {
+        // 某类消息有了第一个监听器才向broker订阅，最后一个监听器取消后退订
+        router.setSubscriptionListener(new MqttTopicRouter.SubscriptionListener() {
+            public void onActive(String filter, int qos) { subscribeFilter(filter, qos); }
+            public void onInactive(String filter) { unsubscribeFilter(filter); }
+        });
+    }
 
     public static synchronized MqttBridge getInstance() {
         if (instance == null) instance = new MqttBridge();
@@ -70,6 +123,23 @@ public class MqttBridge {
         return ctx.getSocketFactory();
     }
 
+    private SSLSocketFactory buildSystemSocketFactory() throws Exception {
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init((KeyStore) null);
+        ctx.init(null, tmf.getTrustManagers(), new SecureRandom());
+        return ctx.getSocketFactory();
+    }
+
+    private SSLSocketFactory socketFactory(boolean system) throws Exception {
+        if (system) {
+            if (systemFactory == null) systemFactory = buildSystemSocketFactory();
+            return systemFactory;
+        }
+        if (pinnedFactory == null) pinnedFactory = buildSocketFactory();
+        return pinnedFactory;
+    }
+
     private String brokerHost() {
         try {
             String s = BROKER.replace("ssl://", "");
@@ -103,95 +173,190 @@ public class MqttBridge {
         public java.net.Socket createSocket(java.net.InetAddress address, int port, java.net.InetAddress localAddress, int localPort) throws java.io.IOException { return withSni(delegate.createSocket(address, port, localAddress, localPort)); }
     }
 
-    private java.util.concurrent.CopyOnWriteArrayList<LightStatusListener> listeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+    /**
+     * 上行消息路由，按消息类型和设备ID订阅
+     */
+    public MqttTopicRouter router() { return router; }
 
-    public interface LightStatusListener {
-        void onLightStatus(String deviceId, int brightness, String colorTemp, String power);
+    private synchronized MqttAsyncClient client() throws MqttException {
+        if (client == null) {
+            client = new MqttAsyncClient(BROKER, CLIENT_ID, new MemoryPersistence());
+            client.setCallback(new MqttCallbackExtended() {
+                public void connectComplete(boolean reconnect, String serverURI) {
+                    try { Log.d(TAG, (reconnect ? "reconnected to " : "connected to ") + serverURI + " as " + CLIENT_ID); } catch (Exception ignored) {}
+                    // cleanSession下重连后订阅会丢失，每次连上都重新订阅
+                    try { subscribeRoutes(); } catch (Exception e) { try { Log.e(TAG, "subscribe failed: " + e.getMessage()); } catch (Exception ignored) {} }
+                    drainOffline();
+                }
+                public void connectionLost(Throwable cause) { try { Log.e(TAG, "connectionLost", cause); } catch (Exception ignored) {} }
+                public void messageArrived(String topic, MqttMessage message) {
+                    // 解码与分发放到专用线程，不占用Paho的回调线程
+                    if (topic != null) decodeExecutor.execute(() -> router.dispatch(topic, message.getPayload()));
+                }
+                public void deliveryComplete(IMqttDeliveryToken token) {}
+            });
+        }
+        return client;
     }
 
-    public void addLightStatusListener(LightStatusListener l){ if (!listeners.contains(l)) listeners.add(l); }
-    public void removeLightStatusListener(LightStatusListener l){ listeners.remove(l); }
+    private void subscribeRoutes() throws MqttException {
+        Map<String, Integer> active = router.activeFilters();
+        if (active.isEmpty()) return;
+        String[] filters = active.keySet().toArray(new String[0]);
+        int[] qos = new int[filters.length];
+        for (int i = 0; i < filters.length; i++) qos[i] = active.get(filters[i]);
+        client.subscribe(filters, qos);
+    }
+
+    /**
+     * 未连接时不订阅，连上后由 subscribeRoutes 统一订阅
+     */
+    private void subscribeFilter(String filter, int qos) {
+        if (!isConnected()) return;
+        try { client.subscribe(filter, qos); }
+        catch (Exception e) { try { Log.e(TAG, "subscribe " + filter + " failed: " + e.getMessage()); } catch (Exception ignored) {} }
+    }
 
-    private synchronized void ensureConnected() throws Exception {
-        if (client != null && client.isConnected()) return;
-        if (sslFactory == null) sslFactory = buildSocketFactory();
-        if (client == null) client = new MqttClient(BROKER, CLIENT_ID, new MemoryPersistence());
+    private void unsubscribeFilter(String filter) {
+        if (!isConnected()) return;
+        try { client.unsubscribe(filter); }
+        catch (Exception e) { try { Log.e(TAG, "unsubscribe " + filter + " failed: " + e.getMessage()); } catch (Exception ignored) {} }
+    }
+
+    private MqttConnectOptions options(boolean systemTrust) throws Exception {
         MqttConnectOptions opts = new MqttConnectOptions();
         opts.setUserName(USERNAME);
         opts.setPassword(PASSWORD.toCharArray());
         opts.setKeepAliveInterval(60);
         opts.setConnectionTimeout(30);
-        opts.setSocketFactory(sslFactory);
+        opts.setMaxInflight(MAX_INFLIGHT);
+        opts.setSocketFactory(socketFactory(systemTrust));
         opts.setAutomaticReconnect(true);
-        try { opts.setServerURIs(new String[]{BROKER}); } catch (Exception ignored) {}
-        client.setCallback(new MqttCallback() {
-            public void connectionLost(Throwable cause) { try { Log.e(TAG, "connectionLost", cause); } catch (Exception ignored) {} }
-            public void messageArrived(String topic, org.eclipse.paho.client.mqttv3.MqttMessage message) {
-                try {
-                    try { Log.d(TAG, "arrived topic=" + topic + " payload=" + new String(message.getPayload(), StandardCharsets.UTF_8)); } catch (Exception ignored) {}
-                    String t = topic==null?"":topic;
-                    if (t.contains("/in/status")) {
-                        String s = new String(message.getPayload(), StandardCharsets.UTF_8);
-                        com.google.gson.JsonObject obj = com.google.gson.JsonParser.parseString(s).getAsJsonObject();
-                        String deviceId = obj.has("device_id")?obj.get("device_id").getAsString():"";
-                        int b = obj.has("brightness_current")?obj.get("brightness_current").getAsInt():-1;
-                        String c = obj.has("color_temp_current")?obj.get("color_temp_current").getAsString():null;
-                        String p = obj.has("power_current")?obj.get("power_current").getAsString():null;
-                        for (LightStatusListener l:listeners){ try { l.onLightStatus(deviceId, b, c, p);} catch(Exception ignored){} }
-                    }
-                } catch (Exception ignored) {}
+        return opts;
+    }
+
+    /**
+     * 连接broker；已连接时立即完成，并发调用共享同一次连接尝试
+     * 先用内置CA，失败后改用系统信任库重试一次
+     */
+    public Completable connect() {
+        return Completable.defer(() -> {
+            synchronized (this) {
+                if (isConnected()) return Completable.complete();
+                if (connecting == null) {
+                    Completable attempt = preferSystemTrust
+                            ? connectWith(true)
+                            : connectWith(false).onErrorResumeNext(e -> {
+                                try { Log.e(TAG, "connect failed: " + e.getMessage() + ", retry with default trust store"); } catch (Exception ignored) {}
+                                return connectWith(true).doOnComplete(() -> preferSystemTrust = true);
+                            });
+                    connecting = attempt.doFinally(() -> { synchronized (MqttBridge.this) { connecting = null; } }).cache();
+                }
+                return connecting;
             }
-            public void deliveryComplete(IMqttDeliveryToken token) {}
         });
-        try {
-            client.connect(opts);
-            try { Log.d(TAG, "connected to broker " + BROKER + " as " + CLIENT_ID); } catch (Exception ignored) {}
-        } catch (Exception e) {
-            try { Log.e(TAG, "connect failed: " + e.getMessage()); Log.e(TAG, android.util.Log.getStackTraceString(e)); } catch (Exception ignored) {}
-            try {
-                SSLContext ctx = SSLContext.getInstance("TLS");
-                TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-                tmf.init((KeyStore) null);
-                ctx.init(null, tmf.getTrustManagers(), new SecureRandom());
-                SSLSocketFactory fallback = ctx.getSocketFactory();
-                MqttConnectOptions alt = new MqttConnectOptions();
-                alt.setUserName(USERNAME);
-                alt.setPassword(PASSWORD.toCharArray());
-                alt.setKeepAliveInterval(60);
-                alt.setConnectionTimeout(30);
-                alt.setSocketFactory(fallback);
-                alt.setAutomaticReconnect(true);
-                client.connect(alt);
-                try { Log.d(TAG, "connected to broker with default trust store"); } catch (Exception ignored2) {}
-            } catch (Exception e2) {
-                try { Log.e(TAG, "fallback connect failed: " + e2.getMessage()); Log.e(TAG, android.util.Log.getStackTraceString(e2)); } catch (Exception ignored3) {}
-                throw e;
+    }
+
+    private Completable connectWith(boolean systemTrust) {
+        return Completable.create(emitter -> {
+            MqttAsyncClient c = client();
+            if (c.isConnected()) {
+                emitter.onComplete();
+                return;
             }
-        }
-        try { client.subscribe("smarthome/+/in/status", 1); } catch (Exception ignored) {}
-        try { client.subscribe("smarthome/+/out/control", 0); } catch (Exception ignored) {}
+            c.connect(options(systemTrust), null, new IMqttActionListener() {
+                public void onSuccess(IMqttToken token) { emitter.onComplete(); }
+                public void onFailure(IMqttToken token, Throwable e) { emitter.tryOnError(e != null ? e : new IOException("MQTT连接失败")); }
+            });
+        });
     }
 
     public void connectAsync() {
-        new Thread(() -> {
-            try { ensureConnected(); } catch (Exception ignored) {}
-        }, "mqtt-connect").start();
+        connect().subscribe(() -> {}, e -> { try { Log.e(TAG, "connect failed: " + e.getMessage()); } catch (Exception ignored) {} });
     }
 
-    public boolean publishControl(String deviceId, String json) {
-        try {
-            ensureConnected();
-            String topic = "smarthome/" + deviceId + "/out/control";
-            try { Log.d(TAG, "publish topic=" + topic + " payload=" + json); } catch (Exception ignored) {}
+    /**
+     * 发布消息；QoS1时在broker确认后完成
+     * 未连接时先放入离线缓冲并触发连接，缓冲溢出被丢弃的消息以错误结束
+     */
+    public Completable publish(String topic, byte[] payload, int qos) {
+        return Completable.create(emitter -> {
+            MqttMessage msg = new MqttMessage(payload);
+            msg.setQos(qos);
+            msg.setRetained(false);
+            boolean buffered = false;
+            synchronized (offline) {
+                if (!isConnected()) {
+                    if (offline.size() >= OFFLINE_BUFFER) {
+                        offline.poll().emitter.tryOnError(new IOException("MQTT离线缓冲已满，消息被丢弃"));
+                    }
+                    offline.add(new PendingPublish(topic, msg, emitter));
+                    buffered = true;
+                }
+            }
+            if (buffered) {
+                // 检查与入队之间可能刚好连上，连接完成后再补发一次
+                connect().subscribe(this::drainOffline, e -> { try { Log.e(TAG, "connect failed: " + e.getMessage()); } catch (Exception ignored) {} });
+                return;
+            }
+            send(new PendingPublish(topic, msg, emitter));
+        });
+    }
+
+    /**
+     * 下发控制命令到 smarthome/&lt;id&gt;/out/control（QoS1，与中间件转发时一致）
+     * 不进离线缓冲：未连接或客户端拒绝时以 {@link NotSentException} 结束，此时消息没有交给Paho，可改走其他通道；
+     * 交给Paho后在broker确认时完成，之后的失败（或调用方超时）不代表消息没有送达
+     */
+    public Completable publishControl(String deviceId, String json) {
+        return Completable.create(emitter -> {
+            if (!isConnected()) {
+                emitter.tryOnError(new NotSentException("MQTT未连接", null));
+                return;
+            }
             MqttMessage msg = new MqttMessage(json.getBytes(StandardCharsets.UTF_8));
-            msg.setQos(0);
+            msg.setQos(1);
             msg.setRetained(false);
-            client.publish(topic, msg);
-            return true;
+            try {
+                client().publish("smarthome/" + deviceId + "/out/control", msg, null, new IMqttActionListener() {
+                    public void onSuccess(IMqttToken token) { emitter.onComplete(); }
+                    public void onFailure(IMqttToken token, Throwable e) { emitter.tryOnError(e != null ? e : new IOException("MQTT发布失败")); }
+                });
+            } catch (Exception e) {
+                emitter.tryOnError(new NotSentException("MQTT发布被拒绝: " + e.getMessage(), e));
+            }
+        });
+    }
+
+    /**
+     * 消息没有交给Paho（未连接、客户端拒绝），确定不会送达
+     */
+    public static class NotSentException extends IOException {
+        public NotSentException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private void send(PendingPublish p) {
+        if (p.emitter.isDisposed()) return;
+        try {
+            client().publish(p.topic, p.message, null, new IMqttActionListener() {
+                public void onSuccess(IMqttToken token) { p.emitter.onComplete(); }
+                public void onFailure(IMqttToken token, Throwable e) { p.emitter.tryOnError(e != null ? e : new IOException("MQTT发布失败")); }
+            });
         } catch (Exception e) {
-            return false;
+            p.emitter.tryOnError(e);
+        }
+    }
+
+    private void drainOffline() {
+        List<PendingPublish> pending;
+        synchronized (offline) {
+            pending = new ArrayList<>(offline);
+            offline.clear();
         }
+        for (PendingPublish p : pending) send(p);
     }
 
     public boolean isConnected(){ return client != null && client.isConnected(); }
-}
\ No newline at end of file
+}
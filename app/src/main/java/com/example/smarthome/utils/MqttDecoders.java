@@ -0,0 +1,59 @@
+package com.example.smarthome.utils;
+
+import com.example.smarthome.model.HallEvent;
+import com.example.smarthome.model.LightStatus;
+import com.example.smarthome.model.SecurityEvent;
+import com.example.smarthome.model.SensorPoint;
+import com.example.smarthome.supabase.SupabaseClient;
+
+import static com.example.smarthome.utils.MqttPayloadDecoder.*;
+
+/**
+ * 设备上行消息的解码器（与固件 sketch_oct3a.ino 发布的格式对应）
+ * 基于 {@link MqttPayloadDecoder} 直接读 byte[]，每个线程复用一个解码器实例；
+ * 设备ID优先取主题中的ID，负载中的 device_id 仅作兜底
+ */
+final class MqttDecoders {
+    private static final ThreadLocal<MqttPayloadDecoder> DECODER = ThreadLocal.withInitial(MqttPayloadDecoder::new);
+
+    private MqttDecoders() {}
+
+    static LightStatus lightStatus(String deviceId, byte[] payload) {
+        MqttPayloadDecoder d = parse(payload);
+        if (d == null) return null;
+        return new LightStatus(device(deviceId, d), (int) d.number(BRIGHTNESS, -1),
+                d.interned(COLOR_TEMP), d.interned(POWER), d.string(TIMESTAMP));
+    }
+
+    static HallEvent hallEvent(String deviceId, byte[] payload) {
+        MqttPayloadDecoder d = parse(payload);
+        if (d == null) return null;
+        boolean open = d.has(VALUE) ? d.number(VALUE, 0) == 1 : "magnet_missing".equals(d.interned(STATUS));
+        return new HallEvent(device(deviceId, d), open, d.string(TIMESTAMP));
+    }
+
+    static SensorPoint sensorPoint(String deviceId, byte[] payload) {
+        MqttPayloadDecoder d = parse(payload);
+        if (d == null) return null;
+        double v = d.number(VALUE, Double.NaN);
+        if (Double.isNaN(v)) return null;
+        return new SensorPoint(device(deviceId, d), SupabaseClient.canonicalSensorType(d.interned(SENSOR_TYPE)),
+                v, d.interned(UNIT), d.string(TIMESTAMP));
+    }
+
+    static SecurityEvent alarm(String deviceId, byte[] payload) {
+        MqttPayloadDecoder d = parse(payload);
+        if (d == null) return null;
+        String msg = d.string(MESSAGE);
+        return new SecurityEvent("alarm", msg != null ? msg : "报警", d.string(TIMESTAMP), device(deviceId, d));
+    }
+
+    private static MqttPayloadDecoder parse(byte[] payload) {
+        MqttPayloadDecoder d = DECODER.get();
+        return d.parse(payload) ? d : null;
+    }
+
+    private static String device(String fromTopic, MqttPayloadDecoder d) {
+        return fromTopic != null ? fromTopic : d.interned(DEVICE_ID);
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.smarthome.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 设备上行负载的流式解码器：直接扫描 byte[]，不生成整段String和JsonElement树
+ * 只识别固件会发的扁平字段（字段名预先编码为字节，按长度+字节比较匹配），
+ * 未知字段和嵌套对象/数组直接跳过；字段值只记录在负载中的区间，取值时才转换。
+ * device_id、sensor_type 等取值有限的字符串经驻留池复用同一个String实例。
+ * 实例可复用但非线程安全，每个解码线程持有一个
+ */
+final class MqttPayloadDecoder {
+    static final int DEVICE_ID = 0;
+    static final int BRIGHTNESS = 1;
+    static final int COLOR_TEMP = 2;
+    static final int POWER = 3;
+    static final int TIMESTAMP = 4;
+    static final int SENSOR_TYPE = 5;
+    static final int VALUE = 6;
+    static final int UNIT = 7;
+    static final int STATUS = 8;
+    static final int MESSAGE = 9;
+
+    private static final String[] FIELD_NAMES = {"device_id", "brightness_current", "color_temp_current",
+            "power_current", "timestamp", "sensor_type", "value", "unit", "status", "message"};
+    private static final byte[][] FIELDS = new byte[FIELD_NAMES.length][];
+    static {
+        for (int i = 0; i < FIELD_NAMES.length; i++) FIELDS[i] = FIELD_NAMES[i].getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final int KIND_ABSENT = 0;
+    private static final int KIND_STRING = 1;
+    private static final int KIND_NUMBER = 2;
+    private static final int KIND_LITERAL = 3;
+    private static final int KIND_ESCAPED = 4;
+
+    private static final int INTERN_SLOTS = 256;
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final int[] kind = new int[FIELDS.length];
+    private final int[] from = new int[FIELDS.length];
+    private final int[] to = new int[FIELDS.length];
+    private final byte[][] internKeys = new byte[INTERN_SLOTS][];
+    private final String[] internValues = new String[INTERN_SLOTS];
+    private byte[] buf;
+    private int pos;
+
+    /**
+     * 解析一条负载，之后用 has/string/number 取字段
+     * @return 是否为合法的JSON对象
+     */
+    boolean parse(byte[] payload) {
+        buf = payload;
+        pos = 0;
+        Arrays.fill(kind, KIND_ABSENT);
+        try {
+            skipWs();
+            if (next() != '{') return false;
+            skipWs();
+            if (peek() == '}') return true;
+            while (true) {
+                skipWs();
+                if (next() != '"') return false;
+                int keyFrom = pos;
+                int keyTo = skipString();
+                if (keyTo < 0) return false;
+                skipWs();
+                if (next() != ':') return false;
+                skipWs();
+                readValue(field(keyFrom, keyTo));
+                skipWs();
+                byte b = next();
+                if (b == '}') return true;
+                if (b != ',') return false;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    boolean has(int field) {
+        return kind[field] != KIND_ABSENT && !isNull(field);
+    }
+
+    /**
+     * 取值有限的字段（ID、类型、单位等），复用驻留的String
+     */
+    String interned(int field) {
+        if (!has(field)) return null;
+        if (kind[field] == KIND_ESCAPED) return unescape(from[field], to[field]);
+        int f = from[field], len = to[field] - f;
+        int h = 1;
+        for (int i = f; i < to[field]; i++) h = 31 * h + buf[i];
+        int slot = (h ^ (h >>> 16)) & (INTERN_SLOTS - 1);
+        byte[] key = internKeys[slot];
+        if (key != null && key.length == len && regionEquals(key, f)) return internValues[slot];
+        String s = new String(buf, f, len, StandardCharsets.UTF_8);
+        internKeys[slot] = Arrays.copyOfRange(buf, f, to[field]);
+        internValues[slot] = s;
+        return s;
+    }
+
+    /**
+     * 每条都不同的字段（时间戳、消息文本）
+     */
+    String string(int field) {
+        if (!has(field)) return null;
+        if (kind[field] == KIND_ESCAPED) return unescape(from[field], to[field]);
+        return new String(buf, from[field], to[field] - from[field], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 数值字段；字符串形式的数字也接受，无法解析时返回 fallback
+     */
+    double number(int field, double fallback) {
+        if (!has(field) || kind[field] == KIND_LITERAL || kind[field] == KIND_ESCAPED) return fallback;
+        double v = parseNumber(from[field], to[field]);
+        return Double.isNaN(v) ? fallback : v;
+    }
+
+    private boolean isNull(int field) {
+        return kind[field] == KIND_LITERAL && buf[from[field]] == 'n';
+    }
+
+    private int field(int keyFrom, int keyTo) {
+        int len = keyTo - keyFrom;
+        for (int i = 0; i < FIELDS.length; i++) {
+            byte[] name = FIELDS[i];
+            if (name.length == len && regionEquals(name, keyFrom)) return i;
+        }
+        return -1;
+    }
+
+    private boolean regionEquals(byte[] expected, int at) {
+        for (int i = 0; i < expected.length; i++) {
+            if (buf[at + i] != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private void readValue(int field) {
+        byte b = peek();
+        int start;
+        int k;
+        if (b == '"') {
+            pos++;
+            start = pos;
+            int end = skipString();
+            if (end < 0) throw new ArrayIndexOutOfBoundsException();
+            k = hasEscape(start, end) ? KIND_ESCAPED : KIND_STRING;
+            record(field, k, start, end);
+            return;
+        }
+        if (b == '{' || b == '[') {
+            skipNested();
+            return;
+        }
+        start = pos;
+        while (pos < buf.length && buf[pos] != ',' && buf[pos] != '}' && buf[pos] > ' ') pos++;
+        k = (b == 't' || b == 'f' || b == 'n') ? KIND_LITERAL : KIND_NUMBER;
+        record(field, k, start, pos);
+    }
+
+    private void record(int field, int k, int start, int end) {
+        if (field < 0) return;
+        kind[field] = k;
+        from[field] = start;
+        to[field] = end;
+    }
+
+    /**
+     * 跳过字符串内容（起始引号已读），返回结束引号位置
+     */
+    private int skipString() {
+        while (pos < buf.length) {
+            byte b = buf[pos++];
+            if (b == '\\') pos++;
+            else if (b == '"') return pos - 1;
+        }
+        return -1;
+    }
+
+    private void skipNested() {
+        int depth = 0;
+        do {
+            byte b = buf[pos++];
+            if (b == '"') skipString();
+            else if (b == '{' || b == '[') depth++;
+            else if (b == '}' || b == ']') depth--;
+        } while (depth > 0);
+    }
+
+    private boolean hasEscape(int start, int end) {
+        for (int i = start; i < end; i++) if (buf[i] == '\\') return true;
+        return false;
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        String raw = new String(buf, start, end - start, StandardCharsets.UTF_8);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 >= raw.length()) {
+                sb.append(c);
+                continue;
+            }
+            char e = raw.charAt(++i);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 < raw.length()) {
+                        sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                    break;
+                default: sb.append(e);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 快速路径：不超过15位有效数字、无指数时用整数尾数/10^n，结果与 Double.parseDouble 一致；
+     * 其余情况退回 Double.parseDouble
+     */
+    private double parseNumber(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0, fraction = 0;
+        boolean dot = false, any = false;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b >= '0' && b <= '9') {
+                any = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) digits++;
+                if (dot) fraction++;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                return slowNumber(start, end);
+            }
+        }
+        if (!any) return Double.NaN;
+        if (digits > 15 || fraction >= POW10.length) return slowNumber(start, end);
+        double v = fraction == 0 ? mantissa : mantissa / POW10[fraction];
+        return negative ? -v : v;
+    }
+
+    private double slowNumber(int start, int end) {
+        try {
+            return Double.parseDouble(new String(buf, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private byte next() {
+        return buf[pos++];
+    }
+
+    private byte peek() {
+        return buf[pos];
+    }
+
+    private void skipWs() {
+        while (pos < buf.length && buf[pos] <= ' ') pos++;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.smarthome.utils;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.smarthome.model.HallEvent;
+import com.example.smarthome.model.LightStatus;
+import com.example.smarthome.model.SecurityEvent;
+import com.example.smarthome.model.SensorPoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * MQTT消息路由
+ * 主题过滤器在注册时编入前缀树；消息到达时只匹配一次、解码一次成类型化消息，
+ * 再只分发给订阅了该消息类型且设备ID匹配（或不限设备）的监听器。
+ * 没有任何监听器关心的消息类型直接跳过解码；broker 侧也只订阅有监听器的过滤器
+ * （某类型的第一个监听器注册时订阅，最后一个取消时退订，见 {@link SubscriptionListener}）
+ */
+public class MqttTopicRouter {
+    private static final String TAG = "MqttTopicRouter";
+    private static final String ANY_DEVICE = "*";
+
+    /**
+     * 把负载解码为类型化消息
+     * @param deviceId 主题中 + 位置的设备ID
+     * @return null表示忽略该消息
+     */
+    public interface Decoder<T> {
+        T decode(String deviceId, byte[] payload) throws Exception;
+    }
+
+    public interface Listener<T> {
+        void onMessage(T message);
+    }
+
+    /**
+     * 过滤器需要/不再需要向broker订阅时回调（在路由器锁内调用，不应阻塞）
+     */
+    public interface SubscriptionListener {
+        void onActive(String filter, int qos);
+
+        void onInactive(String filter);
+    }
+
+    private static final class Route<T> {
+        final String filter;
+        final int qos;
+        final Class<T> type;
+        final Decoder<T> decoder;
+
+        Route(String filter, int qos, Class<T> type, Decoder<T> decoder) {
+            this.filter = filter;
+            this.qos = qos;
+            this.type = type;
+            this.decoder = decoder;
+        }
+    }
+
+    private final TopicTrie<Route<?>> trie = new TopicTrie<>();
+    private final ThreadLocal<List<String>> captures = ThreadLocal.withInitial(() -> new ArrayList<>(2));
+    private final List<Route<?>> routes = new CopyOnWriteArrayList<>();
+    private final Map<Class<?>, Map<String, List<Listener<?>>>> listeners = new ConcurrentHashMap<>();
+    // 每个消息类型的监听器数（受 this 保护），在 0 与 1 之间变化时订阅/退订该类型的过滤器
+    private final Map<Class<?>, Integer> listenerCounts = new HashMap<>();
+    private SubscriptionListener subscriptionListener;
+
+    /**
+     * smarthome 设备上行主题的默认路由
+     * 周期性的传感器读数用 QoS0（丢一条下一条很快就到），状态回报与告警类事件用 QoS1
+     */
+    public static MqttTopicRouter createDefault() {
+        MqttTopicRouter router = new MqttTopicRouter();
+        router.route("smarthome/+/in/status", 1, LightStatus.class, MqttDecoders::lightStatus);
+        router.route("smarthome/+/in/sensor/hall", 1, HallEvent.class, MqttDecoders::hallEvent);
+        router.route("smarthome/+/in/sensor/+", 0, SensorPoint.class, MqttDecoders::sensorPoint);
+        router.route("smarthome/+/in/alarm", 1, SecurityEvent.class, MqttDecoders::alarm);
+        return router;
+    }
+
+    /**
+     * 注册主题过滤器及其消息类型（QoS1）
+     */
+    public <T> void route(String filter, Class<T> type, Decoder<T> decoder) {
+        route(filter, 1, type, decoder);
+    }
+
+    /**
+     * 注册主题过滤器及其消息类型
+     * @param qos 向broker订阅时使用的QoS
+     */
+    public synchronized <T> void route(String filter, int qos, Class<T> type, Decoder<T> decoder) {
+        Route<T> route = new Route<>(filter, qos, type, decoder);
+        trie.put(filter, route);
+        routes.add(route);
+        if (subscriptionListener != null && listenerCounts.containsKey(type)) subscriptionListener.onActive(filter, qos);
+    }
+
+    public synchronized void setSubscriptionListener(@Nullable SubscriptionListener listener) {
+        this.subscriptionListener = listener;
+    }
+
+    /**
+     * 当前有监听器、需要向broker订阅的过滤器及其QoS（重连后重新订阅用）
+     */
+    public synchronized Map<String, Integer> activeFilters() {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        for (Route<?> r : routes) {
+            if (listenerCounts.containsKey(r.type)) out.put(r.filter, r.qos);
+        }
+        return out;
+    }
+
+    /**
+     * 订阅某类消息
+     * @param deviceId 只接收该设备的消息；null表示所有设备
+     * @return dispose即取消订阅
+     */
+    public <T> Disposable subscribe(Class<T> type, @Nullable String deviceId, Listener<T> listener) {
+        List<Listener<?>> list = listeners.computeIfAbsent(type, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(deviceId == null ? ANY_DEVICE : deviceId, k -> new CopyOnWriteArrayList<>());
+        list.add(listener);
+        retain(type);
+        return Disposable.fromAction(() -> {
+            list.remove(listener);
+            release(type);
+        });
+    }
+
+    private synchronized void retain(Class<?> type) {
+        Integer n = listenerCounts.get(type);
+        listenerCounts.put(type, n == null ? 1 : n + 1);
+        if (n != null || subscriptionListener == null) return;
+        for (Route<?> r : routes) {
+            if (r.type == type) subscriptionListener.onActive(r.filter, r.qos);
+        }
+    }
+
+    private synchronized void release(Class<?> type) {
+        Integer n = listenerCounts.get(type);
+        if (n == null) return;
+        if (n > 1) {
+            listenerCounts.put(type, n - 1);
+            return;
+        }
+        listenerCounts.remove(type);
+        if (subscriptionListener == null) return;
+        for (Route<?> r : routes) {
+            if (r.type == type) subscriptionListener.onInactive(r.filter);
+        }
+    }
+
+    /**
+     * 路由一条消息
+     * @return 是否有监听器收到
+     */
+    public boolean dispatch(String topic, byte[] payload) {
+        List<String> levels = captures.get();
+        levels.clear();
+        Route<?> route = trie.match(topic, levels);
+        if (route == null) return false;
+        String deviceId = levels.isEmpty() ? null : levels.get(0);
+        return deliver(route, deviceId, payload);
+    }
+
+    private <T> boolean deliver(Route<T> route, String deviceId, byte[] payload) {
+        Map<String, List<Listener<?>>> byDevice = listeners.get(route.type);
+        if (byDevice == null) return false;
+        List<Listener<?>> exact = deviceId != null ? byDevice.get(deviceId) : null;
+        List<Listener<?>> any = byDevice.get(ANY_DEVICE);
+        if ((exact == null || exact.isEmpty()) && (any == null || any.isEmpty())) return false;
+        T message;
+        try {
+            message = route.decoder.decode(deviceId, payload);
+        } catch (Exception e) {
+            Log.w(TAG, "消息解码失败 " + route.type.getSimpleName() + ": " + e.getMessage());
+            return false;
+        }
+        if (message == null) return false;
+        notify(exact, message);
+        notify(any, message);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void notify(List<Listener<?>> list, T message) {
+        if (list == null) return;
+        for (Listener<?> l : list) {
+            try {
+                ((Listener<T>) l).onMessage(message);
+            } catch (Exception e) {
+                Log.e(TAG, "监听器处理失败: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.smarthome.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 推送优先的自适应刷新调度
+ * 推送通道健康时不轮询；推送中断时回退到轮询：数据不变则间隔翻倍（不超过上限），数据变化则恢复最短间隔。
+ * refresh 是异步加载，下一次轮询在 {@link #onResult} 拿到结果后按新间隔安排；结果迟迟不来时按最长间隔兜底
+ * pause() 后不再触发任何刷新，用于页面不可见/应用进入后台
+ */
+public class RefreshScheduler {
+    private final String name;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final Runnable refresh;
+    private final Scheduler scheduler;
+    private final AtomicLong polls = new AtomicLong();
+
+    private boolean resumed;
+    private boolean pushHealthy;
+    private long intervalMs;
+    private Disposable pending;
+
+    public RefreshScheduler(String name, long minIntervalMs, long maxIntervalMs, Runnable refresh) {
+        this(name, minIntervalMs, maxIntervalMs, refresh, Schedulers.computation());
+    }
+
+    RefreshScheduler(String name, long minIntervalMs, long maxIntervalMs, Runnable refresh, Scheduler scheduler) {
+        this.name = name;
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+        this.refresh = refresh;
+        this.scheduler = scheduler;
+        this.intervalMs = minIntervalMs;
+    }
+
+    public synchronized void resume() {
+        if (resumed) return;
+        resumed = true;
+        schedule(intervalMs);
+    }
+
+    public synchronized void pause() {
+        resumed = false;
+        cancelPending();
+    }
+
+    /**
+     * 推送通道状态变化；从健康变为中断时立即补一次刷新
+     */
+    public synchronized void setPushHealthy(boolean healthy) {
+        if (pushHealthy == healthy) return;
+        pushHealthy = healthy;
+        if (healthy) {
+            cancelPending();
+        } else {
+            intervalMs = minIntervalMs;
+            schedule(0);
+        }
+    }
+
+    /**
+     * 一次刷新的结果，并从此刻起按调整后的间隔安排下一次轮询
+     * @param changed 数据是否与上次不同
+     */
+    public synchronized void onResult(boolean changed) {
+        intervalMs = changed ? minIntervalMs : Math.min(maxIntervalMs, intervalMs * 2);
+        schedule(intervalMs);
+    }
+
+    public synchronized boolean isPolling() { return resumed && !pushHealthy; }
+
+    public synchronized long getIntervalMs() { return intervalMs; }
+
+    public long getPollCount() { return polls.get(); }
+
+    private void schedule(long delayMs) {
+        cancelPending();
+        if (!resumed || pushHealthy) return;
+        pending = scheduler.scheduleDirect(this::fire, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire() {
+        synchronized (this) {
+            pending = null;
+            if (!resumed || pushHealthy) return;
+            polls.incrementAndGet();
+        }
+        synchronized (this) {
+            // 兜底：本次刷新没有回报结果（如被更新的刷新取代）时轮询也不会停
+            schedule(maxIntervalMs);
+        }
+        refresh.run();
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            pending.dispose();
+            pending = null;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return name + " polls=" + polls.get() + " intervalMs=" + intervalMs + " push=" + pushHealthy + " resumed=" + resumed;
+    }
+}
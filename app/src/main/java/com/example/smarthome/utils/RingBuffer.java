@@ -0,0 +1,88 @@
+package com.example.smarthome.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * 固定容量的线程安全环形缓冲，写满后覆盖最旧元素
+ * 对外只提供不可变快照，读方无需加锁
+ */
+public class RingBuffer<T> {
+    private final Object[] items;
+    private int head;
+    private int size;
+
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.items = new Object[capacity];
+    }
+
+    /**
+     * 追加元素
+     * @return 被挤出的最旧元素；未写满时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T add(T item) {
+        T evicted = null;
+        if (size == items.length) {
+            evicted = (T) items[head];
+        } else {
+            size++;
+        }
+        items[head] = item;
+        head = (head + 1) % items.length;
+        return evicted;
+    }
+
+    /**
+     * 替换第一个满足条件的元素
+     * @return 是否找到并替换
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean replace(Predicate<T> match, UnaryOperator<T> update) {
+        for (int i = 0; i < size; i++) {
+            int idx = index(i);
+            T cur = (T) items[idx];
+            if (match.test(cur)) {
+                items[idx] = update.apply(cur);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按写入顺序（旧→新）返回不可变快照
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> snapshot() {
+        List<T> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) out.add((T) items[index(i)]);
+        return Collections.unmodifiableList(out);
+    }
+
+    /**
+     * 最旧的元素；为空时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T oldest() {
+        return size == 0 ? null : (T) items[index(0)];
+    }
+
+    public synchronized int size() { return size; }
+
+    public int capacity() { return items.length; }
+
+    public synchronized void clear() {
+        java.util.Arrays.fill(items, null);
+        head = 0;
+        size = 0;
+    }
+
+    private int index(int i) {
+        return (head - size + i + items.length) % items.length;
+    }
+}
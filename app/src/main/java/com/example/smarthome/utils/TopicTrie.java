@@ -0,0 +1,88 @@
+package com.example.smarthome.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MQTT主题过滤器前缀树，支持 + 与 # 通配
+ * 过滤器在注册时拆分一次，匹配时按层级逐级查找，不做正则或子串扫描；
+ * 同一主题命中多个过滤器时返回最具体的那个（字面量 &gt; + &gt; #）
+ */
+public class TopicTrie<V> {
+
+    private static final class Node<V> {
+        // 每层的字面量分支很少（in/out、status/sensor），线性比较比哈希查找更省：无需截取子串
+        final List<String> levels = new ArrayList<>();
+        final List<Node<V>> children = new ArrayList<>();
+        Node<V> single;
+        Node<V> multi;
+        V value;
+    }
+
+    private final Node<V> root = new Node<>();
+
+    /**
+     * 注册过滤器；应在开始匹配前注册完毕，匹配过程不加锁
+     */
+    public synchronized void put(String filter, V value) {
+        Node<V> node = root;
+        String[] levels = filter.split("/", -1);
+        for (int i = 0; i < levels.length; i++) {
+            String level = levels[i];
+            if ("#".equals(level)) {
+                if (i != levels.length - 1) throw new IllegalArgumentException("# must be the last level: " + filter);
+                if (node.multi == null) node.multi = new Node<>();
+                node = node.multi;
+            } else if ("+".equals(level)) {
+                if (node.single == null) node.single = new Node<>();
+                node = node.single;
+            } else {
+                int idx = node.levels.indexOf(level);
+                Node<V> next;
+                if (idx >= 0) {
+                    next = node.children.get(idx);
+                } else {
+                    next = new Node<>();
+                    node.levels.add(level);
+                    node.children.add(next);
+                }
+                node = next;
+            }
+        }
+        node.value = value;
+    }
+
+    /**
+     * 查找匹配主题的值
+     * @param captures 非null时按顺序填入被 + 匹配的层级（如设备ID）
+     * @return 最具体的匹配值；无匹配返回null
+     */
+    public V match(String topic, List<String> captures) {
+        return match(root, topic, 0, captures);
+    }
+
+    private V match(Node<V> node, String topic, int start, List<String> captures) {
+        if (start > topic.length()) {
+            return node.value != null ? node.value : node.multi != null ? node.multi.value : null;
+        }
+        int end = topic.indexOf('/', start);
+        if (end < 0) end = topic.length();
+        int len = end - start;
+        for (int i = 0; i < node.levels.size(); i++) {
+            String level = node.levels.get(i);
+            if (level.length() == len && topic.regionMatches(start, level, 0, len)) {
+                V v = match(node.children.get(i), topic, end + 1, captures);
+                if (v != null) return v;
+                break;
+            }
+        }
+        if (node.single != null) {
+            int mark = captures != null ? captures.size() : 0;
+            if (captures != null) captures.add(topic.substring(start, end));
+            V v = match(node.single, topic, end + 1, captures);
+            if (v != null) return v;
+            if (captures != null) captures.subList(mark, captures.size()).clear();
+        }
+        return node.multi != null ? node.multi.value : null;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.smarthome;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * 单元测试里的简易基准工具：预热后多轮计时，统计每次操作的耗时、分配字节与峰值堆占用
+ * 计时结果受机器负载影响，不作断言；基准默认跳过，需显式开启：./gradlew test -Psmarthome.benchmark=true
+ */
+public final class Benchmarks {
+    public static final String PROPERTY = "smarthome.benchmark";
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 5;
+
+    public interface Op {
+        Object run() throws Exception;
+    }
+
+    private Benchmarks() {}
+
+    /**
+     * 未开启时让当前测试以 assumption failure 跳过（不算失败）
+     */
+    public static void assumeEnabled() {
+        Assume.assumeTrue("基准测试默认跳过，用 -P" + PROPERTY + "=true 开启", Boolean.getBoolean(PROPERTY));
+    }
+
+    /**
+     * @param opsPerRun 每调用一次 op 完成的操作数（如解码的消息条数），用于折算到每次操作
+     */
+    public static Result measure(String name, long opsPerRun, Op op) throws Exception {
+        for (int i = 0; i < WARMUP; i++) op.run();
+        Result r = new Result(name, opsPerRun * ITERATIONS);
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            System.gc();
+            long baseline = rt.totalMemory() - rt.freeMemory();
+            HeapSampler sampler = new HeapSampler();
+            sampler.start();
+            long alloc0 = allocatedBytes();
+            long t0 = System.nanoTime();
+            r.value = op.run();
+            r.nanos += System.nanoTime() - t0;
+            r.allocated += allocatedBytes() - alloc0;
+            sampler.halt();
+            r.peak = Math.max(r.peak, sampler.peak - baseline);
+        }
+        return r;
+    }
+
+    public static void report(String title, Result... results) {
+        System.out.println(title);
+        for (Result r : results) System.out.println("  " + r);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    public static final class Result {
+        public final String name;
+        final long ops;
+        long nanos;
+        long allocated;
+        long peak;
+        /** 最后一轮 op 的返回值，用于核对各实现的结果一致 */
+        public Object value;
+
+        Result(String name, long ops) {
+            this.name = name;
+            this.ops = ops;
+        }
+
+        public double nanosPerOp() {
+            return (double) nanos / ops;
+        }
+
+        public double opsPerSecond() {
+            return ops * 1e9 / nanos;
+        }
+
+        /** JVM 不支持线程分配统计时为 0 */
+        public double bytesPerOp() {
+            return (double) allocated / ops;
+        }
+
+        public double peakMiB() {
+            return peak / 1048576.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-16s %12.1f ns/op %12.0f ops/s %12.1f B/op %8.2f MiB peak",
+                    name, nanosPerOp(), opsPerSecond(), bytesPerOp(), peakMiB());
+        }
+    }
+
+    private static final class HeapSampler extends Thread {
+        volatile boolean running = true;
+        volatile long peak;
+
+        HeapSampler() {
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            Runtime rt = Runtime.getRuntime();
+            while (running) {
+                peak = Math.max(peak, rt.totalMemory() - rt.freeMemory());
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void halt() throws InterruptedException {
+            running = false;
+            join();
+        }
+    }
+}
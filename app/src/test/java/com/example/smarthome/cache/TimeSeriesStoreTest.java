@@ -0,0 +1,82 @@
+package com.example.smarthome.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class TimeSeriesStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final long T0 = 1_760_000_100_000L; // 按5分钟对齐
+
+    private static void write(TimeSeriesStore store, long from, long to, long step) throws Exception {
+        int n = (int) ((to - from) / step) + 1;
+        long[] t = new long[n];
+        float[] v = new float[n];
+        for (int i = 0; i < n; i++) {
+            t[i] = from + i * step;
+            v[i] = (float) (t[i] - T0) / 1000f;
+        }
+        store.write("gas", t, v, n, from, to);
+    }
+
+    @Test
+    public void headAndTailWrites_mergeIntoOneOrderedSeries() throws Exception {
+        TimeSeriesStore store = new TimeSeriesStore(tmp.getRoot());
+        write(store, T0 + 3_600_000, T0 + 7_200_000, 1000);   // 中间一小时
+        write(store, T0, T0 + 3_600_000, 1000);               // 头部补齐（含边界重复点）
+        write(store, T0 + 7_200_000, T0 + 10_800_000, 1000);  // 尾部追加
+
+        assertEquals(T0, store.coveredFrom("gas"));
+        assertEquals(T0 + 10_800_000, store.coveredTo("gas"));
+        TimeSeriesStore.Range all = store.range("gas", T0, T0 + 10_800_000);
+        assertEquals(10_801, all.size());
+        for (int i = 1; i < all.size(); i++) assertTrue(all.times[i] > all.times[i - 1]);
+
+        TimeSeriesStore.Range slice = store.range("gas", T0 + 5_000, T0 + 9_000);
+        assertEquals(5, slice.size());
+        assertEquals(5f, slice.values[0], 0f);
+    }
+
+    @Test
+    public void buckets_aggregateLocally() throws Exception {
+        TimeSeriesStore store = new TimeSeriesStore(tmp.getRoot());
+        write(store, T0, T0 + 599_000, 1000);
+        TimeSeriesStore.Buckets b = store.buckets("gas", T0, T0 + 599_000, 300_000);
+        assertEquals(2, b.size());
+        assertEquals(300, b.count[0]);
+        assertEquals(0f, b.min[0], 0f);
+        assertEquals(299f, b.max[0], 0f);
+        assertEquals(149.5f, b.avg[0], 1e-3f);
+        assertEquals(T0 + 300_000, b.start[1]);
+    }
+
+    @Test
+    public void reopen_restoresSegmentsAndCoverage() throws Exception {
+        File dir = tmp.getRoot();
+        write(new TimeSeriesStore(dir), T0, T0 + 9_999_000, 1000);
+        TimeSeriesStore reopened = new TimeSeriesStore(dir);
+        assertEquals(T0, reopened.coveredFrom("gas"));
+        assertEquals(10_000, reopened.range("gas", T0, T0 + 9_999_000).size());
+        assertTrue(reopened.appendLive("gas", T0 + 10_000_000, 1f));
+        assertFalse(reopened.appendLive("gas", T0 + 10_000_000, 2f));
+        assertEquals(T0 + 10_000_000, reopened.coveredTo("gas"));
+        // 与已同步区间之间隔太久，可能漏了推送，不写入
+        assertFalse(reopened.appendLive("gas", T0 + 10_000_000 + TimeSeriesStore.LIVE_MAX_GAP_MS + 1, 3f));
+    }
+
+    @Test
+    public void disjointWrite_dropsOldCoverage() throws Exception {
+        TimeSeriesStore store = new TimeSeriesStore(tmp.getRoot());
+        write(store, T0, T0 + 60_000, 1000);
+        write(store, T0 + 3_600_000, T0 + 3_660_000, 1000);
+        assertEquals(T0 + 3_600_000, store.coveredFrom("gas"));
+        assertEquals(0, store.range("gas", T0, T0 + 60_000).size());
+    }
+}
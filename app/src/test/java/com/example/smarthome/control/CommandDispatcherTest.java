@@ -0,0 +1,92 @@
+package com.example.smarthome.control;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class CommandDispatcherTest {
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final List<String> wire = new ArrayList<>();
+
+    private CommandDispatcher dispatcher(long latencyMs) {
+        // 发出即记入 wire：即使调用方不再等待，已发出的命令也会到达设备
+        return new CommandDispatcher((id, payload) -> Single.defer(() -> {
+            String s = id + ":" + payload.get("command") + "=" + payload.get("value");
+            wire.add(s);
+            return Single.timer(latencyMs, TimeUnit.MILLISECONDS, scheduler).map(t -> s);
+        }), 100, scheduler);
+    }
+
+    private static Map<String, Object> cmd(String command, Object value) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("command", command);
+        m.put("value", value);
+        return m;
+    }
+
+    @Test
+    public void burstWithinWindow_sendsOnlyLastValue() {
+        CommandDispatcher d = dispatcher(10);
+        TestObserver<String> first = d.submit("light1", cmd("brightness", 10)).test();
+        d.submit("light1", cmd("brightness", 20)).test();
+        TestObserver<String> last = d.submit("light1", cmd("brightness", 30)).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of("light1:brightness=30"), wire);
+        first.assertValue("light1:brightness=30");
+        last.assertValue("light1:brightness=30");
+        assertEquals(1, d.getStats().sent);
+        assertEquals(2, d.getStats().coalesced);
+    }
+
+    @Test
+    public void perDeviceOrder_keepsLatestIntentOrder() {
+        CommandDispatcher d = dispatcher(10);
+        d.submit("light1", cmd("brightness", 10)).test();
+        d.submit("light1", cmd("power", "OFF")).test();
+        d.submit("light1", cmd("brightness", 50)).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of("light1:power=OFF", "light1:brightness=50"), wire);
+    }
+
+    @Test
+    public void supersededInFlight_newValueWaitsForIt() {
+        CommandDispatcher d = dispatcher(500);
+        TestObserver<String> old = d.submit("light1", cmd("brightness", 10)).test();
+        scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS); // 已发出，尚未返回
+        TestObserver<String> mid = d.submit("light1", cmd("brightness", 90)).test();
+        d.submit("light1", cmd("brightness", 95)).test();
+        scheduler.advanceTimeBy(300, TimeUnit.MILLISECONDS);
+        assertEquals(List.of("light1:brightness=10"), wire); // 在途命令返回前不发新值
+        old.assertNoValues();
+
+        scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+        assertEquals(List.of("light1:brightness=10", "light1:brightness=95"), wire);
+        old.assertValue("light1:brightness=95");
+        mid.assertValue("light1:brightness=95");
+        assertEquals(1, d.getStats().superseded);
+        assertEquals(1, d.getStats().coalesced);
+        assertEquals(2, d.getStats().sent);
+    }
+
+    @Test
+    public void devicesAreIndependent() {
+        CommandDispatcher d = dispatcher(10);
+        d.submit("a", cmd("power", "ON")).test();
+        d.submit("b", cmd("power", "ON")).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(2, wire.size());
+    }
+}
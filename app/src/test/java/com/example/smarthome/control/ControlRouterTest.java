@@ -0,0 +1,113 @@
+package com.example.smarthome.control;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class ControlRouterTest {
+
+    private final TestScheduler clock = new TestScheduler();
+    private final List<String> wire = new ArrayList<>();
+
+    private ControlTransport transport(String name, boolean available, boolean fails) {
+        return new ControlTransport() {
+            @Override public String name() { return name; }
+            @Override public boolean isAvailable() { return available; }
+            @Override public Single<String> send(String deviceId, Map<String, Object> payload) {
+                return Single.fromCallable(() -> {
+                    if (fails) throw new IOException(name + " down");
+                    wire.add(name + ":" + deviceId);
+                    return name;
+                });
+            }
+        };
+    }
+
+    private static Map<String, Object> cmd() {
+        return cmd("POWER");
+    }
+
+    private static Map<String, Object> cmd(String command) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("command", command);
+        m.put("value", "ON");
+        return m;
+    }
+
+    @Test
+    public void connectedMqtt_isPreferred() {
+        ControlRouter r = new ControlRouter(transport("mqtt", true, false), transport("http", true, false), clock);
+        r.send("light1", cmd()).test().assertValue("mqtt");
+        assertEquals(List.of("mqtt:light1"), wire);
+    }
+
+    @Test
+    public void disconnectedOrFailingMqtt_fallsBackToHttp() {
+        new ControlRouter(transport("mqtt", false, false), transport("http", true, false), clock)
+                .send("light1", cmd()).test().assertValue("http");
+        ControlRouter failing = new ControlRouter(transport("mqtt", true, true), transport("http", true, false), clock);
+        failing.send("light1", cmd()).test().assertValue("http");
+        assertEquals(List.of("http:light1", "http:light1"), wire);
+        assertEquals(1, failing.getFallbackCount());
+    }
+
+    @Test
+    public void statusAck_recordedPerTransport() {
+        ControlRouter r = new ControlRouter(transport("mqtt", true, false), transport("http", true, false), clock);
+        r.onStatus("light1"); // 主动上报：记下该设备会回报状态，本身不计入
+        r.send("light1", cmd()).test();
+        clock.advanceTimeBy(120, TimeUnit.MILLISECONDS);
+        r.onStatus("light1");
+        r.onStatus("light1"); // 无待确认命令的回报忽略
+
+        assertEquals(1, r.getAckLatency().get("mqtt").count());
+        assertEquals(120, r.getAckLatency().get("mqtt").maxMs());
+        assertEquals(0, r.getAckLatency().get("http").count());
+
+        r.send("light1", cmd()).test();
+        clock.advanceTimeBy(ControlRouter.ACK_TIMEOUT_MS + 1, TimeUnit.MILLISECONDS);
+        r.onStatus("light1");
+        assertEquals(1, r.getAckLatency().get("mqtt").failures());
+    }
+
+    @Test
+    public void statusAck_onlyForEchoedCommands_pairedInOrder() {
+        ControlRouter r = new ControlRouter(transport("mqtt", true, false), transport("http", true, false), clock);
+        // 从未回报过状态的设备不等待确认
+        r.send("buzzer1", cmd("BUZZ_OFF")).test();
+        r.send("humidifier1", cmd("POWER")).test();
+
+        r.onStatus("light1");
+        r.send("light1", cmd("TIMER_SET")).test(); // 不触发回报的命令不等待确认
+        r.send("light1", cmd("brightness")).test();
+        clock.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        r.send("light1", cmd("color_temp")).test();
+        clock.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        r.onStatus("light1");
+        r.onStatus("light1");
+        r.onStatus("light1");
+
+        assertEquals(2, r.getAckLatency().get("mqtt").count());
+        assertEquals(150, r.getAckLatency().get("mqtt").maxMs());
+        assertEquals(0, r.getAckLatency().get("mqtt").failures());
+    }
+
+    @Test
+    public void envelope_matchesMiddlewareFormat() {
+        Map<String, Object> msg = MqttControlTransport.envelope(cmd(), "req-1");
+        assertEquals("POWER", msg.get("command"));
+        assertEquals("ON", msg.get("value"));
+        assertEquals(Map.of("value", "ON"), msg.get("parameters"));
+        assertEquals("req-1", msg.get("requestId"));
+    }
+}
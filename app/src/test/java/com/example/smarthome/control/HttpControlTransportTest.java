@@ -0,0 +1,131 @@
+package com.example.smarthome.control;
+
+import com.example.smarthome.model.CommandResult;
+import com.example.smarthome.model.DeviceCommand;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class HttpControlTransportTest {
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final List<String> singles = new ArrayList<>();
+    private final List<List<DeviceCommand>> batches = new ArrayList<>();
+
+    private final CommandDispatcher.Sender single = (id, payload) -> Single.fromCallable(() -> {
+        singles.add(id);
+        return "single:" + id;
+    });
+
+    private static Map<String, Object> cmd(String command) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("command", command);
+        return m;
+    }
+
+    @Test
+    public void commandsWithinWindow_goOutAsOneBatch() {
+        HttpControlTransport t = new HttpControlTransport(single, commands -> Single.fromCallable(() -> {
+            batches.add(commands);
+            List<CommandResult> out = new ArrayList<>();
+            for (DeviceCommand c : commands) {
+                boolean ok = !c.getDeviceId().equals("humidifier1");
+                out.add(new CommandResult(c.getDeviceId(), ok, ok ? "r-" + c.getDeviceId() : null, ok ? null : "offline"));
+            }
+            return out;
+        }), scheduler);
+
+        TestObserver<String> light = t.send("light1", cmd("TIMER_SET")).test();
+        TestObserver<String> buzzer = t.send("buzzer1", cmd("BUZZ_OFF")).test();
+        TestObserver<String> humidifier = t.send("humidifier1", cmd("HUMIDIFY_OFF")).test();
+        scheduler.advanceTimeBy(HttpControlTransport.BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertTrue(singles.isEmpty());
+        assertTrue(light.values().get(0).contains("r-light1"));
+        buzzer.assertValueCount(1);
+        humidifier.assertError(e -> e instanceof IOException && "offline".equals(e.getMessage()));
+    }
+
+    @Test
+    public void loneCommand_usesSingleEndpoint() {
+        HttpControlTransport t = new HttpControlTransport(single, commands -> Single.error(new AssertionError()), scheduler);
+        TestObserver<String> to = t.send("light1", cmd("POWER")).test();
+        scheduler.advanceTimeBy(HttpControlTransport.BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+        to.assertValue("single:light1");
+    }
+
+    @Test
+    public void missingBatchEndpoint_fallsBackToSingles() {
+        HttpControlTransport t = new HttpControlTransport(single, commands -> Single.fromCallable(() -> {
+            batches.add(commands);
+            throw new IOException("HTTP 404: Not Found");
+        }), scheduler);
+        TestObserver<String> a = t.send("a", cmd("X")).test();
+        TestObserver<String> b = t.send("b", cmd("X")).test();
+        scheduler.advanceTimeBy(HttpControlTransport.BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+        a.assertValue("single:a");
+        b.assertValue("single:b");
+
+        // 之后直接逐条发送，不再尝试批量
+        t.send("c", cmd("X")).test();
+        t.send("d", cmd("X")).test();
+        scheduler.advanceTimeBy(HttpControlTransport.BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+        assertEquals(1, batches.size());
+        assertEquals(List.of("a", "b", "c", "d"), singles);
+    }
+
+    @Test
+    public void batchResults_areMatchedByDeviceId() {
+        HttpControlTransport t = new HttpControlTransport(single, commands -> Single.fromCallable(() -> {
+            List<CommandResult> out = new ArrayList<>();
+            for (int i = commands.size() - 1; i >= 0; i--) {
+                String id = commands.get(i).getDeviceId();
+                out.add(new CommandResult(id, true, "r-" + id + "-" + i, null));
+            }
+            return out;
+        }), scheduler);
+
+        TestObserver<String> a1 = t.send("a", cmd("X")).test();
+        TestObserver<String> b = t.send("b", cmd("X")).test();
+        TestObserver<String> a2 = t.send("a", cmd("Y")).test();
+        scheduler.advanceTimeBy(HttpControlTransport.BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+
+        assertTrue(b.values().get(0).contains("r-b-1"));
+        // 同一设备的多条结果按先后顺序对应
+        assertTrue(a1.values().get(0).contains("r-a-2"));
+        assertTrue(a2.values().get(0).contains("r-a-0"));
+    }
+
+    @Test
+    public void mismatchedBatchResults_failEveryWaiter() {
+        HttpControlTransport t = new HttpControlTransport(single, commands -> Single.just(
+                List.of(new CommandResult("a", true, "r-a", null))), scheduler);
+        TestObserver<String> a = t.send("a", cmd("X")).test();
+        TestObserver<String> b = t.send("b", cmd("X")).test();
+        scheduler.advanceTimeBy(HttpControlTransport.BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+        a.assertError(IOException.class);
+        b.assertError(IOException.class);
+
+        HttpControlTransport unknown = new HttpControlTransport(single, commands -> Single.just(List.of(
+                new CommandResult("a", true, "r-a", null), new CommandResult("z", true, "r-z", null))), scheduler);
+        TestObserver<String> c = unknown.send("a", cmd("X")).test();
+        TestObserver<String> d = unknown.send("b", cmd("X")).test();
+        scheduler.advanceTimeBy(HttpControlTransport.BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+        c.assertError(IOException.class);
+        d.assertError(IOException.class);
+    }
+}
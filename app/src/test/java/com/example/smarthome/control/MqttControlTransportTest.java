@@ -0,0 +1,47 @@
+package com.example.smarthome.control;
+
+import com.example.smarthome.utils.MqttBridge;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class MqttControlTransportTest {
+
+    private final TestScheduler scheduler = new TestScheduler();
+
+    private MqttControlTransport transport(Completable publish) {
+        return new MqttControlTransport((id, json) -> publish, () -> true, scheduler);
+    }
+
+    @Test
+    public void notHandedOff_failsSoRouterCanFallBack() {
+        transport(Completable.error(new MqttBridge.NotSentException("MQTT未连接", null)))
+                .send("light1", Map.of("command", "power")).test()
+                .assertError(MqttBridge.NotSentException.class);
+    }
+
+    @Test
+    public void handedOff_ackTimeoutOrFailure_isSentNotResent() {
+        TestObserver<String> slow = transport(Completable.never()).send("light1", Map.of("command", "power")).test();
+        scheduler.advanceTimeBy(MqttControlTransport.PUBLISH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        slow.assertComplete();
+        assertTrue(slow.values().get(0).contains("\"acked\":false"));
+
+        TestObserver<String> lost = transport(Completable.error(new IOException("connection lost")))
+                .send("light1", Map.of("command", "power")).test();
+        lost.assertComplete();
+        assertTrue(lost.values().get(0).contains("\"acked\":false"));
+
+        TestObserver<String> acked = transport(Completable.complete()).send("light1", Map.of("command", "power")).test();
+        assertTrue(acked.values().get(0).contains("\"acked\":true"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.smarthome.control;
+
+import com.example.smarthome.model.Device;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class SceneEngineTest {
+
+    private final TestScheduler scheduler = new TestScheduler();
+
+    private static Device device(String id, String type, String name) {
+        Device d = new Device();
+        d.setDeviceId(id);
+        d.setDeviceType(type);
+        d.setName(name);
+        return d;
+    }
+
+    @Test
+    public void run_retriesTransientFailures_andAggregates() {
+        List<Device> devices = List.of(device("light1", "Light", "客厅灯"), device("buzzer1", "buzzer", "蜂鸣器"), device("door1", "sensor", "门磁传感器"));
+        Map<String, AtomicInteger> attempts = new HashMap<>();
+        CommandDispatcher.Sender commands = (id, payload) -> Single.fromCallable(() -> {
+            int n = attempts.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+            if (id.equals("light1") && n < 3) throw new IOException("connection reset");
+            if (id.equals("buzzer1")) throw new IOException("HTTP 404: device not found");
+            return "ok";
+        });
+        List<String> configs = new ArrayList<>();
+        CommandDispatcher.Sender config = (id, payload) -> Single.fromCallable(() -> {
+            configs.add(id + ":" + payload.get("action"));
+            return "ok";
+        });
+        SceneEngine engine = new SceneEngine(() -> Single.just(devices), commands, config, scheduler);
+
+        TestObserver<SceneResult> to = engine.run(Scene.HOME).test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        SceneResult r = to.assertComplete().values().get(0);
+        assertEquals(2, r.succeeded);
+        assertEquals(1, r.failed);
+        assertTrue(r.failures.get(0).startsWith("buzzer1: HTTP 404"));
+        assertEquals(3, attempts.get("light1").get());
+        assertEquals(1, attempts.get("buzzer1").get());
+        assertEquals(List.of("door1:disable"), configs);
+        // 两次退避 200ms + 400ms
+        assertEquals(600, r.latencyMs);
+        assertEquals(1, engine.getLatency().count());
+    }
+
+    @Test
+    public void run_boundsConcurrency() {
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < 10; i++) devices.add(device("light" + i, "light", "灯" + i));
+        AtomicInteger inFlight = new AtomicInteger();
+        CommandDispatcher.Sender never = (id, payload) -> Single.<String>never().doOnSubscribe(d -> inFlight.incrementAndGet());
+        SceneEngine engine = new SceneEngine(() -> Single.just(devices), never, never, scheduler);
+
+        engine.run(Scene.WAKE).test();
+        scheduler.triggerActions();
+        assertEquals(SceneEngine.MAX_CONCURRENCY, inFlight.get());
+    }
+
+    @Test
+    public void run_slowActionIsNotResubscribed() {
+        List<Device> devices = List.of(device("door1", "sensor", "门磁传感器"));
+        AtomicInteger attempts = new AtomicInteger();
+        CommandDispatcher.Sender slow = (id, payload) -> Single.<String>never().doOnSubscribe(d -> attempts.incrementAndGet());
+        SceneEngine engine = new SceneEngine(() -> Single.just(devices), slow, slow, scheduler);
+
+        TestObserver<SceneResult> to = engine.run(Scene.HOME).test();
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        to.assertNotComplete();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void isTransient_classifiesErrors() {
+        assertFalse(SceneEngine.isTransient(new TimeoutException()));
+        assertTrue(SceneEngine.isTransient(new IOException("HTTP 503: busy")));
+        assertTrue(SceneEngine.isTransient(new IOException("timeout")));
+        assertFalse(SceneEngine.isTransient(new IOException("HTTP 400: bad payload")));
+        assertFalse(SceneEngine.isTransient(new IllegalStateException()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.smarthome.net;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+public class HttpStackTest {
+
+    private static void get(OkHttpClient client, MockWebServer server) throws Exception {
+        try (Response r = client.newCall(new Request.Builder().url(server.url("/devices")).build()).execute()) {
+            assertEquals(200, r.code());
+            r.body().string();
+        }
+    }
+
+    @Test
+    public void derivedClients_shareOnePool() throws Exception {
+        HttpStack stack = new HttpStack();
+        OkHttpClient base = stack.client();
+        OkHttpClient withInterceptor = base.newBuilder().addInterceptor(chain -> chain.proceed(chain.request())).build();
+        OkHttpClient streaming = base.newBuilder().readTimeout(0, TimeUnit.MILLISECONDS).build();
+        assertSame(base.connectionPool(), withInterceptor.connectionPool());
+        assertSame(base.connectionPool(), streaming.connectionPool());
+        assertSame(base.dispatcher(), streaming.dispatcher());
+
+        try (MockWebServer server = new MockWebServer()) {
+            for (int i = 0; i < 3; i++) server.enqueue(new MockResponse().setBody("{}"));
+            server.start();
+            get(base, server);
+            get(withInterceptor, server);
+            get(streaming, server);
+
+            HttpStack.Stats s = stack.getStats();
+            assertEquals(3, s.calls);
+            assertEquals(1, s.connectionsOpened);
+            assertEquals(3, s.connectionsAcquired);
+            assertEquals(2, s.handshakesSaved());
+        }
+    }
+}
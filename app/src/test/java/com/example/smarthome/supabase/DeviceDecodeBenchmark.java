@@ -0,0 +1,138 @@
+package com.example.smarthome.supabase;
+
+import com.example.smarthome.Benchmarks;
+import com.example.smarthome.model.Device;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * 设备列表解码：反射（每次 new Gson / 共享 Gson）、JsonElement 树逐字段取值、共享 Gson 上的手写 TypeAdapter
+ * 一致性检查默认运行；计时部分见 {@link Benchmarks}，默认跳过。
+ * 反射按字段名匹配，读不到中间件的 status / is_active（Device 的字段叫 isOnline / isOn），会跳过这两个字段、
+ * 得到全部离线且关闭的设备；手写适配器要多解码这两个值。因此另用去掉这两个字段的负载做同等工作量的对比
+ */
+public class DeviceDecodeBenchmark {
+    private static final int[] SIZES = {10, 1_000, 10_000};
+    // 每个规模大约解码这么多台设备（小列表重复更多次，计时更稳定）
+    private static final int DEVICES_PER_RUN = 100_000;
+    private static final Type DEVICE_LIST = new TypeToken<List<Device>>() {}.getType();
+    private static final Gson REFLECTIVE = new Gson();
+
+    @Test
+    public void adapterDecode_matchesReflectiveDecode() {
+        String json = buildPayload(50, true);
+        List<Device> a = reflective(json);
+        List<Device> b = adapter(json);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i).getDeviceId(), b.get(i).getDeviceId());
+            assertEquals(a.get(i).getName(), b.get(i).getName());
+            assertEquals(a.get(i).getDeviceType(), b.get(i).getDeviceType());
+        }
+    }
+
+    @Test
+    public void adapterDecode_readsStatusFieldsThatReflectionDrops() {
+        List<Device> a = reflective(buildPayload(3, true));
+        List<Device> b = adapter(buildPayload(3, true));
+        for (Device d : a) assertFalse(d.isOnline());
+        assertFalse(a.get(0).isOn());
+        for (Device d : b) assertTrue(d.isOnline());
+        assertTrue(b.get(0).isOn());
+        assertFalse(b.get(1).isOn());
+    }
+
+    @Test
+    public void benchmark_deviceListDecode() throws Exception {
+        Benchmarks.assumeEnabled();
+        for (int size : SIZES) {
+            for (boolean status : new boolean[]{true, false}) {
+                String json = buildPayload(size, status);
+                int reps = Math.max(1, DEVICES_PER_RUN / size);
+                Benchmarks.report("devices=" + size + (status ? " 完整负载" : " 去掉 status/is_active")
+                                + " payload=" + (json.length() / 1024) + "KiB（每次操作 = 解码一个列表）",
+                        measure("reflective-new", json, reps, DeviceDecodeBenchmark::reflectiveNewGson),
+                        measure("reflective", json, reps, DeviceDecodeBenchmark::reflective),
+                        measure("tree", json, reps, DeviceDecodeBenchmark::tree),
+                        measure("adapter", json, reps, DeviceDecodeBenchmark::adapter));
+            }
+        }
+    }
+
+    /**
+     * 原先的写法：每次新建 Gson，按字段反射赋值
+     */
+    static List<Device> reflectiveNewGson(String json) {
+        return new Gson().fromJson(json, DEVICE_LIST);
+    }
+
+    /**
+     * 共享的反射 Gson：反射元数据只建一次
+     */
+    static List<Device> reflective(String json) {
+        return REFLECTIVE.fromJson(json, DEVICE_LIST);
+    }
+
+    /**
+     * 原先的写法：先建 JsonElement 树，再逐个 has/get
+     */
+    static List<Device> tree(String json) {
+        JsonArray arr = JsonParser.parseString(json).getAsJsonArray();
+        List<Device> out = new ArrayList<>(arr.size());
+        for (JsonElement el : arr) {
+            JsonObject o = el.getAsJsonObject();
+            Device d = new Device();
+            d.setId(o.has("id") && !o.get("id").isJsonNull() ? o.get("id").getAsString() : null);
+            d.setDeviceId(o.has("device_id") && !o.get("device_id").isJsonNull() ? o.get("device_id").getAsString() : null);
+            d.setName(o.has("name") && !o.get("name").isJsonNull() ? o.get("name").getAsString() : null);
+            d.setDeviceType(o.has("type") && !o.get("type").isJsonNull() ? o.get("type").getAsString() : null);
+            d.setRoom(o.has("room") && !o.get("room").isJsonNull() ? o.get("room").getAsString() : null);
+            d.setOnline(o.has("status") && "online".equalsIgnoreCase(o.get("status").getAsString()));
+            d.setOn(o.has("is_active") && o.get("is_active").getAsBoolean());
+            out.add(d);
+        }
+        return out;
+    }
+
+    static List<Device> adapter(String json) {
+        return ModelAdapters.gson().fromJson(json, DEVICE_LIST);
+    }
+
+    private static String buildPayload(int devices, boolean status) {
+        StringBuilder sb = new StringBuilder(devices * 200);
+        sb.append('[');
+        for (int i = 0; i < devices; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":\"").append(i)
+              .append("\",\"device_id\":\"esp32-").append(i)
+              .append("\",\"name\":\"设备").append(i)
+              .append("\",\"type\":\"").append(i % 2 == 0 ? "light" : "dht11")
+              .append("\",\"room\":\"客厅\"");
+            if (status) sb.append(",\"status\":\"online\",\"is_active\":").append(i % 3 == 0);
+            sb.append(",\"created_at\":\"2024-01-01T00:00:00Z\"}");
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    private static Benchmarks.Result measure(String name, String json, int reps, Function<String, List<Device>> op) throws Exception {
+        return Benchmarks.measure(name, reps, () -> {
+            int decoded = 0;
+            for (int r = 0; r < reps; r++) decoded += op.apply(json).size();
+            return decoded;
+        });
+    }
+}
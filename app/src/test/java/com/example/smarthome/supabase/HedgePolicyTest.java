@@ -0,0 +1,67 @@
+package com.example.smarthome.supabase;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class HedgePolicyTest {
+
+    @Test
+    public void hedged_fastPrimary_neverStartsSecondary() {
+        TestScheduler scheduler = new TestScheduler();
+        AtomicInteger secondaryCalls = new AtomicInteger();
+        Single<String> primary = Single.timer(100, TimeUnit.MILLISECONDS, scheduler).map(t -> "mw");
+        Single<String> secondary = Single.fromCallable(() -> { secondaryCalls.incrementAndGet(); return "rest"; });
+
+        TestObserver<String> to = HedgePolicy.hedged(500).apply(primary, secondary, scheduler).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        to.assertValue("mw");
+        assertEquals(0, secondaryCalls.get());
+    }
+
+    @Test
+    public void hedged_slowPrimary_secondaryWinsAfterBudget() {
+        TestScheduler scheduler = new TestScheduler();
+        Single<String> primary = Single.timer(5, TimeUnit.SECONDS, scheduler).map(t -> "mw");
+        Single<String> secondary = Single.timer(100, TimeUnit.MILLISECONDS, scheduler).map(t -> "rest");
+
+        TestObserver<String> to = HedgePolicy.hedged(500).apply(primary, secondary, scheduler).test();
+        scheduler.advanceTimeBy(599, TimeUnit.MILLISECONDS);
+        to.assertNoValues();
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        to.assertValue("rest");
+    }
+
+    @Test
+    public void hedged_primaryError_startsSecondaryImmediately() {
+        TestScheduler scheduler = new TestScheduler();
+        Single<String> primary = Single.<String>error(new IOException("mw down"));
+        Single<String> secondary = Single.just("rest");
+
+        TestObserver<String> to = HedgePolicy.hedged(5000).apply(primary, secondary, scheduler).test();
+        scheduler.triggerActions();
+
+        to.assertValue("rest");
+    }
+
+    @Test
+    public void race_bothFail_emitsError() {
+        TestScheduler scheduler = new TestScheduler();
+        Single<String> primary = Single.timer(10, TimeUnit.MILLISECONDS, scheduler).flatMap(t -> Single.<String>error(new IOException("mw")));
+        Single<String> secondary = Single.<String>error(new IOException("rest"));
+
+        TestObserver<String> to = HedgePolicy.race().apply(primary, secondary, scheduler).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        to.assertError(IOException.class);
+    }
+}
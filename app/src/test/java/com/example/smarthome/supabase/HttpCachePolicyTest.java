@@ -0,0 +1,99 @@
+package com.example.smarthome.supabase;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class HttpCachePolicyTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void policyFor_perEndpoint() {
+        HttpCachePolicy policy = new HttpCachePolicy("http://mw.local");
+        String closed = java.time.Instant.ofEpochMilli(NOW - 3_600_000).toString();
+        String open = java.time.Instant.ofEpochMilli(NOW - 60_000).toString();
+
+        assertEquals(HttpCachePolicy.REVALIDATE, policy.policyFor(HttpUrl.get("http://mw.local/devices"), NOW));
+        assertEquals(HttpCachePolicy.IMMUTABLE, policy.policyFor(HttpUrl.get("http://mw.local/sensor/history/agg?sensor_type=gas&to=" + closed), NOW));
+        assertEquals(HttpCachePolicy.REVALIDATE, policy.policyFor(HttpUrl.get("http://mw.local/sensor/history/agg?sensor_type=gas&to=" + open), NOW));
+        assertEquals(HttpCachePolicy.REVALIDATE, policy.policyFor(HttpUrl.get("http://mw.local/sensor/history/agg?sensor_type=gas"), NOW));
+        assertEquals(HttpCachePolicy.NO_STORE, policy.policyFor(HttpUrl.get("http://mw.local/sensor/history/raw?sensor_type=gas"), NOW));
+        assertEquals(HttpCachePolicy.NO_STORE, policy.policyFor(HttpUrl.get("https://other.local/devices"), NOW));
+    }
+
+    @Test
+    public void notModified_reusesDecodedObjects() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("{\"devices\":[]}"));
+            server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+            server.start();
+            OkHttpClient client = new OkHttpClient.Builder()
+                    .cache(new Cache(tmp.newFolder("http"), 1024 * 1024))
+                    .addNetworkInterceptor(new HttpCachePolicy(server.url("/").toString()))
+                    .build();
+            DecodedCache decoded = new DecodedCache();
+            AtomicInteger parses = new AtomicInteger();
+            DecodedCache.Decoder<String> decoder = r -> {
+                parses.incrementAndGet();
+                return Collections.singletonList(r.body().string());
+            };
+
+            List<String> first;
+            try (Response r = client.newCall(new Request.Builder().url(server.url("/devices")).build()).execute()) {
+                first = decoded.decode(r, decoder);
+            }
+            List<String> second;
+            try (Response r = client.newCall(new Request.Builder().url(server.url("/devices")).build()).execute()) {
+                assertEquals(304, r.networkResponse().code());
+                second = decoded.decode(r, decoder);
+            }
+
+            server.takeRequest();
+            RecordedRequest revalidation = server.takeRequest();
+            assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+            assertEquals(first, second);
+            assertEquals(1, parses.get());
+            assertEquals(1, decoded.reused());
+        }
+    }
+
+    @Test
+    public void noStoreEndpoint_neverCached() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            for (int i = 0; i < 2; i++) server.enqueue(new MockResponse().setHeader("ETag", "\"p\"").setBody("{\"data\":[]}"));
+            server.start();
+            Cache cache = new Cache(tmp.newFolder("http"), 1024 * 1024);
+            OkHttpClient client = new OkHttpClient.Builder()
+                    .cache(cache)
+                    .addNetworkInterceptor(new HttpCachePolicy(server.url("/").toString()))
+                    .build();
+            for (int i = 0; i < 2; i++) {
+                try (Response r = client.newCall(new Request.Builder().url(server.url("/sensor/history/raw")).build()).execute()) {
+                    r.body().string();
+                    assertNull(r.cacheResponse());
+                }
+            }
+            server.takeRequest();
+            assertNull(server.takeRequest().getHeader("If-None-Match"));
+            assertEquals(0, cache.hitCount());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.smarthome.supabase;
+
+import com.example.smarthome.model.Device;
+import com.example.smarthome.model.DeviceCommand;
+import com.example.smarthome.model.DeviceItem;
+import com.example.smarthome.model.SensorPoint;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ModelAdaptersTest {
+    private final Gson gson = ModelAdapters.gson();
+
+    @Test
+    public void device_readsBothNamingsAndRoundTrips() {
+        String json = "[{\"id\":\"1\",\"device_id\":\"esp32-light\",\"name\":\"客厅灯\",\"device_type\":\"light\",\"status\":\"online\",\"is_active\":true,"
+                + "\"latest_sensor_data\":{\"value\":1}},{\"id\":\"2\",\"type\":\"dht11\",\"is_online\":false}]";
+        List<Device> devices = gson.fromJson(json, new TypeToken<List<Device>>() {}.getType());
+
+        assertEquals(2, devices.size());
+        Device light = devices.get(0);
+        assertEquals("light", light.getDeviceType());
+        assertTrue(light.isOnline());
+        assertTrue(light.isOn());
+        assertEquals("{\"value\":1}", light.getLatestSensorData());
+        assertEquals("dht11", devices.get(1).getDeviceType());
+
+        Device copy = gson.fromJson(gson.toJson(light), Device.class);
+        assertEquals(light.getDeviceId(), copy.getDeviceId());
+        assertEquals(light.getName(), copy.getName());
+        assertEquals(light.getDeviceType(), copy.getDeviceType());
+        assertEquals(light.isOnline(), copy.isOnline());
+        assertEquals(light.isOn(), copy.isOn());
+    }
+
+    @Test
+    public void deviceItemAndSensorPoint_roundTrip() {
+        DeviceItem item = new DeviceItem("esp32-dht11", "温湿度", "dht11", true, false, "关闭", 1234L, "21.5");
+        DeviceItem itemCopy = gson.fromJson(gson.toJson(item), DeviceItem.class);
+        assertEquals(item.getDeviceId(), itemCopy.getDeviceId());
+        assertEquals(item.getStatus(), itemCopy.getStatus());
+        assertEquals(item.getLastUpdateTime(), itemCopy.getLastUpdateTime());
+        assertEquals("21.5", itemCopy.getValue());
+
+        SensorPoint missing = new SensorPoint("d", "gas", Double.NaN, null, "2024-01-01T00:00:00Z");
+        JsonObject o = JsonParser.parseString(gson.toJson(missing)).getAsJsonObject();
+        assertFalse(o.has("value"));
+        assertTrue(Double.isNaN(gson.fromJson(o, SensorPoint.class).getValue()));
+    }
+
+    @Test
+    public void deviceCommand_matchesBatchEndpointFormat() {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("command", "set_brightness");
+        payload.put("brightness", 60);
+        List<DeviceCommand> commands = Arrays.asList(
+                new DeviceCommand("esp32-light", payload),
+                new DeviceCommand("esp32-fan", Collections.singletonMap("command", "off")));
+
+        JsonObject body = JsonParser.parseString(gson.toJson(Collections.singletonMap("commands", commands))).getAsJsonObject();
+        JsonObject first = body.getAsJsonArray("commands").get(0).getAsJsonObject();
+        assertEquals("esp32-light", first.get("device_id").getAsString());
+        assertEquals("set_brightness", first.get("command").getAsString());
+        assertEquals(60, first.getAsJsonObject("parameters").get("brightness").getAsInt());
+        assertFalse(body.getAsJsonArray("commands").get(1).getAsJsonObject().has("parameters"));
+
+        DeviceCommand back = gson.fromJson(first, DeviceCommand.class);
+        assertEquals("set_brightness", back.getPayload().get("command"));
+        assertEquals(60.0, ((Number) back.getPayload().get("brightness")).doubleValue(), 0.0);
+    }
+}
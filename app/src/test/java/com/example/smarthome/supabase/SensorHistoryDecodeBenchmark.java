@@ -0,0 +1,94 @@
+package com.example.smarthome.supabase;
+
+import com.example.smarthome.Benchmarks;
+import com.example.smarthome.model.SensorPoint;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.*;
+
+/**
+ * 解码对比：整段String + JsonElement树 vs. JsonReader流式解码
+ * 一致性检查默认运行；计时部分见 {@link Benchmarks}，默认跳过
+ */
+public class SensorHistoryDecodeBenchmark {
+    private static final int ROWS = 50_000;
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    @Test
+    public void streamingDecode_matchesTreeDecode() throws Exception {
+        byte[] payload = buildPayload(200);
+        List<SensorPoint> a = treeDecode(payload);
+        List<SensorPoint> b = streamingDecode(payload);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i).getTimestamp(), b.get(i).getTimestamp());
+            assertEquals(a.get(i).getValue(), b.get(i).getValue(), 0.0);
+            assertEquals(a.get(i).getDeviceId(), b.get(i).getDeviceId());
+        }
+    }
+
+    @Test
+    public void benchmark_rawHistoryDecode() throws Exception {
+        Benchmarks.assumeEnabled();
+        byte[] payload = buildPayload(ROWS);
+        Benchmarks.Result tree = Benchmarks.measure("string+tree", ROWS, () -> treeDecode(payload));
+        Benchmarks.Result stream = Benchmarks.measure("jsonreader", ROWS, () -> streamingDecode(payload));
+        assertEquals(((List<?>) tree.value).size(), ((List<?>) stream.value).size());
+        Benchmarks.report("raw history payload=" + (payload.length / 1024) + "KiB rows=" + ROWS, tree, stream);
+    }
+
+    static List<SensorPoint> treeDecode(byte[] payload) throws Exception {
+        String body = ResponseBody.create(payload, JSON).string();
+        JsonElement root = JsonParser.parseString(body);
+        List<SensorPoint> out = new ArrayList<>();
+        JsonArray arr = root.getAsJsonObject().get("data").getAsJsonArray();
+        for (JsonElement el : arr) {
+            JsonObject o = el.getAsJsonObject();
+            out.add(new SensorPoint(
+                    o.get("device_id").getAsString(),
+                    o.get("sensor_type").getAsString(),
+                    o.get("value").getAsDouble(),
+                    o.get("unit").getAsString(),
+                    o.get("timestamp").getAsString()));
+        }
+        return out;
+    }
+
+    static List<SensorPoint> streamingDecode(byte[] payload) throws Exception {
+        ResponseBody body = ResponseBody.create(payload, JSON);
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            return JsonDecoders.readArrayOrEnvelope(reader, "data", JsonDecoders::readSensorPoint);
+        }
+    }
+
+    private static byte[] buildPayload(int rows) {
+        StringBuilder sb = new StringBuilder(rows * 140);
+        sb.append("{\"data\":[");
+        long base = 1_700_000_000_000L;
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sb.append(',');
+            long sec = (base / 1000) + i;
+            sb.append("{\"id\":").append(i)
+              .append(",\"device_id\":\"esp32-dht11\",\"sensor_type\":\"temperature\",\"value\":")
+              .append(20 + (i % 100) / 10.0)
+              .append(",\"unit\":\"C\",\"timestamp\":\"")
+              .append(java.time.Instant.ofEpochSecond(sec).toString())
+              .append("\"}");
+        }
+        sb.append("],\"count\":").append(rows).append('}');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.smarthome.supabase;
+
+import com.example.smarthome.model.SensorPage;
+import com.example.smarthome.model.SensorPoint;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+import static org.junit.Assert.*;
+
+public class SensorHistoryPagerTest {
+
+    /** pages 页、每页 size 条的假数据源，游标为下一页页号 */
+    private static SensorHistoryPager.PageFetcher pages(int pages, int size, AtomicInteger fetched) {
+        return cursor -> {
+            int page = cursor == null ? 0 : Integer.parseInt(cursor);
+            fetched.incrementAndGet();
+            List<SensorPoint> points = new ArrayList<>();
+            for (int i = 0; i < size; i++) points.add(new SensorPoint("d", "gas", page * size + i, "ppm", null));
+            return new SensorPage(points, page + 1 < pages ? String.valueOf(page + 1) : null);
+        };
+    }
+
+    @Test
+    public void stream_emitsAllPagesInOrder() {
+        AtomicInteger fetched = new AtomicInteger();
+        List<SensorPoint> all = SensorHistoryPager.stream(pages(5, 100, fetched)).toList().blockingGet();
+        assertEquals(500, all.size());
+        for (int i = 0; i < all.size(); i++) assertEquals(i, all.get(i).getValue(), 0);
+        assertEquals(5, fetched.get());
+    }
+
+    @Test
+    public void stream_fetchesOnDemandWithOnePagePrefetch() throws Exception {
+        AtomicInteger fetched = new AtomicInteger();
+        TestSubscriber<SensorPoint> ts = SensorHistoryPager.stream(pages(1000, 100, fetched)).test(10);
+        ts.awaitCount(10);
+        Thread.sleep(100);
+        // 首页已取，下一页预取中/已取完，不会继续往后拉
+        assertEquals(2, fetched.get());
+        ts.requestMore(100);
+        ts.awaitCount(110);
+        Thread.sleep(100);
+        assertEquals(3, fetched.get());
+        ts.cancel();
+    }
+
+    @Test
+    public void stream_propagatesFetchError() {
+        AtomicInteger calls = new AtomicInteger();
+        SensorHistoryPager.PageFetcher failing = cursor -> {
+            if (calls.incrementAndGet() > 1) throw new IOException("HTTP 500");
+            List<SensorPoint> one = new ArrayList<>();
+            one.add(new SensorPoint("d", "gas", 1, "ppm", null));
+            return new SensorPage(one, "1");
+        };
+        SensorHistoryPager.stream(failing).test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertValueCount(1)
+                .assertError(IOException.class);
+    }
+}
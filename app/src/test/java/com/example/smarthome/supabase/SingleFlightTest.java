@@ -0,0 +1,75 @@
+package com.example.smarthome.supabase;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCalls_shareOneExecution() {
+        TestScheduler scheduler = new TestScheduler();
+        SingleFlight flights = new SingleFlight(0, scheduler);
+        AtomicInteger executions = new AtomicInteger();
+        Single<String> source = Single.defer(() -> {
+            executions.incrementAndGet();
+            return Single.timer(100, TimeUnit.MILLISECONDS, scheduler).map(t -> "devices");
+        });
+
+        TestObserver<String> a = flights.get("devices", () -> source).test();
+        TestObserver<String> b = flights.get("devices", () -> source).test();
+        TestObserver<String> other = flights.get("summary", () -> source).test();
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        a.assertValue("devices");
+        b.assertValue("devices");
+        other.assertValue("devices");
+        assertEquals(2, executions.get());
+        assertEquals(1, flights.joined());
+        assertEquals(1.0 / 3, flights.hitRatio(), 1e-9);
+    }
+
+    @Test
+    public void completedResult_reusedWithinTtlOnly() {
+        TestScheduler scheduler = new TestScheduler();
+        SingleFlight flights = new SingleFlight(2000, scheduler);
+        AtomicInteger executions = new AtomicInteger();
+        Single<Integer> source = Single.fromCallable(executions::incrementAndGet);
+
+        flights.get("k", () -> source).test().assertValue(1);
+        scheduler.advanceTimeBy(1500, TimeUnit.MILLISECONDS);
+        flights.get("k", () -> source).test().assertValue(1);
+        assertEquals(1, flights.ttlHits());
+
+        scheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+        flights.get("k", () -> source).test().assertValue(2);
+
+        flights.invalidate("k");
+        flights.get("k", () -> source).test().assertValue(3);
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    public void failure_notCached() {
+        TestScheduler scheduler = new TestScheduler();
+        SingleFlight flights = new SingleFlight(2000, scheduler);
+        AtomicInteger executions = new AtomicInteger();
+        Single<String> failing = Single.defer(() -> {
+            executions.incrementAndGet();
+            return Single.error(new IOException("HTTP 503"));
+        });
+
+        flights.get("k", () -> failing).test().assertError(IOException.class);
+        flights.get("k", () -> Single.just("ok")).test().assertValue("ok");
+        assertEquals(1, executions.get());
+        assertEquals(0, flights.ttlHits());
+    }
+}
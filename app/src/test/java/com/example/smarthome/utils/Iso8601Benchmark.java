@@ -0,0 +1,99 @@
+package com.example.smarthome.utils;
+
+import com.example.smarthome.Benchmarks;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * ISO-8601 解析/格式化对比：SimpleDateFormat（每次新建 / 复用）、java.time、Iso8601
+ * 数据量约为一周的原始传感器点；计时部分见 {@link Benchmarks}，默认跳过，正确性由 {@link Iso8601Test} 覆盖
+ */
+public class Iso8601Benchmark {
+    private static final int POINTS = 200_000;
+
+    @Test
+    public void benchmark_parseAndFormat() throws Exception {
+        Benchmarks.assumeEnabled();
+        long[] times = new long[POINTS];
+        String[] input = new String[POINTS];
+        DateTimeFormatter local = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").withZone(ZoneOffset.ofHours(8));
+        long base = 1_760_000_000_000L;
+        for (int i = 0; i < POINTS; i++) {
+            times[i] = base + i * 3_000L + i % 1000;
+            input[i] = local.format(Instant.ofEpochMilli(times[i]));
+        }
+        SimpleDateFormat shared = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
+        DateTimeFormatter utc = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+        Benchmarks.Result[] parse = {
+                Benchmarks.measure("parse sdf-new", POINTS, () -> {
+                    long sum = 0;
+                    for (String s : input) sum += parseWithNewFormats(s);
+                    return sum;
+                }),
+                Benchmarks.measure("parse sdf-shared", POINTS, () -> {
+                    long sum = 0;
+                    for (String s : input) sum += shared.parse(s).getTime();
+                    return sum;
+                }),
+                Benchmarks.measure("parse java.time", POINTS, () -> {
+                    long sum = 0;
+                    for (String s : input) sum += OffsetDateTime.parse(s).toInstant().toEpochMilli();
+                    return sum;
+                }),
+                Benchmarks.measure("parse iso8601", POINTS, () -> {
+                    long sum = 0;
+                    for (String s : input) sum += Iso8601.parse(s);
+                    return sum;
+                }),
+        };
+        for (Benchmarks.Result r : parse) assertEquals(r.name, parse[0].value, r.value);
+
+        Benchmarks.Result[] format = {
+                Benchmarks.measure("format sdf-new", POINTS, () -> {
+                    long len = 0;
+                    for (long ms : times) {
+                        SimpleDateFormat f = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+                        f.setTimeZone(TimeZone.getTimeZone("UTC"));
+                        len += f.format(new Date(ms)).length();
+                    }
+                    return len;
+                }),
+                Benchmarks.measure("format java.time", POINTS, () -> {
+                    long len = 0;
+                    for (long ms : times) len += utc.format(Instant.ofEpochMilli(ms)).length();
+                    return len;
+                }),
+                Benchmarks.measure("format iso8601", POINTS, () -> {
+                    long len = 0;
+                    for (long ms : times) len += Iso8601.format(ms).length();
+                    return len;
+                }),
+        };
+        Benchmarks.report("iso8601 parse points=" + POINTS, parse);
+        Benchmarks.report("iso8601 format points=" + POINTS, format);
+    }
+
+    /**
+     * 旧写法：每个点新建 SimpleDateFormat，先试带毫秒的格式，失败再试不带毫秒的
+     */
+    private static long parseWithNewFormats(String s) throws ParseException {
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US).parse(s).getTime();
+        } catch (ParseException e) {
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX", Locale.US).parse(s).getTime();
+        }
+    }
+}
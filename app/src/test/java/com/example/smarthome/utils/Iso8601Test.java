@@ -0,0 +1,69 @@
+package com.example.smarthome.utils;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class Iso8601Test {
+
+    @Test
+    public void parse_matchesJavaTime() {
+        String[] inputs = {
+                "2024-02-29T23:59:59Z",
+                "2025-10-09T12:00:05+08:00",
+                "2025-10-09T12:00:05.123456+00:00",
+                "1999-12-31T16:00:00.5-08:00",
+                "2000-01-01T00:00Z",
+                "1970-01-01T00:00:00.000Z",
+                "1969-12-31T23:59:59.999Z",
+        };
+        for (String s : inputs) {
+            assertEquals(s, OffsetDateTime.parse(s).toInstant().toEpochMilli(), Iso8601.parse(s));
+        }
+    }
+
+    @Test
+    public void parse_postgresVariants() {
+        long expected = Instant.parse("2025-10-09T04:00:05.120Z").toEpochMilli();
+        assertEquals(expected, Iso8601.parse("2025-10-09 12:00:05.12+08"));
+        assertEquals(expected, Iso8601.parse("2025-10-09T12:00:05.12+0800"));
+        assertEquals(expected, Iso8601.parse(new StringBuilder("2025-10-09T04:00:05.120z")));
+    }
+
+    @Test
+    public void parse_rejectsMalformed() {
+        String[] bad = {
+                null, "", "2025-10-09", "2025-10-09T12:00:05", "2025-13-09T12:00:05Z", "2025-02-29T12:00:05Z",
+                "2025-10-09T24:00:00Z", "2025-10-09T12:60:00Z", "2025-10-09T12:00:05.Z", "2025-10-09T12:00:05+19:00",
+                "2025-10-09X12:00:05Z", "2025-10-09T12:00:05Zjunk", "2025-1a-09T12:00:05Z", "2025-10-09T12:00:05.1234567890Z",
+        };
+        for (String s : bad) assertEquals(String.valueOf(s), Iso8601.INVALID, Iso8601.parse(s));
+    }
+
+    @Test
+    public void format_roundTripsAndMatchesJavaTime() {
+        Random random = new Random(42);
+        DateTimeFormatter millis = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneId.of("UTC"));
+        DateTimeFormatter label = DateTimeFormatter.ofPattern("MM-dd HH:mm").withZone(ZoneId.of("Asia/Shanghai"));
+        TimeZone shanghai = TimeZone.getTimeZone("Asia/Shanghai");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            long ms = (long) (random.nextDouble() * 4_000_000_000_000L);
+            String s = Iso8601.format(ms);
+            assertEquals(millis.format(Instant.ofEpochMilli(ms)), s);
+            assertEquals(ms, Iso8601.parse(s));
+            assertEquals(ms / 1000 * 1000, Iso8601.parse(Iso8601.formatSeconds(ms)));
+            assertEquals(label.format(Instant.ofEpochMilli(ms)), Iso8601.formatMonthDayTime(ms, shanghai));
+            sb.setLength(0);
+            Iso8601.formatTo(ms, sb);
+            assertEquals(s, sb.toString());
+        }
+    }
+}
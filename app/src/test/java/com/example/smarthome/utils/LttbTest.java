@@ -0,0 +1,50 @@
+package com.example.smarthome.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LttbTest {
+
+    private static long[] times(int n) {
+        long[] t = new long[n];
+        for (int i = 0; i < n; i++) t[i] = 1_760_000_000_000L + i * 5_000L;
+        return t;
+    }
+
+    @Test
+    public void select_smallInput_returnsAll() {
+        int[] idx = Lttb.select(times(10), new float[10], 2, 8, 100);
+        assertArrayEquals(new int[]{2, 3, 4, 5, 6, 7}, idx);
+    }
+
+    @Test
+    public void select_respectsThreshold_keepsEndsAndOrder() {
+        int n = 120_000;
+        float[] v = new float[n];
+        for (int i = 0; i < n; i++) v[i] = (float) Math.sin(i / 500.0);
+        int[] idx = Lttb.select(times(n), v, 0, n, 720);
+        assertTrue(idx.length <= 720);
+        assertTrue(idx.length > 360);
+        assertEquals(0, idx[0]);
+        assertEquals(n - 1, idx[idx.length - 1]);
+        for (int i = 1; i < idx.length; i++) assertTrue(idx[i] > idx[i - 1]);
+    }
+
+    @Test
+    public void select_keepsSingleSpikeAndDip() {
+        int n = 50_000;
+        float[] v = new float[n];
+        for (int i = 0; i < n; i++) v[i] = 100 + (i % 7);
+        v[12_345] = 900;  // 燃气浓度突增
+        v[33_333] = 0;
+        int[] idx = Lttb.select(times(n), v, 0, n, 300);
+        boolean spike = false, dip = false;
+        for (int i : idx) {
+            if (i == 12_345) spike = true;
+            if (i == 33_333) dip = true;
+        }
+        assertTrue(spike);
+        assertTrue(dip);
+    }
+}
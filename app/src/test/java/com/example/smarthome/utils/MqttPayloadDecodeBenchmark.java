@@ -0,0 +1,109 @@
+package com.example.smarthome.utils;
+
+import com.example.smarthome.Benchmarks;
+import com.example.smarthome.model.LightStatus;
+import com.example.smarthome.model.SensorPoint;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * MQTT上行负载解码对比：String + JsonElement树 vs. byte[]流式解码
+ * 一致性与边界用例默认运行；计时部分见 {@link Benchmarks}，默认跳过
+ */
+public class MqttPayloadDecodeBenchmark {
+    private static final int MESSAGES = 200_000;
+
+    private static byte[] status(int i) {
+        return ("{\"device_id\":\"esp32-light\",\"brightness_current\":" + (i % 100)
+                + ",\"color_temp_current\":\"warm\",\"power_current\":\"ON\",\"ts\":1760000000,\"timestamp\":\"2025-10-09T12:00:0"
+                + (i % 10) + "+08:00\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] sensor(int i) {
+        return ("{\"device_id\":\"esp32-dht11\",\"sensor_type\":\"gas\",\"value\":" + (1200 + i % 50)
+                + ",\"unit\":\"adc\",\"voltage\":0.97,\"ts\":1760000000,\"timestamp\":\"2025-10-09T12:00:0"
+                + (i % 10) + "+08:00\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void streamingDecode_matchesTreeDecode() {
+        for (int i = 0; i < 20; i++) {
+            LightStatus a = treeStatus(status(i));
+            LightStatus b = MqttDecoders.lightStatus(null, status(i));
+            assertEquals(a.getDeviceId(), b.getDeviceId());
+            assertEquals(a.getBrightness(), b.getBrightness());
+            assertEquals(a.getColorTemp(), b.getColorTemp());
+            assertEquals(a.getPower(), b.getPower());
+            assertEquals(a.getTimestamp(), b.getTimestamp());
+
+            SensorPoint p = MqttDecoders.sensorPoint(null, sensor(i));
+            assertEquals(1200 + i % 50, p.getValue(), 0.0);
+            assertEquals("gas", p.getSensorType());
+            assertEquals("adc", p.getUnit());
+        }
+    }
+
+    @Test
+    public void streamingDecode_edgeCases() {
+        byte[] payload = "{ \"extra\": {\"nested\": [1, {\"a\": \"}\"}]}, \"sensor_type\" : \"\\u6e29\\u5ea6\", \"value\": \"-12.75\", \"timestamp\": null }"
+                .getBytes(StandardCharsets.UTF_8);
+        SensorPoint p = MqttDecoders.sensorPoint("dev1", payload);
+        assertEquals("dev1", p.getDeviceId());
+        assertEquals("temperature", p.getSensorType());
+        assertEquals(-12.75, p.getValue(), 0.0);
+        assertNull(p.getTimestamp());
+
+        assertEquals(1.5e3, MqttDecoders.sensorPoint("d", "{\"value\":1.5e3}".getBytes(StandardCharsets.UTF_8)).getValue(), 0.0);
+        assertEquals(0.1, MqttDecoders.sensorPoint("d", "{\"value\":0.1}".getBytes(StandardCharsets.UTF_8)).getValue(), 0.0);
+        assertNull(MqttDecoders.sensorPoint("d", "{\"value\":null}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(MqttDecoders.sensorPoint("d", "{\"value\":1".getBytes(StandardCharsets.UTF_8)));
+        assertNull(MqttDecoders.lightStatus("d", "[]".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(MqttDecoders.hallEvent("d", "{\"status\":\"magnet_missing\"}".getBytes(StandardCharsets.UTF_8)).isOpen());
+    }
+
+    @Test
+    public void benchmark_statusDecode() throws Exception {
+        Benchmarks.assumeEnabled();
+        byte[][] payloads = new byte[64][];
+        for (int i = 0; i < payloads.length; i++) payloads[i] = i % 2 == 0 ? status(i) : sensor(i);
+        Benchmarks.Result tree = Benchmarks.measure("string+tree", MESSAGES, () -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                byte[] p = payloads[i & 63];
+                if ((i & 1) == 0) treeStatus(p); else treeSensor(p);
+            }
+            return null;
+        });
+        Benchmarks.Result stream = Benchmarks.measure("byte-stream", MESSAGES, () -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                byte[] p = payloads[i & 63];
+                if ((i & 1) == 0) MqttDecoders.lightStatus(null, p); else MqttDecoders.sensorPoint(null, p);
+            }
+            return null;
+        });
+        Benchmarks.report("mqtt payload messages=" + MESSAGES, tree, stream);
+    }
+
+    static LightStatus treeStatus(byte[] payload) {
+        JsonObject obj = JsonParser.parseString(new String(payload, StandardCharsets.UTF_8)).getAsJsonObject();
+        String deviceId = obj.has("device_id") ? obj.get("device_id").getAsString() : "";
+        int b = obj.has("brightness_current") ? obj.get("brightness_current").getAsInt() : -1;
+        String c = obj.has("color_temp_current") ? obj.get("color_temp_current").getAsString() : null;
+        String p = obj.has("power_current") ? obj.get("power_current").getAsString() : null;
+        String t = obj.has("timestamp") ? obj.get("timestamp").getAsString() : null;
+        return new LightStatus(deviceId, b, c, p, t);
+    }
+
+    static SensorPoint treeSensor(byte[] payload) {
+        JsonObject obj = JsonParser.parseString(new String(payload, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonElement v = obj.get("value");
+        return new SensorPoint(obj.get("device_id").getAsString(), obj.get("sensor_type").getAsString(),
+                v.getAsDouble(), obj.get("unit").getAsString(), obj.get("timestamp").getAsString());
+    }
+}
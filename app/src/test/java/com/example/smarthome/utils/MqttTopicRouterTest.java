@@ -0,0 +1,112 @@
+package com.example.smarthome.utils;
+
+import com.example.smarthome.model.HallEvent;
+import com.example.smarthome.model.LightStatus;
+import com.example.smarthome.model.SensorPoint;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+import static org.junit.Assert.*;
+
+public class MqttTopicRouterTest {
+
+    private static byte[] json(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void trie_prefersMostSpecificFilterAndCapturesDeviceId() {
+        TopicTrie<String> trie = new TopicTrie<>();
+        trie.put("smarthome/+/in/sensor/hall", "hall");
+        trie.put("smarthome/+/in/sensor/+", "sensor");
+        trie.put("smarthome/#", "any");
+
+        List<String> captures = new ArrayList<>();
+        assertEquals("hall", trie.match("smarthome/dev1/in/sensor/hall", captures));
+        assertEquals(List.of("dev1"), captures);
+        captures.clear();
+        assertEquals("sensor", trie.match("smarthome/dev1/in/sensor/gas", captures));
+        assertEquals(List.of("dev1", "gas"), captures);
+        assertEquals("any", trie.match("smarthome/dev1/out/control", null));
+        assertEquals("any", trie.match("smarthome", null));
+        assertNull(trie.match("other/dev1/in/status", null));
+    }
+
+    @Test
+    public void dispatch_onlyToMatchingTypeAndDevice() {
+        MqttTopicRouter router = MqttTopicRouter.createDefault();
+        List<LightStatus> dev1 = new ArrayList<>();
+        List<LightStatus> all = new ArrayList<>();
+        List<SensorPoint> sensors = new ArrayList<>();
+        List<HallEvent> halls = new ArrayList<>();
+        router.subscribe(LightStatus.class, "dev1", dev1::add);
+        router.subscribe(LightStatus.class, null, all::add);
+        router.subscribe(SensorPoint.class, null, sensors::add);
+        router.subscribe(HallEvent.class, "dev2", halls::add);
+
+        router.dispatch("smarthome/dev1/in/status", json("{\"device_id\":\"dev1\",\"brightness_current\":40,\"color_temp_current\":\"warm\",\"power_current\":\"ON\"}"));
+        router.dispatch("smarthome/dev2/in/status", json("{\"device_id\":\"dev2\",\"power_current\":\"OFF\"}"));
+        router.dispatch("smarthome/dev2/in/sensor/hall", json("{\"sensor_type\":\"hall\",\"value\":1,\"status\":\"magnet_missing\"}"));
+        router.dispatch("smarthome/dev2/in/sensor/temperature", json("{\"sensor_type\":\"温度\",\"value\":23.5}"));
+
+        assertEquals(1, dev1.size());
+        assertEquals(40, dev1.get(0).getBrightness());
+        assertEquals(2, all.size());
+        assertEquals(-1, all.get(1).getBrightness());
+        assertEquals(1, halls.size());
+        assertTrue(halls.get(0).isOpen());
+        assertEquals("dev2", halls.get(0).getDeviceId());
+        assertEquals(1, sensors.size());
+        assertEquals("temperature", sensors.get(0).getSensorType());
+    }
+
+    @Test
+    public void noListener_skipsDecoding() {
+        MqttTopicRouter router = new MqttTopicRouter();
+        int[] decoded = {0};
+        router.route("smarthome/+/in/status", LightStatus.class, (id, p) -> {
+            decoded[0]++;
+            return new LightStatus(id, -1, null, null, null);
+        });
+        assertFalse(router.dispatch("smarthome/dev1/in/status", json("{}")));
+        Disposable d = router.subscribe(LightStatus.class, "dev1", s -> {});
+        assertFalse(router.dispatch("smarthome/dev2/in/status", json("{}")));
+        assertTrue(router.dispatch("smarthome/dev1/in/status", json("{}")));
+        d.dispose();
+        assertFalse(router.dispatch("smarthome/dev1/in/status", json("{}")));
+        assertEquals(1, decoded[0]);
+    }
+
+    @Test
+    public void brokerSubscription_followsFirstAndLastListener() {
+        MqttTopicRouter router = MqttTopicRouter.createDefault();
+        List<String> calls = new ArrayList<>();
+        router.setSubscriptionListener(new MqttTopicRouter.SubscriptionListener() {
+            public void onActive(String filter, int qos) { calls.add("+" + filter + "@" + qos); }
+            public void onInactive(String filter) { calls.add("-" + filter); }
+        });
+        assertTrue(router.activeFilters().isEmpty());
+
+        Disposable a = router.subscribe(LightStatus.class, null, s -> {});
+        Disposable b = router.subscribe(LightStatus.class, "dev1", s -> {});
+        Disposable c = router.subscribe(SensorPoint.class, null, s -> {});
+        assertEquals(List.of("+smarthome/+/in/status@1", "+smarthome/+/in/sensor/+@0"), calls);
+        assertEquals(Map.of("smarthome/+/in/status", 1, "smarthome/+/in/sensor/+", 0), router.activeFilters());
+
+        calls.clear();
+        a.dispose();
+        assertTrue(calls.isEmpty());
+        b.dispose();
+        b.dispose();
+        c.dispose();
+        assertEquals(List.of("-smarthome/+/in/status", "-smarthome/+/in/sensor/+"), calls);
+        assertTrue(router.activeFilters().isEmpty());
+    }
+}
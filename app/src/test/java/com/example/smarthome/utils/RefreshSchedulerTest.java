@@ -0,0 +1,95 @@
+package com.example.smarthome.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class RefreshSchedulerTest {
+
+    @Test
+    public void noPolling_whilePushHealthy_orPaused() {
+        TestScheduler scheduler = new TestScheduler();
+        AtomicInteger calls = new AtomicInteger();
+        RefreshScheduler r = new RefreshScheduler("t", 5000, 60000, calls::incrementAndGet, scheduler);
+
+        r.setPushHealthy(true);
+        r.resume();
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        assertEquals(0, calls.get());
+
+        r.setPushHealthy(false);
+        scheduler.triggerActions();
+        assertEquals(1, calls.get());
+
+        r.pause();
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void stableValues_backOff_changesSpeedUp() {
+        TestScheduler scheduler = new TestScheduler();
+        AtomicInteger calls = new AtomicInteger();
+        RefreshScheduler[] ref = new RefreshScheduler[1];
+        ref[0] = new RefreshScheduler("t", 5000, 20000, () -> {
+            calls.incrementAndGet();
+            ref[0].onResult(false);
+        }, scheduler);
+        ref[0].resume();
+
+        scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        assertEquals(1, calls.get());
+        assertEquals(10000, ref[0].getIntervalMs());
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        assertEquals(2, calls.get());
+        assertEquals(20000, ref[0].getIntervalMs());
+        scheduler.advanceTimeBy(20, TimeUnit.SECONDS);
+        assertEquals(3, calls.get());
+        assertEquals(20000, ref[0].getIntervalMs());
+
+        ref[0].onResult(true);
+        assertEquals(5000, ref[0].getIntervalMs());
+        scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        assertEquals(4, calls.get());
+        assertEquals(3 + 1, ref[0].getPollCount());
+    }
+
+    @Test
+    public void asyncResults_setTheDelayOfTheNextPoll() {
+        TestScheduler scheduler = new TestScheduler();
+        AtomicInteger calls = new AtomicInteger();
+        RefreshScheduler r = new RefreshScheduler("t", 5000, 40000, calls::incrementAndGet, scheduler);
+        r.resume();
+
+        scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        assertEquals(1, calls.get());
+        // 加载耗时1秒后才回报：下一次从回报时刻起按翻倍后的间隔
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        r.onResult(false);
+        scheduler.advanceTimeBy(9, TimeUnit.SECONDS);
+        assertEquals(1, calls.get());
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(2, calls.get());
+
+        r.onResult(false);
+        scheduler.advanceTimeBy(19, TimeUnit.SECONDS);
+        assertEquals(2, calls.get());
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(3, calls.get());
+
+        r.onResult(true);
+        scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        assertEquals(4, calls.get());
+
+        // 结果一直没回来：按最长间隔兜底再轮询
+        scheduler.advanceTimeBy(39, TimeUnit.SECONDS);
+        assertEquals(4, calls.get());
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertEquals(5, calls.get());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.smarthome.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RingBufferTest {
+
+    @Test
+    public void add_evictsOldest_andSnapshotIsOrdered() {
+        RingBuffer<Integer> rb = new RingBuffer<>(3);
+        assertNull(rb.add(1));
+        assertNull(rb.add(2));
+        assertNull(rb.add(3));
+        assertEquals(Integer.valueOf(1), rb.add(4));
+        assertEquals(Arrays.asList(2, 3, 4), rb.snapshot());
+        assertEquals(Integer.valueOf(2), rb.oldest());
+        assertEquals(3, rb.size());
+    }
+
+    @Test
+    public void snapshot_isImmutableAndDetached() {
+        RingBuffer<Integer> rb = new RingBuffer<>(2);
+        rb.add(1);
+        List<Integer> snap = rb.snapshot();
+        rb.add(2);
+        rb.add(3);
+        assertEquals(Arrays.asList(1), snap);
+        try {
+            snap.add(9);
+            fail();
+        } catch (UnsupportedOperationException expected) {}
+    }
+
+    @Test
+    public void replace_updatesMatchingElement() {
+        RingBuffer<String> rb = new RingBuffer<>(3);
+        rb.add("a");
+        rb.add("b");
+        assertTrue(rb.replace("b"::equals, s -> "B"));
+        assertFalse(rb.replace("z"::equals, s -> "Z"));
+        assertEquals(Arrays.asList("a", "B"), rb.snapshot());
+    }
+}
@@ -1,6 +1,7 @@
 const express = require('express');
 const { createServer } = require('http');
 const cors = require('cors');
+const crypto = require('crypto');
 const { MQTTClient, MQTT_TOPICS } = require('./mqtt-client');
 const { DeviceManager, SensorDataManager, testSupabaseConnection } = require('./supabase');
 require('dotenv').config();
@@ -17,6 +18,8 @@ class Middleware {
         this.server = createServer(this.app);
         this.mqttClient = new MQTTClient();
         this.sseClients = new Set();
+        this.sseSeq = Date.now(); // 以启动时间为起点，重启后事件ID仍单调递增
+        this.sseBacklog = [];
         this.stats = {
             startTime: new Date(),
             messagesReceived: 0,
@@ -74,6 +77,7 @@ class Middleware {
         this.app.post('/devices', (req, res) => this.createDevice(req, res));
         this.app.put('/devices/:deviceId', (req, res) => this.updateDevice(req, res));
         this.app.delete('/devices/:deviceId', (req, res) => this.deleteDevice(req, res));
+        this.app.post('/devices/batch/control', (req, res) => this.controlDevicesBatch(req, res));
         this.app.post('/devices/:deviceId/control', (req, res) => this.controlDevice(req, res));
         this.app.post('/devices/:deviceId/config', (req, res) => this.configDevice(req, res));
         this.app.post('/alarm/:deviceId/close', (req, res) => this.closeAlarm(req, res));
@@ -350,6 +354,12 @@ class Middleware {
         res.json(stats);
     }
 
+    // 按数据内容（不含响应里的 timestamp）生成 ETag：内容未变时 Express 对 If-None-Match 直接回 304
+    setContentEtag(res, data) {
+        const hash = crypto.createHash('sha1').update(JSON.stringify(data)).digest('base64');
+        res.set('ETag', `"${hash}"`);
+    }
+
     // 设备列表接口
     async getDevices(req, res) {
         try {
@@ -357,6 +367,7 @@ class Middleware {
             if (result.error) {
                 throw result.error;
             }
+            this.setContentEtag(res, result.data || []);
             res.json({
                 devices: result.data || [],
                 count: (result.data || []).length,
@@ -375,7 +386,7 @@ class Middleware {
     async controlDevice(req, res) {
         try {
             const { deviceId } = req.params;
-            const { command, parameters } = req.body || {};
+            const { command, parameters, ...rest } = req.body || {};
             if (!deviceId || !command) {
                 return res.status(400).json({
                     error: 'Missing required fields',
@@ -383,23 +394,7 @@ class Middleware {
                 });
             }
 
-            const requestId = (Date.now().toString(36) + Math.random().toString(36).slice(2));
-            const payload = { command, parameters, requestId };
-            await this.mqttClient.publishToDevice(deviceId, 'control', payload);
-
-            // 记录控制历史（非阻塞）
-            try {
-                await require('./supabase').DeviceControlHistoryManager.insertControlHistory({
-                    deviceId,
-                    command,
-                    parameters: parameters || {},
-                    status: 'sent',
-                    response: null
-                });
-            } catch (e) {
-                console.error('记录控制历史失败:', e);
-            }
-
+            const requestId = await this.sendControl(deviceId, command, parameters || (Object.keys(rest).length ? rest : undefined));
             return res.json({
                 status: 'sent',
                 deviceId,
@@ -413,6 +408,50 @@ class Middleware {
         }
     }
 
+    // 批量控制：{ commands: [{ device_id, command, parameters }] }，逐条返回结果，单条失败不影响其他
+    async controlDevicesBatch(req, res) {
+        const { commands } = req.body || {};
+        if (!Array.isArray(commands) || commands.length === 0) {
+            return res.status(400).json({ error: 'Missing required fields', required: ['commands'] });
+        }
+        if (commands.length > 100) {
+            return res.status(400).json({ error: 'Too many commands', max: 100 });
+        }
+        const settled = await Promise.allSettled(commands.map(item => {
+            const { device_id, command, parameters, ...rest } = item || {};
+            if (!device_id || !command) return Promise.reject(new Error('Missing device_id or command'));
+            return this.sendControl(device_id, command, parameters || (Object.keys(rest).length ? rest : undefined));
+        }));
+        const results = settled.map((r, i) => {
+            const deviceId = (commands[i] || {}).device_id || null;
+            return r.status === 'fulfilled'
+                ? { device_id: deviceId, ok: true, requestId: r.value }
+                : { device_id: deviceId, ok: false, error: r.reason && r.reason.message };
+        });
+        return res.json({ results, timestamp: new Date().toISOString() });
+    }
+
+    // 发布一条控制命令并记录控制历史，返回 requestId
+    async sendControl(deviceId, command, parameters) {
+        const requestId = (Date.now().toString(36) + Math.random().toString(36).slice(2));
+        const payload = { command, parameters, requestId };
+        await this.mqttClient.publishToDevice(deviceId, 'control', payload);
+
+        // 记录控制历史（非阻塞）
+        try {
+            await require('./supabase').DeviceControlHistoryManager.insertControlHistory({
+                deviceId,
+                command,
+                parameters: parameters || {},
+                status: 'sent',
+                response: null
+            });
+        } catch (e) {
+            console.error('记录控制历史失败:', e);
+        }
+        return requestId;
+    }
+
     // 下发设备配置接口：发布到 MQTT
     async configDevice(req, res) {
         try {
@@ -503,14 +542,25 @@ class Middleware {
         res.flushHeaders();
         const client = res;
         this.sseClients.add(client);
+        client.write(`retry: 3000\n`);
         client.write(`event: ping\n`);
         client.write(`data: ${JSON.stringify({ ts: new Date().toISOString() })}\n\n`);
+        // 断线重连时按 Last-Event-ID 补发缺失的事件
+        const lastId = parseInt(req.headers['last-event-id'], 10);
+        if (!isNaN(lastId)) {
+            for (const item of this.sseBacklog) {
+                if (item.id > lastId) client.write(item.payload);
+            }
+        }
         req.on('close', () => { this.sseClients.delete(client); });
     }
 
     broadcastEvent(event, data) {
+        const id = ++this.sseSeq;
+        const payload = `id: ${id}\n` + `event: ${event}\n` + `data: ${JSON.stringify(data)}\n\n`;
+        this.sseBacklog.push({ id, payload });
+        if (this.sseBacklog.length > 200) this.sseBacklog.shift();
         if (!this.sseClients || this.sseClients.size === 0) return;
-        const payload = `event: ${event}\n` + `data: ${JSON.stringify(data)}\n\n`;
         for (const client of this.sseClients) {
             try { client.write(payload); } catch (e) {}
         }
@@ -518,14 +568,23 @@ class Middleware {
 
     async getSensorHistoryRaw(req, res) {
         try {
-            const { device_id, sensor_type, from, to, order = 'asc', limit } = req.query;
+            const { device_id, sensor_type, from, to, order = 'asc', limit, after } = req.query;
             if (!sensor_type) {
                 return res.status(400).json({ error: 'Missing sensor_type' });
             }
-            const aliases = this.resolveSensorAliases(sensor_type);
+            // 支持逗号分隔的多个类型，一次请求取回多个传感器的历史（每行带 sensor_type）
+            const aliases = String(sensor_type).split(',').map(t => t.trim()).filter(Boolean)
+                .flatMap(t => this.resolveSensorAliases(t));
             const { SensorDataQuery } = require('./supabase');
-            const data = await SensorDataQuery.getRaw({ deviceId: device_id, sensorTypes: aliases, from, to, order, limit });
-            return res.json({ data, count: data.length, timestamp: new Date().toISOString() });
+            if (after && !SensorDataQuery.parseCursor(after)) {
+                return res.status(400).json({ error: 'Invalid cursor', expected: 'ISO timestamp|numeric id' });
+            }
+            const data = await SensorDataQuery.getRaw({ deviceId: device_id, sensorTypes: aliases, from, to, order, limit, after });
+            // 满页时返回下一页游标
+            const pageSize = Math.max(1, Math.min(10000, Number(limit) || 1000));
+            const tail = data.length === pageSize ? data[data.length - 1] : null;
+            const next_cursor = tail && tail.id ? `${tail.timestamp}|${tail.id}` : null;
+            return res.json({ data, count: data.length, next_cursor, timestamp: new Date().toISOString() });
         } catch (error) {
             console.error('获取历史原始数据失败:', error);
             return res.status(500).json({ error: 'Failed to fetch sensor history (raw)', details: error.message });
@@ -541,6 +600,7 @@ class Middleware {
             const aliases = this.resolveSensorAliases(sensor_type);
             const { SensorDataQuery } = require('./supabase');
             const data = await SensorDataQuery.getAggregated({ deviceId: device_id, sensorTypes: aliases, from, to, bucket });
+            this.setContentEtag(res, data);
             return res.json({ data, count: data.length, bucket, timestamp: new Date().toISOString() });
         } catch (error) {
             console.error('获取历史聚合数据失败:', error);
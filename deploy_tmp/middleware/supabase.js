@@ -252,9 +252,30 @@ class SensorDataQuery {
         }
     }
 
-    static async getRaw({ deviceId, sensorTypes = [], from, to, order = 'asc', limit = 1000 }) {
+    // 校验客户端传回的分页游标 "timestamp|id"：游标会拼进 PostgREST 的 or=(...) 过滤表达式，
+    // id 只允许纯数字，时间戳必须可解析并用 toISOString 重新生成（保留毫秒以下的微秒位），不合法返回 null
+    static parseCursor(after) {
+        const parts = String(after).split('|');
+        if (parts.length !== 2) return null;
+        const [rawTs, id] = parts;
+        if (!/^\d+$/.test(id)) return null;
+        const m = /^\d{4}-\d{2}-\d{2}[T ]\d{2}:\d{2}:\d{2}(?:\.(\d{1,9}))?(?:Z|[+-]\d{2}(?::?\d{2})?)$/i.exec(rawTs);
+        if (!m) return null;
+        const normalized = rawTs.replace(' ', 'T')
+            .replace(/\.(\d{3})\d+/, '.$1')
+            .replace(/([+-]\d{2})(\d{2})?$/, (_, h, mm) => `${h}:${mm || '00'}`);
+        const t = new Date(normalized);
+        if (!Number.isFinite(t.getTime())) return null;
+        const extra = m[1] && m[1].length > 3 ? m[1].slice(3) : '';
+        const ts = t.toISOString().replace('Z', `${extra}Z`);
+        return { ts, id };
+    }
+
+    // after: 上一页返回的游标（"timestamp|id"），按 (timestamp, id) 键集分页，同一时间戳的多行不会重复或遗漏
+    static async getRaw({ deviceId, sensorTypes = [], from, to, order = 'asc', limit = 1000, after }) {
         const key = supabaseServiceKey || supabaseKey;
         const params = [];
+        const desc = order === 'desc';
         if (deviceId) params.push(`device_id=eq.${encodeURIComponent(deviceId)}`);
         if (sensorTypes && sensorTypes.length) {
             const encoded = sensorTypes.map(s => encodeURIComponent(s)).join(',');
@@ -262,7 +283,14 @@ class SensorDataQuery {
         }
         if (from) params.push(`timestamp=gte.${encodeURIComponent(from)}`);
         if (to) params.push(`timestamp=lte.${encodeURIComponent(to)}`);
-        params.push(`order=timestamp.${order === 'desc' ? 'desc' : 'asc'}`);
+        if (after) {
+            const cursor = SensorDataQuery.parseCursor(after);
+            if (!cursor) throw new Error('Invalid cursor');
+            const { ts, id } = cursor;
+            const op = desc ? 'lt' : 'gt';
+            params.push(`or=${encodeURIComponent(`(timestamp.${op}."${ts}",and(timestamp.eq."${ts}",id.${op}.${id}))`)}`);
+        }
+        params.push(`order=timestamp.${desc ? 'desc' : 'asc'},id.${desc ? 'desc' : 'asc'}`);
         params.push(`limit=${Math.max(1, Math.min(10000, Number(limit) || 1000))}`);
         const url = `${supabaseUrl}/rest/v1/sensor_data?${params.join('&')}`;
         const res = await fetch(url, { headers: { apikey: key, Authorization: `Bearer ${key}`, 'Content-Type': 'application/json' } });